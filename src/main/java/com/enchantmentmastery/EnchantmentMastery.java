@@ -3,8 +3,13 @@ package com.enchantmentmastery;
 import com.enchantmentmastery.capability.MasteryCapability;
 import com.enchantmentmastery.data.ModDataComponents;
 import com.enchantmentmastery.network.ModNetworking;
+import com.enchantmentmastery.registry.ModBlockEntities;
+import com.enchantmentmastery.registry.ModBlocks;
+import com.enchantmentmastery.registry.ModItems;
 import com.enchantmentmastery.registry.ModMenuTypes;
+import net.minecraft.world.item.CreativeModeTabs;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.BuildCreativeModeTabContentsEvent;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
@@ -25,12 +30,16 @@ public class EnchantmentMastery {
 
         // Register deferred registers
         ModDataComponents.REGISTRY.register(modEventBus);
+        ModBlocks.REGISTRY.register(modEventBus);
+        ModItems.REGISTRY.register(modEventBus);
+        ModBlockEntities.REGISTRY.register(modEventBus);
         ModMenuTypes.REGISTRY.register(modEventBus);
         MasteryCapability.register(modEventBus);
 
         // Setup events
         modEventBus.addListener(this::commonSetup);
         modEventBus.addListener(this::clientSetup);
+        modEventBus.addListener(this::addCreativeTabItems);
 
         // Register ourselves for game events
         MinecraftForge.EVENT_BUS.register(this);
@@ -43,6 +52,13 @@ public class EnchantmentMastery {
         });
     }
 
+    private void addCreativeTabItems(final BuildCreativeModeTabContentsEvent event) {
+        if (event.getTabKey() == CreativeModeTabs.FUNCTIONAL_BLOCKS) {
+            event.accept(ModItems.MASTERY_LECTERN);
+            event.accept(ModItems.BOOK_LIBRARY);
+        }
+    }
+
     private void clientSetup(final FMLClientSetupEvent event) {
         event.enqueueWork(() -> {
             LOGGER.info("Enchantment Mastery client setup complete");
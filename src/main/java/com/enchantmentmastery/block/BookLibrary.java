@@ -0,0 +1,156 @@
+package com.enchantmentmastery.block;
+
+import com.enchantmentmastery.data.LibraryBooksComponent;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.core.Registry;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.enchantment.Enchantment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Book counts keyed by (enchantment registry id, level), packed into one long so a count is a
+ * single primitive map lookup and storing or taking a book is O(1).
+ *
+ * Registry ids are only stable while the server runs, so the saved form
+ * ({@link LibraryBooksComponent}) is keyed by enchantment name. Shelves of enchantments that are
+ * no longer registered are kept as they were and written back unchanged.
+ */
+public final class BookLibrary {
+    private final Long2IntOpenHashMap counts = new Long2IntOpenHashMap();
+    private final List<LibraryBooksComponent.Shelf> unknown = new ArrayList<>();
+    private int total = 0;
+
+    /**
+     * Receives the entries walked by {@link #forEach}.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(int enchantment, int level, int count);
+    }
+
+    public static long key(int enchantment, int level) {
+        return ((long) enchantment << 32) | (level & 0xFFFFFFFFL);
+    }
+
+    public static int enchantment(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int level(long key) {
+        return (int) key;
+    }
+
+    public int count(int enchantment, int level) {
+        return counts.get(key(enchantment, level));
+    }
+
+    public void add(int enchantment, int level, int count) {
+        counts.addTo(key(enchantment, level), count);
+        total += count;
+    }
+
+    /**
+     * Takes up to {@code count} books of one enchantment level.
+     *
+     * @return The number taken
+     */
+    public int remove(int enchantment, int level, int count) {
+        long key = key(enchantment, level);
+        int stored = counts.get(key);
+        int taken = Math.min(stored, count);
+        if (taken <= 0) {
+            return 0;
+        }
+        if (taken == stored) {
+            counts.remove(key);
+        } else {
+            counts.put(key, stored - taken);
+        }
+        total -= taken;
+        return taken;
+    }
+
+    /**
+     * Gets the number of books stored.
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * Gets the number of distinct (enchantment, level) entries.
+     */
+    public int size() {
+        return counts.size();
+    }
+
+    public void forEach(EntryVisitor visitor) {
+        for (Long2IntMap.Entry entry : counts.long2IntEntrySet()) {
+            long key = entry.getLongKey();
+            visitor.visit(enchantment(key), level(key), entry.getIntValue());
+        }
+    }
+
+    public void clear() {
+        counts.clear();
+        unknown.clear();
+        total = 0;
+    }
+
+    /**
+     * Converts to the saved form, one shelf per enchantment with its levels in order.
+     */
+    public LibraryBooksComponent save(Registry<Enchantment> registry) {
+        // Sorted keys group each enchantment's levels together, in level order
+        long[] keys = counts.keySet().toLongArray();
+        Arrays.sort(keys);
+        List<LibraryBooksComponent.Shelf> shelves = new ArrayList<>();
+        int start = 0;
+        while (start < keys.length) {
+            int enchantment = enchantment(keys[start]);
+            int end = start;
+            while (end < keys.length && enchantment(keys[end]) == enchantment) {
+                end++;
+            }
+            ResourceLocation id = registry.getKey(registry.byId(enchantment));
+            if (id != null) {
+                int[] levels = new int[end - start];
+                int[] levelCounts = new int[end - start];
+                for (int i = start; i < end; i++) {
+                    levels[i - start] = level(keys[i]);
+                    levelCounts[i - start] = counts.get(keys[i]);
+                }
+                shelves.add(new LibraryBooksComponent.Shelf(id, levels, levelCounts));
+            }
+            start = end;
+        }
+        shelves.addAll(unknown);
+        return new LibraryBooksComponent(shelves);
+    }
+
+    /**
+     * Replaces the contents with the saved form, resolving enchantment names to registry ids.
+     */
+    public void load(LibraryBooksComponent saved, Registry<Enchantment> registry) {
+        clear();
+        for (LibraryBooksComponent.Shelf shelf : saved.shelves()) {
+            Enchantment value = registry.get(shelf.enchantment());
+            if (value == null) {
+                unknown.add(shelf);
+                continue;
+            }
+            int enchantment = registry.getId(value);
+            int[] levels = shelf.levels();
+            int[] levelCounts = shelf.counts();
+            for (int i = 0; i < Math.min(levels.length, levelCounts.length); i++) {
+                if (levels[i] > 0 && levelCounts[i] > 0) {
+                    add(enchantment, levels[i], levelCounts[i]);
+                }
+            }
+        }
+    }
+}
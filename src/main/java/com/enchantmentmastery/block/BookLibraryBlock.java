@@ -0,0 +1,100 @@
+package com.enchantmentmastery.block;
+
+import com.mojang.serialization.MapCodec;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.sounds.SoundEvents;
+import net.minecraft.sounds.SoundSource;
+import net.minecraft.world.InteractionHand;
+import net.minecraft.world.InteractionResult;
+import net.minecraft.world.ItemInteractionResult;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.BaseEntityBlock;
+import net.minecraft.world.level.block.RenderShape;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.BlockHitResult;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A bookshelf that stores any number of plain enchanted books.
+ *
+ * Right-clicking with an enchanted book stores it; sneaking stores every storable book in the
+ * inventory. Right-clicking with an empty hand opens the library screen to take books out.
+ * Breaking the block keeps the books on the dropped item.
+ */
+public class BookLibraryBlock extends BaseEntityBlock {
+    public static final MapCodec<BookLibraryBlock> CODEC = simpleCodec(BookLibraryBlock::new);
+
+    public BookLibraryBlock(Properties properties) {
+        super(properties);
+    }
+
+    @Override
+    protected MapCodec<? extends BaseEntityBlock> codec() {
+        return CODEC;
+    }
+
+    @Override
+    protected RenderShape getRenderShape(BlockState state) {
+        return RenderShape.MODEL;
+    }
+
+    @Nullable
+    @Override
+    public BlockEntity newBlockEntity(BlockPos pos, BlockState state) {
+        return new BookLibraryBlockEntity(pos, state);
+    }
+
+    @Override
+    protected ItemInteractionResult useItemOn(ItemStack stack, BlockState state, Level level, BlockPos pos,
+                                              Player player, InteractionHand hand, BlockHitResult hit) {
+        if (!stack.is(Items.ENCHANTED_BOOK)) {
+            return ItemInteractionResult.PASS_TO_DEFAULT_BLOCK_INTERACTION;
+        }
+        if (level.isClientSide()) {
+            return ItemInteractionResult.SUCCESS;
+        }
+        if (!(level.getBlockEntity(pos) instanceof BookLibraryBlockEntity library)) {
+            return ItemInteractionResult.FAIL;
+        }
+
+        int stored = 0;
+        if (player.isShiftKeyDown()) {
+            for (ItemStack slot : player.getInventory().items) {
+                int count = library.insert(slot, false);
+                slot.shrink(count);
+                stored += count;
+            }
+        } else {
+            stored = library.insert(stack, false);
+            stack.shrink(stored);
+        }
+
+        if (stored == 0) {
+            player.displayClientMessage(Component.translatable("enchantmentmastery.library.not_storable"), true);
+            return ItemInteractionResult.CONSUME;
+        }
+        level.playSound(null, pos, SoundEvents.CHISELED_BOOKSHELF_INSERT_ENCHANTED, SoundSource.BLOCKS, 1.0F, 1.0F);
+        player.displayClientMessage(Component.translatable("enchantmentmastery.library.stored",
+                stored, library.getTotalBooks()), true);
+        return ItemInteractionResult.CONSUME;
+    }
+
+    @Override
+    protected InteractionResult useWithoutItem(BlockState state, Level level, BlockPos pos, Player player,
+                                               BlockHitResult hit) {
+        if (level.isClientSide()) {
+            return InteractionResult.SUCCESS;
+        }
+        if (player instanceof ServerPlayer serverPlayer
+                && level.getBlockEntity(pos) instanceof BookLibraryBlockEntity library) {
+            library.sendContents(serverPlayer);
+        }
+        return InteractionResult.CONSUME;
+    }
+}
@@ -0,0 +1,238 @@
+package com.enchantmentmastery.block;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.data.LibraryBooksComponent;
+import com.enchantmentmastery.data.ModDataComponents;
+import com.enchantmentmastery.network.LibraryContentsPacket;
+import com.enchantmentmastery.network.ModNetworking;
+import com.enchantmentmastery.registry.ModBlockEntities;
+import com.enchantmentmastery.util.EnchantComponentUtil;
+import com.enchantmentmastery.util.EnchantRegistryUtil;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.Registry;
+import net.minecraft.core.component.DataComponentMap;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.item.EnchantedBookItem;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.enchantment.Enchantment;
+import net.minecraft.world.item.enchantment.EnchantmentInstance;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.ForgeCapabilities;
+import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.network.PacketDistributor;
+import org.apache.commons.lang3.tuple.Pair;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Block entity of the {@link BookLibraryBlock}: stores plain single-enchantment books as counts in
+ * a {@link BookLibrary} instead of one ItemStack each.
+ *
+ * Only books that are exactly what {@link EnchantedBookItem#createForEnchantment} produces are
+ * accepted (no custom name, no anvil repair cost), so nothing is lost when a book is rebuilt on
+ * withdrawal. Hoppers can insert but not extract; books come out through the library screen.
+ */
+public class BookLibraryBlockEntity extends BlockEntity {
+    private static final String BOOKS_KEY = "books";
+
+    private final BookLibrary library = new BookLibrary();
+    private final LazyOptional<IItemHandler> itemHandler = LazyOptional.of(InsertHandler::new);
+    // Saved contents waiting for the level's registries, which aren't available while loading
+    private @Nullable LibraryBooksComponent pending;
+
+    public BookLibraryBlockEntity(BlockPos pos, BlockState state) {
+        super(ModBlockEntities.BOOK_LIBRARY.get(), pos, state);
+    }
+
+    private Registry<Enchantment> registry() {
+        return EnchantRegistryUtil.getRegistry(level.registryAccess());
+    }
+
+    private BookLibrary library() {
+        if (pending != null && level != null) {
+            library.load(pending, registry());
+            pending = null;
+        }
+        return library;
+    }
+
+    public int getTotalBooks() {
+        return library().total();
+    }
+
+    /**
+     * Gets the registry id and level of a book the library accepts, or null.
+     */
+    @Nullable
+    private Pair<Integer, Integer> storableBook(ItemStack stack) {
+        if (level == null || !stack.is(Items.ENCHANTED_BOOK)) {
+            return null;
+        }
+        return EnchantComponentUtil.getSingleStoredEnchantment(stack)
+                .filter(pair -> ItemStack.isSameItemSameComponents(stack,
+                        EnchantedBookItem.createForEnchantment(new EnchantmentInstance(pair.getLeft(), pair.getRight()))))
+                .map(pair -> Pair.of(registry().getId(pair.getLeft().value()), pair.getRight()))
+                .filter(pair -> pair.getLeft() >= 0)
+                .orElse(null);
+    }
+
+    /**
+     * Stores as many books of the stack as the library accepts.
+     *
+     * @return The number of books stored
+     */
+    public int insert(ItemStack stack, boolean simulate) {
+        Pair<Integer, Integer> book = storableBook(stack);
+        if (book == null || stack.isEmpty()) {
+            return 0;
+        }
+        int count = stack.getCount();
+        if (!simulate) {
+            library().add(book.getLeft(), book.getRight(), count);
+            setChanged();
+        }
+        return count;
+    }
+
+    /**
+     * Takes one book out of the library.
+     *
+     * @param enchantment Enchantment registry id
+     * @return The book, or an empty stack if the library has none
+     */
+    public ItemStack withdraw(int enchantment, int bookLevel) {
+        if (level == null) {
+            return ItemStack.EMPTY;
+        }
+        Holder<Enchantment> holder = registry().getHolder(enchantment).orElse(null);
+        if (holder == null || library().remove(enchantment, bookLevel, 1) == 0) {
+            return ItemStack.EMPTY;
+        }
+        setChanged();
+        return EnchantedBookItem.createForEnchantment(new EnchantmentInstance(holder, bookLevel));
+    }
+
+    /**
+     * Sends the contents to a player, opening or refreshing their library screen.
+     */
+    public void sendContents(ServerPlayer player) {
+        List<LibraryContentsPacket.Entry> entries = new ArrayList<>(library().size());
+        library().forEach((enchantment, bookLevel, count) ->
+                entries.add(new LibraryContentsPacket.Entry(enchantment, bookLevel, count)));
+        ModNetworking.CHANNEL.send(new LibraryContentsPacket(worldPosition, entries),
+                PacketDistributor.PLAYER.with(player));
+    }
+
+    @Override
+    protected void saveAdditional(CompoundTag tag, HolderLookup.Provider registries) {
+        super.saveAdditional(tag, registries);
+        LibraryBooksComponent books = pending != null || level == null ? pending : library.save(registry());
+        if (books != null && !books.isEmpty()) {
+            LibraryBooksComponent.CODEC.encodeStart(registries.createSerializationContext(NbtOps.INSTANCE), books)
+                    .resultOrPartial(error -> EnchantmentMastery.LOGGER.error(
+                            "Failed to save book library at {}: {}", worldPosition, error))
+                    .ifPresent(encoded -> tag.put(BOOKS_KEY, encoded));
+        }
+    }
+
+    @Override
+    protected void loadAdditional(CompoundTag tag, HolderLookup.Provider registries) {
+        super.loadAdditional(tag, registries);
+        library.clear();
+        pending = LibraryBooksComponent.EMPTY;
+        if (tag.contains(BOOKS_KEY)) {
+            LibraryBooksComponent.CODEC.parse(registries.createSerializationContext(NbtOps.INSTANCE), tag.get(BOOKS_KEY))
+                    .resultOrPartial(error -> EnchantmentMastery.LOGGER.error(
+                            "Failed to load book library at {}: {}", worldPosition, error))
+                    .ifPresent(books -> pending = books);
+        }
+    }
+
+    // The contents travel on the item when the block is broken, rather than as thousands of book entities
+
+    @Override
+    protected void applyImplicitComponents(DataComponentInput input) {
+        super.applyImplicitComponents(input);
+        LibraryBooksComponent books = input.get(ModDataComponents.LIBRARY_BOOKS.get());
+        if (books != null) {
+            library.clear();
+            pending = books;
+        }
+    }
+
+    @Override
+    protected void collectImplicitComponents(DataComponentMap.Builder components) {
+        super.collectImplicitComponents(components);
+        if (level != null && library().total() > 0) {
+            components.set(ModDataComponents.LIBRARY_BOOKS.get(), library().save(registry()));
+        }
+    }
+
+    @Override
+    public void removeComponentsFromTag(CompoundTag tag) {
+        super.removeComponentsFromTag(tag);
+        tag.remove(BOOKS_KEY);
+    }
+
+    @Override
+    public @NotNull <T> LazyOptional<T> getCapability(@NotNull Capability<T> cap, @Nullable Direction side) {
+        if (cap == ForgeCapabilities.ITEM_HANDLER) {
+            return itemHandler.cast();
+        }
+        return super.getCapability(cap, side);
+    }
+
+    @Override
+    public void invalidateCaps() {
+        super.invalidateCaps();
+        itemHandler.invalidate();
+    }
+
+    /**
+     * Hopper-facing inventory: a single slot that takes books and always looks empty.
+     */
+    private class InsertHandler implements IItemHandler {
+        @Override
+        public int getSlots() {
+            return 1;
+        }
+
+        @Override
+        public @NotNull ItemStack getStackInSlot(int slot) {
+            return ItemStack.EMPTY;
+        }
+
+        @Override
+        public @NotNull ItemStack insertItem(int slot, @NotNull ItemStack stack, boolean simulate) {
+            int stored = insert(stack, simulate);
+            return stored == 0 ? stack : stack.copyWithCount(stack.getCount() - stored);
+        }
+
+        @Override
+        public @NotNull ItemStack extractItem(int slot, int amount, boolean simulate) {
+            return ItemStack.EMPTY;
+        }
+
+        @Override
+        public int getSlotLimit(int slot) {
+            return 64;
+        }
+
+        @Override
+        public boolean isItemValid(int slot, @NotNull ItemStack stack) {
+            return storableBook(stack) != null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.enchantmentmastery.block;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectRBTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectSortedMap;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Single-enchantment books waiting in a {@link MasteryLecternBlockEntity}, indexed by
+ * (enchantment, level) so a mastery chain is read off in level order without scanning.
+ *
+ * Enchantments that received books since the last batch are marked dirty, so a batch only looks at
+ * those unless the owner's mastery changed underneath it.
+ */
+final class LecternBookQueue {
+    private final TreeMap<ResourceLocation, Int2ObjectRBTreeMap<ArrayDeque<ItemStack>>> books = new TreeMap<>();
+    private final TreeSet<ResourceLocation> dirty = new TreeSet<>();
+    private int size = 0;
+
+    void add(ResourceLocation enchantId, int level, ItemStack book) {
+        books.computeIfAbsent(enchantId, id -> new Int2ObjectRBTreeMap<>())
+                .computeIfAbsent(level, l -> new ArrayDeque<>())
+                .add(book);
+        dirty.add(enchantId);
+        size++;
+    }
+
+    /**
+     * Gets the queued books of one enchantment by level, or null if there are none.
+     */
+    @Nullable
+    Int2ObjectSortedMap<ArrayDeque<ItemStack>> levels(ResourceLocation enchantId) {
+        return books.get(enchantId);
+    }
+
+    boolean has(ResourceLocation enchantId, int level) {
+        Int2ObjectRBTreeMap<ArrayDeque<ItemStack>> levels = books.get(enchantId);
+        return levels != null && levels.containsKey(level);
+    }
+
+    /**
+     * Removes one book of an enchantment level, or returns an empty stack if there is none.
+     */
+    ItemStack poll(ResourceLocation enchantId, int level) {
+        Int2ObjectRBTreeMap<ArrayDeque<ItemStack>> levels = books.get(enchantId);
+        if (levels == null) {
+            return ItemStack.EMPTY;
+        }
+        ArrayDeque<ItemStack> stacks = levels.get(level);
+        if (stacks == null) {
+            return ItemStack.EMPTY;
+        }
+        ItemStack book = stacks.poll();
+        if (stacks.isEmpty()) {
+            levels.remove(level);
+            if (levels.isEmpty()) {
+                books.remove(enchantId);
+            }
+        }
+        size--;
+        return book;
+    }
+
+    void markDirty(ResourceLocation enchantId) {
+        if (books.containsKey(enchantId)) {
+            dirty.add(enchantId);
+        }
+    }
+
+    void markAllDirty() {
+        dirty.addAll(books.keySet());
+    }
+
+    /**
+     * Removes and returns the dirty enchantments in id order.
+     */
+    List<ResourceLocation> drainDirty() {
+        List<ResourceLocation> drained = new ArrayList<>(dirty);
+        dirty.clear();
+        return drained;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void forEach(Consumer<ItemStack> consumer) {
+        for (Int2ObjectRBTreeMap<ArrayDeque<ItemStack>> levels : books.values()) {
+            for (ArrayDeque<ItemStack> stacks : levels.values()) {
+                stacks.forEach(consumer);
+            }
+        }
+    }
+
+    void clear() {
+        books.clear();
+        dirty.clear();
+        size = 0;
+    }
+}
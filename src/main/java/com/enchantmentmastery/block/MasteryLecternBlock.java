@@ -0,0 +1,147 @@
+package com.enchantmentmastery.block;
+
+import com.enchantmentmastery.registry.ModBlockEntities;
+import com.mojang.serialization.MapCodec;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.InteractionResult;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.context.BlockPlaceContext;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.BaseEntityBlock;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.HorizontalDirectionalBlock;
+import net.minecraft.world.level.block.Mirror;
+import net.minecraft.world.level.block.RenderShape;
+import net.minecraft.world.level.block.Rotation;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.BlockEntityTicker;
+import net.minecraft.world.level.block.entity.BlockEntityType;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.StateDefinition;
+import net.minecraft.world.level.block.state.properties.DirectionProperty;
+import net.minecraft.world.phys.BlockHitResult;
+import net.minecraft.world.phys.shapes.CollisionContext;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A lectern that absorbs enchanted books into its owner's mastery.
+ *
+ * Placing it binds it to the placer. Hoppers feed it books; the owner right-clicks to store all
+ * of their experience in it, which pays for the absorbs, and sneak + right-clicks for its status.
+ */
+public class MasteryLecternBlock extends BaseEntityBlock {
+    public static final MapCodec<MasteryLecternBlock> CODEC = simpleCodec(MasteryLecternBlock::new);
+    public static final DirectionProperty FACING = HorizontalDirectionalBlock.FACING;
+
+    private static final VoxelShape SHAPE = Shapes.or(
+            Block.box(0, 0, 0, 16, 2, 16),
+            Block.box(4, 2, 4, 12, 14, 12),
+            Block.box(0, 14, 0, 16, 15, 16));
+
+    public MasteryLecternBlock(Properties properties) {
+        super(properties);
+        registerDefaultState(stateDefinition.any().setValue(FACING, Direction.NORTH));
+    }
+
+    @Override
+    protected MapCodec<? extends BaseEntityBlock> codec() {
+        return CODEC;
+    }
+
+    @Override
+    protected void createBlockStateDefinition(StateDefinition.Builder<Block, BlockState> builder) {
+        builder.add(FACING);
+    }
+
+    @Override
+    public BlockState getStateForPlacement(BlockPlaceContext context) {
+        return defaultBlockState().setValue(FACING, context.getHorizontalDirection().getOpposite());
+    }
+
+    @Override
+    protected BlockState rotate(BlockState state, Rotation rotation) {
+        return state.setValue(FACING, rotation.rotate(state.getValue(FACING)));
+    }
+
+    @Override
+    protected BlockState mirror(BlockState state, Mirror mirror) {
+        return state.rotate(mirror.getRotation(state.getValue(FACING)));
+    }
+
+    @Override
+    protected VoxelShape getShape(BlockState state, BlockGetter level, BlockPos pos, CollisionContext context) {
+        return SHAPE;
+    }
+
+    @Override
+    protected RenderShape getRenderShape(BlockState state) {
+        return RenderShape.MODEL;
+    }
+
+    @Nullable
+    @Override
+    public BlockEntity newBlockEntity(BlockPos pos, BlockState state) {
+        return new MasteryLecternBlockEntity(pos, state);
+    }
+
+    @Nullable
+    @Override
+    public <T extends BlockEntity> BlockEntityTicker<T> getTicker(Level level, BlockState state,
+                                                                  BlockEntityType<T> type) {
+        return level.isClientSide() ? null
+                : createTickerHelper(type, ModBlockEntities.MASTERY_LECTERN.get(), MasteryLecternBlockEntity::serverTick);
+    }
+
+    @Override
+    public void setPlacedBy(Level level, BlockPos pos, BlockState state, @Nullable LivingEntity placer,
+                            ItemStack stack) {
+        super.setPlacedBy(level, pos, state, placer, stack);
+        if (placer instanceof ServerPlayer player && level.getBlockEntity(pos) instanceof MasteryLecternBlockEntity lectern) {
+            lectern.setOwner(player.getUUID());
+            player.displayClientMessage(Component.translatable("enchantmentmastery.lectern.bound"), true);
+        }
+    }
+
+    @Override
+    protected InteractionResult useWithoutItem(BlockState state, Level level, BlockPos pos, Player player,
+                                               BlockHitResult hit) {
+        if (level.isClientSide()) {
+            return InteractionResult.SUCCESS;
+        }
+        if (!(player instanceof ServerPlayer serverPlayer)
+                || !(level.getBlockEntity(pos) instanceof MasteryLecternBlockEntity lectern)) {
+            return InteractionResult.PASS;
+        }
+
+        if (lectern.getOwner() == null) {
+            lectern.setOwner(serverPlayer.getUUID());
+            serverPlayer.displayClientMessage(Component.translatable("enchantmentmastery.lectern.bound"), true);
+        } else if (!lectern.isOwner(serverPlayer)) {
+            serverPlayer.displayClientMessage(Component.translatable("enchantmentmastery.lectern.not_owner"), true);
+        } else if (serverPlayer.isShiftKeyDown()) {
+            serverPlayer.displayClientMessage(Component.translatable("enchantmentmastery.lectern.status",
+                    lectern.getQueuedBooks(), lectern.getStoredXp()), true);
+        } else {
+            long deposited = lectern.depositExperience(serverPlayer);
+            serverPlayer.displayClientMessage(Component.translatable("enchantmentmastery.lectern.deposited",
+                    deposited, lectern.getStoredXp()), true);
+        }
+        return InteractionResult.CONSUME;
+    }
+
+    @Override
+    protected void onRemove(BlockState state, Level level, BlockPos pos, BlockState newState, boolean movedByPiston) {
+        if (!state.is(newState.getBlock()) && level.getBlockEntity(pos) instanceof MasteryLecternBlockEntity lectern) {
+            lectern.dropContents(level, pos);
+        }
+        super.onRemove(state, level, pos, newState, movedByPiston);
+    }
+}
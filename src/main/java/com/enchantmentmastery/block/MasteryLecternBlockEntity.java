@@ -0,0 +1,488 @@
+package com.enchantmentmastery.block;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.capability.MasterySnapshot;
+import com.enchantmentmastery.capability.MasteryTransaction;
+import com.enchantmentmastery.handler.DecodingHandler;
+import com.enchantmentmastery.metrics.MasteryMetrics;
+import com.enchantmentmastery.registry.ModBlockEntities;
+import com.enchantmentmastery.storage.MasteryJournal;
+import com.enchantmentmastery.storage.MasteryStorage;
+import com.enchantmentmastery.util.EnchantComponentUtil;
+import com.enchantmentmastery.util.EnchantIdPool;
+import com.enchantmentmastery.util.EnchantRegistryUtil;
+import com.enchantmentmastery.util.ProgressionMath;
+import it.unimi.dsi.fastutil.ints.Int2ObjectSortedMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.sounds.SoundEvents;
+import net.minecraft.sounds.SoundSource;
+import net.minecraft.world.Containers;
+import net.minecraft.world.entity.ExperienceOrb;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.enchantment.Enchantment;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.Vec3;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.ForgeCapabilities;
+import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
+import net.minecraftforge.items.ItemStackHandler;
+import org.apache.commons.lang3.tuple.Pair;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Block entity of the {@link MasteryLecternBlock}: takes single-enchantment books from hoppers and
+ * absorbs them into its owner's mastery, paying with experience stored in the lectern rather than
+ * the owner's XP levels.
+ *
+ * Books wait in a {@link LecternBookQueue} and are processed every {@link #BATCH_TICKS} ticks, each
+ * batch being one mastery transaction. Books at or below the owner's mastery are moved to output
+ * slots that hoppers can pull from.
+ *
+ * While the owner is offline their mastery is read from the store, and the levels absorbed for them
+ * are kept as pending levels in the lectern and handed over once they are online. The books, stored
+ * experience and pending levels are all saved with the chunk, so a crash rolls them back together.
+ */
+public class MasteryLecternBlockEntity extends BlockEntity {
+    /** Ticks between batches. Override with {@code -Denchantmentmastery.lecternBatchTicks=<ticks>}. */
+    public static final int BATCH_TICKS = Math.max(1, Integer.getInteger("enchantmentmastery.lecternBatchTicks", 20));
+    /** Books the queue holds before hoppers are refused. */
+    public static final int QUEUE_CAPACITY = 256;
+    private static final int OUTPUT_SLOTS = 9;
+
+    private static final String OWNER_KEY = "owner";
+    private static final String STORED_XP_KEY = "stored_xp";
+    private static final String BOOKS_KEY = "books";
+    private static final String OUTPUT_KEY = "output";
+    private static final String PENDING_KEY = "pending";
+
+    private final LecternBookQueue queue = new LecternBookQueue();
+    private final ItemStackHandler output = new ItemStackHandler(OUTPUT_SLOTS) {
+        @Override
+        protected void onContentsChanged(int slot) {
+            setChanged();
+        }
+    };
+    private final LazyOptional<IItemHandler> itemHandler = LazyOptional.of(BookHandler::new);
+
+    // Mastery levels absorbed while the owner was offline, by enchantment
+    private final Map<ResourceLocation, Integer> pending = new TreeMap<>();
+
+    private @Nullable UUID owner;
+    private long storedXp = 0;
+    private int ticksSinceBatch;
+    // Owner data or snapshot the queue was last checked against; a change means re-check every enchantment
+    private @Nullable Object seenSource;
+    private long seenVersion = -1;
+
+    public MasteryLecternBlockEntity(BlockPos pos, BlockState state) {
+        super(ModBlockEntities.MASTERY_LECTERN.get(), pos, state);
+        // Spread lecterns over the batch interval so they don't all run on the same tick
+        this.ticksSinceBatch = Math.floorMod(pos.hashCode(), BATCH_TICKS);
+    }
+
+    public static void serverTick(Level level, BlockPos pos, BlockState state, MasteryLecternBlockEntity lectern) {
+        if (++lectern.ticksSinceBatch < BATCH_TICKS) {
+            return;
+        }
+        lectern.ticksSinceBatch = 0;
+        lectern.processBatch((ServerLevel) level);
+    }
+
+    @Nullable
+    public UUID getOwner() {
+        return owner;
+    }
+
+    public void setOwner(UUID owner) {
+        if (!owner.equals(this.owner)) {
+            pending.clear();
+        }
+        this.owner = owner;
+        this.seenSource = null;
+        queue.markAllDirty();
+        setChanged();
+    }
+
+    public boolean isOwner(ServerPlayer player) {
+        return player.getUUID().equals(owner);
+    }
+
+    public int getQueuedBooks() {
+        return queue.size();
+    }
+
+    public long getStoredXp() {
+        return storedXp;
+    }
+
+    /**
+     * Moves all of a player's experience into the lectern.
+     *
+     * @return The experience points stored
+     */
+    public long depositExperience(ServerPlayer player) {
+        long points = ProgressionMath.experiencePointsForLevels(player.experienceLevel)
+                + Math.round(player.experienceProgress * player.getXpNeededForNextLevel());
+        if (points <= 0) {
+            return 0;
+        }
+        player.giveExperienceLevels(-player.experienceLevel);
+        player.setExperiencePoints(0);
+        storedXp += points;
+        // Chains that stopped for lack of experience may continue now
+        queue.markAllDirty();
+        setChanged();
+        return points;
+    }
+
+    /**
+     * Absorbs every affordable chain of queued books into the owner's mastery in one transaction,
+     * or into the pending levels while the owner is offline.
+     */
+    private void processBatch(ServerLevel level) {
+        if (owner == null) {
+            return;
+        }
+        ServerPlayer online = level.getServer().getPlayerList().getPlayer(owner);
+        MasteryCapability.PlayerMasteryData data = online != null ? MasteryDataHelper.getDataOrNull(online) : null;
+        if (data != null && !pending.isEmpty()) {
+            grantPending(level, online, data);
+        }
+        if (queue.isEmpty()) {
+            return;
+        }
+        MasterySnapshot offline = null;
+        if (data == null) {
+            offline = online == null ? MasteryStorage.offlineSnapshot(owner).orElse(null) : null;
+            if (offline == null) {
+                // No way to read the owner's data yet; the books wait for them to log in
+                return;
+            }
+        }
+        Object source = data != null ? data : offline;
+        long version = data != null ? data.getVersion() : offline.version();
+        if (source != seenSource || version != seenVersion) {
+            queue.markAllDirty();
+            seenSource = source;
+            seenVersion = version;
+        }
+
+        long budget = storedXp;
+        List<Chain> chains = new ArrayList<>();
+        boolean moved = false;
+        for (ResourceLocation enchantId : queue.drainDirty()) {
+            Int2ObjectSortedMap<ArrayDeque<ItemStack>> levels = queue.levels(enchantId);
+            if (levels == null) {
+                continue;
+            }
+            int current = Math.max(pending.getOrDefault(enchantId, 0), data != null
+                    ? data.getMasteryLevel(enchantId)
+                    : offline.levels().getOrDefault(enchantId, 0));
+
+            // Books the owner has already learned teach nothing; pass them on
+            while (!levels.isEmpty() && levels.firstIntKey() <= current) {
+                int bookLevel = levels.firstIntKey();
+                if (!ItemHandlerHelper.insertItem(output, levels.get(bookLevel).peek(), true).isEmpty()) {
+                    // Output is full, try again next batch
+                    queue.markDirty(enchantId);
+                    break;
+                }
+                ItemHandlerHelper.insertItem(output, queue.poll(enchantId, bookLevel), false);
+                moved = true;
+            }
+
+            int top = current;
+            int cost = 0;
+            while (queue.has(enchantId, top + 1)) {
+                int levelCost = ProgressionMath.absorbCostLevels(top + 1);
+                long points = ProgressionMath.experiencePointsForLevels(levelCost);
+                if (points > budget) {
+                    break;
+                }
+                budget -= points;
+                cost += levelCost;
+                top++;
+            }
+            if (top > current) {
+                chains.add(new Chain(enchantId, current, top, cost));
+            }
+        }
+
+        if (chains.isEmpty()) {
+            if (moved) {
+                setChanged();
+            }
+            return;
+        }
+
+        UUID ownerId = owner;
+        if (data != null) {
+            RegistryAccess registries = level.registryAccess();
+            try {
+                data.edit(tx -> {
+                    tx.op(MasteryJournal.Op.LECTERN_ABSORB);
+                    for (Chain chain : chains) {
+                        tx.setMasteryLevel(chain.enchantId(), chain.to());
+                        tx.addLevelsSpent(chain.cost());
+                        DecodingHandler.processLevelsSpent(registries, ownerId, tx, chain.enchantId(), chain.cost());
+                    }
+                });
+            } catch (MasteryTransaction.RollbackException e) {
+                EnchantmentMastery.LOGGER.warn("Mastery Lectern at {} could not absorb books for {}: {}",
+                        worldPosition, ownerId, e.reason().getString());
+                return;
+            }
+            seenVersion = data.getVersion();
+        } else {
+            for (Chain chain : chains) {
+                pending.merge(chain.enchantId(), chain.to(), Math::max);
+            }
+        }
+        storedXp = budget;
+
+        int absorbed = 0;
+        for (Chain chain : chains) {
+            for (int bookLevel = chain.from() + 1; bookLevel <= chain.to(); bookLevel++) {
+                queue.poll(chain.enchantId(), bookLevel);
+                absorbed++;
+            }
+            EnchantmentMastery.LOGGER.debug("Mastery Lectern at {} absorbed {} levels {}-{} for {}",
+                    worldPosition, chain.enchantId(), chain.from() + 1, chain.to(), ownerId);
+        }
+        MasteryMetrics.ABSORB_SUCCESS.add(absorbed);
+        MasteryMetrics.LECTERN_BOOKS.add(absorbed);
+        setChanged();
+
+        level.playSound(null, worldPosition, SoundEvents.ENCHANTMENT_TABLE_USE, SoundSource.BLOCKS, 1.0f, 1.0f);
+        if (online != null) {
+            online.displayClientMessage(Component.translatable("enchantmentmastery.lectern.absorbed",
+                    absorbed, chains.size()), true);
+        }
+    }
+
+    /**
+     * Hands the levels absorbed while the owner was offline over to their mastery. Levels they
+     * reached some other way in the meantime are neither granted nor counted as spent again.
+     */
+    private void grantPending(ServerLevel level, ServerPlayer player, MasteryCapability.PlayerMasteryData data) {
+        RegistryAccess registries = level.registryAccess();
+        UUID ownerId = player.getUUID();
+        try {
+            data.edit(tx -> {
+                tx.op(MasteryJournal.Op.LECTERN_ABSORB);
+                for (Map.Entry<ResourceLocation, Integer> entry : pending.entrySet()) {
+                    int cost = ProgressionMath.totalAbsorbCost(tx.getMasteryLevel(entry.getKey()), entry.getValue());
+                    if (cost > 0) {
+                        tx.setMasteryLevel(entry.getKey(), entry.getValue());
+                        tx.addLevelsSpent(cost);
+                        DecodingHandler.processLevelsSpent(registries, ownerId, tx, entry.getKey(), cost);
+                    }
+                }
+            });
+        } catch (MasteryTransaction.RollbackException e) {
+            EnchantmentMastery.LOGGER.warn("Mastery Lectern at {} could not hand over pending levels to {}: {}",
+                    worldPosition, ownerId, e.reason().getString());
+            return;
+        }
+        EnchantmentMastery.LOGGER.debug("Mastery Lectern at {} handed over {} pending enchantments to {}",
+                worldPosition, pending.size(), ownerId);
+        pending.clear();
+        setChanged();
+    }
+
+    /**
+     * Mastery levels {@code from + 1 .. to} of one enchantment absorbed together.
+     */
+    private record Chain(ResourceLocation enchantId, int from, int to, int cost) {}
+
+    /**
+     * Gets the enchantment of a book the lectern accepts: an enchanted book with exactly one
+     * registered enchantment.
+     */
+    private static Optional<Pair<ResourceLocation, Integer>> bookKey(ItemStack stack) {
+        if (!stack.is(Items.ENCHANTED_BOOK) || EnchantComponentUtil.getStoredEnchantmentCount(stack) != 1) {
+            return Optional.empty();
+        }
+        return EnchantComponentUtil.getSingleStoredEnchantment(stack).flatMap(pair -> {
+            Holder<Enchantment> holder = pair.getLeft();
+            return EnchantRegistryUtil.getEnchantmentId(holder).map(id -> Pair.of(id, pair.getRight()));
+        });
+    }
+
+    private boolean enqueue(ItemStack book) {
+        Optional<Pair<ResourceLocation, Integer>> key = bookKey(book);
+        if (key.isEmpty()) {
+            return false;
+        }
+        queue.add(key.get().getLeft(), key.get().getRight(), book);
+        return true;
+    }
+
+    /**
+     * Drops the queued and output books and the stored experience, when the block is broken.
+     * Pending levels go to the owner if they are online, and are lost otherwise.
+     */
+    public void dropContents(Level level, BlockPos pos) {
+        if (!pending.isEmpty() && owner != null && level instanceof ServerLevel serverLevel) {
+            ServerPlayer online = serverLevel.getServer().getPlayerList().getPlayer(owner);
+            MasteryCapability.PlayerMasteryData data = online != null ? MasteryDataHelper.getDataOrNull(online) : null;
+            if (data != null) {
+                grantPending(serverLevel, online, data);
+            }
+            if (!pending.isEmpty()) {
+                EnchantmentMastery.LOGGER.warn("Mastery Lectern at {} broken with {} pending enchantments for {}",
+                        pos, pending.size(), owner);
+                pending.clear();
+            }
+        }
+        queue.forEach(book -> Containers.dropItemStack(level, pos.getX(), pos.getY(), pos.getZ(), book));
+        queue.clear();
+        for (int slot = 0; slot < output.getSlots(); slot++) {
+            ItemStack stack = output.getStackInSlot(slot);
+            if (!stack.isEmpty()) {
+                Containers.dropItemStack(level, pos.getX(), pos.getY(), pos.getZ(), stack);
+                output.setStackInSlot(slot, ItemStack.EMPTY);
+            }
+        }
+        if (storedXp > 0 && level instanceof ServerLevel serverLevel) {
+            ExperienceOrb.award(serverLevel, Vec3.atCenterOf(pos), (int) Math.min(storedXp, Integer.MAX_VALUE));
+            storedXp = 0;
+        }
+    }
+
+    @Override
+    protected void saveAdditional(CompoundTag tag, HolderLookup.Provider registries) {
+        super.saveAdditional(tag, registries);
+        if (owner != null) {
+            tag.putUUID(OWNER_KEY, owner);
+        }
+        tag.putLong(STORED_XP_KEY, storedXp);
+        ListTag books = new ListTag();
+        queue.forEach(book -> books.add(book.save(registries)));
+        tag.put(BOOKS_KEY, books);
+        tag.put(OUTPUT_KEY, output.serializeNBT(registries));
+        CompoundTag pendingTag = new CompoundTag();
+        pending.forEach((id, level) -> pendingTag.putInt(id.toString(), level));
+        tag.put(PENDING_KEY, pendingTag);
+    }
+
+    @Override
+    protected void loadAdditional(CompoundTag tag, HolderLookup.Provider registries) {
+        super.loadAdditional(tag, registries);
+        owner = tag.hasUUID(OWNER_KEY) ? tag.getUUID(OWNER_KEY) : null;
+        storedXp = tag.getLong(STORED_XP_KEY);
+        // Output first: unreadable books are added to it below
+        if (tag.contains(OUTPUT_KEY, Tag.TAG_COMPOUND)) {
+            output.deserializeNBT(registries, tag.getCompound(OUTPUT_KEY));
+        }
+        queue.clear();
+        ListTag books = tag.getList(BOOKS_KEY, Tag.TAG_COMPOUND);
+        for (int i = 0; i < books.size(); i++) {
+            ItemStack book = ItemStack.parseOptional(registries, books.getCompound(i));
+            if (!book.isEmpty() && !enqueue(book)) {
+                // The enchantment is gone (e.g. a datapack was removed); keep the book as output
+                ItemStack rest = ItemHandlerHelper.insertItem(output, book, false);
+                if (!rest.isEmpty()) {
+                    EnchantmentMastery.LOGGER.warn("Mastery Lectern at {} dropped unreadable book {}",
+                            worldPosition, rest);
+                }
+            }
+        }
+        pending.clear();
+        CompoundTag pendingTag = tag.getCompound(PENDING_KEY);
+        for (String key : pendingTag.getAllKeys()) {
+            ResourceLocation id = EnchantIdPool.parse(key);
+            if (id != null) {
+                pending.put(id, pendingTag.getInt(key));
+            }
+        }
+        seenSource = null;
+    }
+
+    @Override
+    public @NotNull <T> LazyOptional<T> getCapability(@NotNull Capability<T> cap, @Nullable Direction side) {
+        if (cap == ForgeCapabilities.ITEM_HANDLER) {
+            return itemHandler.cast();
+        }
+        return super.getCapability(cap, side);
+    }
+
+    @Override
+    public void invalidateCaps() {
+        super.invalidateCaps();
+        itemHandler.invalidate();
+    }
+
+    /**
+     * Hopper-facing inventory: slot 0 takes books into the queue and always looks empty,
+     * the remaining slots are the output and can only be extracted from.
+     */
+    private class BookHandler implements IItemHandler {
+        @Override
+        public int getSlots() {
+            return 1 + OUTPUT_SLOTS;
+        }
+
+        @Override
+        public @NotNull ItemStack getStackInSlot(int slot) {
+            return slot == 0 ? ItemStack.EMPTY : output.getStackInSlot(slot - 1);
+        }
+
+        @Override
+        public @NotNull ItemStack insertItem(int slot, @NotNull ItemStack stack, boolean simulate) {
+            if (slot != 0 || stack.isEmpty() || queue.size() >= QUEUE_CAPACITY || bookKey(stack).isEmpty()) {
+                return stack;
+            }
+            int accepted = Math.min(stack.getCount(), QUEUE_CAPACITY - queue.size());
+            if (!simulate) {
+                for (int i = 0; i < accepted; i++) {
+                    enqueue(stack.copyWithCount(1));
+                }
+                setChanged();
+            }
+            return stack.copyWithCount(stack.getCount() - accepted);
+        }
+
+        @Override
+        public @NotNull ItemStack extractItem(int slot, int amount, boolean simulate) {
+            return slot == 0 ? ItemStack.EMPTY : output.extractItem(slot - 1, amount, simulate);
+        }
+
+        @Override
+        public int getSlotLimit(int slot) {
+            return slot == 0 ? 1 : output.getSlotLimit(slot - 1);
+        }
+
+        @Override
+        public boolean isItemValid(int slot, @NotNull ItemStack stack) {
+            return slot == 0 && bookKey(stack).isPresent();
+        }
+    }
+}
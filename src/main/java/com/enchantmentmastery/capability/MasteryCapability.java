@@ -1,16 +1,23 @@
+package com.enchantmentmastery.capability;
+
 import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.metrics.MasteryJfrEvents;
+import com.enchantmentmastery.network.ModNetworking;
+import com.enchantmentmastery.storage.MasteryStorage;
 import net.minecraft.core.Direction;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.nbt.CompoundTag;
-import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.Tag;
+import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.player.Player;
 import net.minecraftforge.common.capabilities.*;
 import net.minecraftforge.common.util.INBTSerializable; 
 import net.minecraftforge.common.util.LazyOptional;
 import net.minecraftforge.event.AttachCapabilitiesEvent;
+import net.minecraftforge.event.entity.living.LivingDeathEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
@@ -19,6 +26,10 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * Forge Capability for player mastery data.
@@ -64,6 +75,13 @@ public class MasteryCapability {
         int getTotalLevelsSpent();
         void addLevelsSpent(int levels);
 
+        /**
+         * Applies a batch of changes atomically. Edits nested inside another edit join it.
+         *
+         * @throws MasteryTransaction.RollbackException if the body aborted; nothing was changed
+         */
+        void edit(Consumer<MasteryTransaction> body);
+
         void copyFrom(IPlayerMasteryData other);
         CompoundTag serializeNBT();
         void deserializeNBT(CompoundTag nbt);
@@ -71,49 +89,201 @@ public class MasteryCapability {
 
     /**
      * Default implementation of player mastery data.
+     * Every mutation bumps a version so snapshots and encoded bytes can be reused
+     * until the data actually changes.
      */
     public static class PlayerMasteryData implements IPlayerMasteryData {
+        private static final String PACKED_KEY = "packed";
+        private static final String JOURNAL_SEQ_KEY = "journal_seq";
+        private static final int[] NO_LETTERS = new int[0];
+
+        private static final int LEVELS_SECTION = 1;
+        private static final int XP_SECTION = 2;
+        private static final int LETTERS_SECTION = 4;
+        private static final int TOTAL_SECTION = 8;
+        private static final int ALL_SECTIONS = LEVELS_SECTION | XP_SECTION | LETTERS_SECTION | TOTAL_SECTION;
+
         private final Map<ResourceLocation, Integer> masteryLevels = new HashMap<>();
         private final Map<ResourceLocation, Integer> masteryXp = new HashMap<>();
         private final Map<ResourceLocation, int[]> unlockedLetterIndices = new HashMap<>();
         private int totalLevelsSpent = 0;
 
+        // Loaded data not yet decoded into the fields above; sections decode on first access
+        private @Nullable byte[] lazyPacked;
+        private @Nullable CompoundTag lazyTree;
+        private int undecoded = 0;
+
+        private long version = 0;
+        private MasterySnapshot snapshot;
+        // Immutable copies of each section for snapshots, dropped only when that section changes
+        private @Nullable Map<ResourceLocation, Integer> levelsCopy;
+        private @Nullable Map<ResourceLocation, Integer> xpCopy;
+        private @Nullable Map<ResourceLocation, int[]> lettersCopy;
+        private volatile EncodedData encoded;
+        private boolean backgroundEncoding = false;
+        private boolean queuedForEncode = false;
+        private long storeWrittenVersion = -1;
+        private long journalSeq = 0;
+        private @Nullable ServerPlayer owner;
+        private @Nullable MasteryTransaction transaction;
+        // The saved tag when the data it points at couldn't be loaded; saved back unchanged
+        private @Nullable CompoundTag unloadedTag;
+
+        /**
+         * Enables tick-end background encoding. Only used for server-side players.
+         */
+        void enableBackgroundEncoding() {
+            this.backgroundEncoding = true;
+        }
+
+        /**
+         * Sets the server player this data belongs to, for journaling and syncing edits.
+         */
+        void setOwner(ServerPlayer owner) {
+            this.owner = owner;
+        }
+
+        private void changed() {
+            changed(ALL_SECTIONS);
+        }
+
+        private void changed(int sections) {
+            version++;
+            snapshot = null;
+            dropCopies(sections);
+            if (backgroundEncoding && !queuedForEncode) {
+                queuedForEncode = true;
+                MasterySerializer.markDirty(this);
+            }
+        }
+
+        /**
+         * Marks the data as not loaded because the saved copy it refers to couldn't be read.
+         * The data stays empty and read-only, and the given tag is saved in its place.
+         */
+        void markUnloaded(CompoundTag savedTag) {
+            this.unloadedTag = savedTag.copy();
+        }
+
+        /**
+         * Whether the saved data couldn't be loaded. Such data must not be saved, synced or edited,
+         * since it would replace the real data with nothing.
+         */
+        public boolean isUnloaded() {
+            return unloadedTag != null;
+        }
+
+        /**
+         * Gets the data version, bumped on every mutation.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        private void dropCopies(int sections) {
+            if ((sections & LEVELS_SECTION) != 0) levelsCopy = null;
+            if ((sections & XP_SECTION) != 0) xpCopy = null;
+            if ((sections & LETTERS_SECTION) != 0) lettersCopy = null;
+        }
+
+        /**
+         * Gets an immutable snapshot of the current state. Cached until the next mutation.
+         * Sections that didn't change since the last snapshot are shared with it rather than copied
+         * again, so a usage XP flush only copies the XP map.
+         */
+        public MasterySnapshot snapshot() {
+            MasterySnapshot current = snapshot;
+            if (current == null) {
+                if (levelsCopy == null) levelsCopy = Map.copyOf(levels());
+                if (xpCopy == null) xpCopy = Map.copyOf(xp());
+                if (lettersCopy == null) lettersCopy = Collections.unmodifiableMap(new HashMap<>(letters()));
+                current = new MasterySnapshot(version, levelsCopy, xpCopy, lettersCopy, total());
+                if (unloadedTag != null) {
+                    // A section failed to decode partway through; don't hand out the sections read before it
+                    current = new MasterySnapshot(version, Map.of(), Map.of(), Map.of(), 0);
+                }
+                snapshot = current;
+            }
+            return current;
+        }
+
+        /**
+         * Gets the sequence number of the last journal entry reflected in this data.
+         */
+        public long getJournalSeq() {
+            return journalSeq;
+        }
+
+        public void setJournalSeq(long seq) {
+            this.journalSeq = Math.max(journalSeq, seq);
+        }
+
+        /**
+         * Whether the mastery store is missing this version of the data.
+         */
+        public boolean needsStoreWrite() {
+            return storeWrittenVersion != version;
+        }
+
+        /**
+         * Records that the current version has been handed to the mastery store.
+         */
+        public void markStoreWritten() {
+            storeWrittenVersion = version;
+        }
+
+        /**
+         * Snapshots the current state and encodes it on the I/O executor.
+         */
+        void scheduleEncode() {
+            queuedForEncode = false;
+            EncodedData current = encoded;
+            if (current != null && current.version() == version) {
+                return;
+            }
+            MasterySnapshot snap = snapshot();
+            encoded = new EncodedData(snap.version(),
+                    CompletableFuture.supplyAsync(() -> MasterySerializer.encode(snap), MasterySerializer.ioExecutor()));
+        }
+
         @Override
         public int getMasteryLevel(ResourceLocation enchantId) {
-            return masteryLevels.getOrDefault(enchantId, 0);
+            return levels().getOrDefault(enchantId, 0);
         }
 
         @Override
         public void setMasteryLevel(ResourceLocation enchantId, int level) {
             if (level <= 0) {
-                masteryLevels.remove(enchantId);
+                levels().remove(enchantId);
             } else {
-                masteryLevels.put(enchantId, level);
+                levels().put(enchantId, level);
             }
+            changed(LEVELS_SECTION);
         }
 
         @Override
         public boolean hasEnchantmentUnlocked(ResourceLocation enchantId) {
-            return masteryLevels.containsKey(enchantId) && masteryLevels.get(enchantId) > 0;
+            return levels().containsKey(enchantId) && levels().get(enchantId) > 0;
         }
 
         @Override
         public Map<ResourceLocation, Integer> getAllMasteryLevels() {
-            return new HashMap<>(masteryLevels);
+            return new HashMap<>(levels());
         }
 
         @Override
         public int getMasteryXp(ResourceLocation enchantId) {
-            return masteryXp.getOrDefault(enchantId, 0);
+            return xp().getOrDefault(enchantId, 0);
         }
 
         @Override
         public void setMasteryXp(ResourceLocation enchantId, int xp) {
             if (xp <= 0) {
-                masteryXp.remove(enchantId);
+                xp().remove(enchantId);
             } else {
-                masteryXp.put(enchantId, xp);
+                xp().put(enchantId, xp);
             }
+            changed(XP_SECTION);
         }
 
         @Override
@@ -124,21 +294,22 @@ public class MasteryCapability {
 
         @Override
         public Map<ResourceLocation, Integer> getAllMasteryXp() {
-            return new HashMap<>(masteryXp);
+            return new HashMap<>(xp());
         }
 
         @Override
         public int[] getUnlockedLetterIndices(ResourceLocation enchantId) {
-            return unlockedLetterIndices.getOrDefault(enchantId, new int[0]);
+            return letters().getOrDefault(enchantId, NO_LETTERS);
         }
 
         @Override
         public void setUnlockedLetterIndices(ResourceLocation enchantId, int[] indices) {
             if (indices == null || indices.length == 0) {
-                unlockedLetterIndices.remove(enchantId);
+                letters().remove(enchantId);
             } else {
-                unlockedLetterIndices.put(enchantId, indices.clone());
+                letters().put(enchantId, indices.clone());
             }
+            changed(LETTERS_SECTION);
         }
 
         @Override
@@ -150,13 +321,14 @@ public class MasteryCapability {
             int[] newArr = new int[current.length + 1];
             System.arraycopy(current, 0, newArr, 0, current.length);
             newArr[current.length] = index;
-            unlockedLetterIndices.put(enchantId, newArr);
+            letters().put(enchantId, newArr);
+            changed(LETTERS_SECTION);
         }
 
         @Override
         public Map<ResourceLocation, int[]> getAllUnlockedLetters() {
             Map<ResourceLocation, int[]> copy = new HashMap<>();
-            for (var entry : unlockedLetterIndices.entrySet()) {
+            for (var entry : letters().entrySet()) {
                 copy.put(entry.getKey(), entry.getValue().clone());
             }
             return copy;
@@ -164,103 +336,336 @@ public class MasteryCapability {
 
         @Override
         public int getTotalLevelsSpent() {
-            return totalLevelsSpent;
+            return total();
         }
 
         @Override
         public void addLevelsSpent(int levels) {
-            this.totalLevelsSpent += levels;
+            this.totalLevelsSpent = total() + levels;
+            changed(TOTAL_SECTION);
+        }
+
+        @Override
+        public void edit(Consumer<MasteryTransaction> body) {
+            if (unloadedTag != null) {
+                throw new MasteryTransaction.RollbackException(
+                        Component.translatable("enchantmentmastery.data_unloaded"));
+            }
+            if (transaction != null) {
+                body.accept(transaction);
+                return;
+            }
+
+            MasteryTransaction tx = new MasteryTransaction(this, owner);
+            transaction = tx;
+            try {
+                body.accept(tx);
+                if (unloadedTag != null) {
+                    // The data failed to decode while the body read it, so the body worked from empty data
+                    throw new MasteryTransaction.RollbackException(
+                            Component.translatable("enchantmentmastery.data_unloaded"));
+                }
+            } catch (RuntimeException e) {
+                tx.rollback();
+                throw e;
+            } finally {
+                transaction = null;
+            }
+
+            if (!tx.isEmpty()) {
+                commit(tx);
+            }
+            tx.runCommitActions();
+        }
+
+        private void commit(MasteryTransaction tx) {
+            int sections = TOTAL_SECTION;
+            if (tx.isReset()) {
+                levels().clear();
+                xp().clear();
+                letters().clear();
+                sections = ALL_SECTIONS;
+            }
+            if (!tx.stagedLevels().isEmpty()) sections |= LEVELS_SECTION;
+            if (!tx.stagedXp().isEmpty()) sections |= XP_SECTION;
+            if (!tx.stagedLetters().isEmpty()) sections |= LETTERS_SECTION;
+            for (var entry : tx.stagedLevels().entrySet()) {
+                putOrRemove(levels(), entry.getKey(), entry.getValue());
+            }
+            for (var entry : tx.stagedXp().entrySet()) {
+                putOrRemove(xp(), entry.getKey(), entry.getValue());
+            }
+            for (var entry : tx.stagedLetters().entrySet()) {
+                if (entry.getValue().length == 0) {
+                    letters().remove(entry.getKey());
+                } else {
+                    letters().put(entry.getKey(), entry.getValue());
+                }
+            }
+            totalLevelsSpent = total() + tx.levelsSpent();
+            changed(sections);
+
+            if (owner != null) {
+                MasteryStorage.journal(owner.getUUID(), this, tx.getOp(), tx.touched(), tx.levelCost());
+                ModNetworking.scheduleSync(owner);
+            }
+        }
+
+        private static void putOrRemove(Map<ResourceLocation, Integer> map, ResourceLocation id, int value) {
+            if (value <= 0) {
+                map.remove(id);
+            } else {
+                map.put(id, value);
+            }
         }
 
         @Override
         public void copyFrom(IPlayerMasteryData other) {
-            this.masteryLevels.clear();
-            this.masteryLevels.putAll(other.getAllMasteryLevels());
-            this.masteryXp.clear();
-            this.masteryXp.putAll(other.getAllMasteryXp());
-            this.unlockedLetterIndices.clear();
+            discardLazy();
+            levels().clear();
+            levels().putAll(other.getAllMasteryLevels());
+            xp().clear();
+            xp().putAll(other.getAllMasteryXp());
+            letters().clear();
             for (var entry : other.getAllUnlockedLetters().entrySet()) {
-                this.unlockedLetterIndices.put(entry.getKey(), entry.getValue().clone());
+                letters().put(entry.getKey(), entry.getValue().clone());
             }
             this.totalLevelsSpent = other.getTotalLevelsSpent();
+            if (other instanceof PlayerMasteryData otherData) {
+                setJournalSeq(otherData.journalSeq);
+                unloadedTag = otherData.unloadedTag;
+            }
+            changed();
         }
 
+        /**
+         * Serializes to a compact form: the encoded NBT bytes attached as a single byte array.
+         * Uses the bytes encoded in the background when they match the current version.
+         */
         @Override
         public CompoundTag serializeNBT() {
+            MasteryJfrEvents.CapabilitySerializeEvent event = new MasteryJfrEvents.CapabilitySerializeEvent();
+            event.begin();
+
             CompoundTag tag = new CompoundTag();
+            tag.putByteArray(PACKED_KEY, encodedBytes());
+            tag.putLong(JOURNAL_SEQ_KEY, journalSeq);
+            if (unloadedTag != null) {
+                // Encoding found the loaded bytes unreadable; save them back as they were
+                tag = unloadedTag.copy();
+            }
+
+            if (event.shouldCommit()) {
+                // Only count decoded entries, so profiling doesn't force a decode
+                event.entries = masteryLevels.size() + masteryXp.size() + unlockedLetterIndices.size();
+                event.commit();
+            }
+            return tag;
+        }
 
-            // Serialize mastery levels
-            ListTag levelsTag = new ListTag();
-            for (var entry : masteryLevels.entrySet()) {
-                CompoundTag entryTag = new CompoundTag();
-                entryTag.putString("id", entry.getKey().toString());
-                entryTag.putInt("level", entry.getValue());
-                levelsTag.add(entryTag);
+        /**
+         * Reads either the packed form or the original list-based layout.
+         */
+        @Override
+        public void deserializeNBT(CompoundTag tag) {
+            MasteryJfrEvents.CapabilityDeserializeEvent event = new MasteryJfrEvents.CapabilityDeserializeEvent();
+            event.begin();
+
+            journalSeq = tag.getLong(JOURNAL_SEQ_KEY);
+            if (tag.contains(PACKED_KEY, Tag.TAG_BYTE_ARRAY)) {
+                loadPacked(tag.getByteArray(PACKED_KEY));
+            } else {
+                loadLazily(null, tag);
+                encoded = null;
             }
-            tag.put("mastery_levels", levelsTag);
 
-            // Serialize mastery XP
-            ListTag xpTag = new ListTag();
-            for (var entry : masteryXp.entrySet()) {
-                CompoundTag entryTag = new CompoundTag();
-                entryTag.putString("id", entry.getKey().toString());
-                entryTag.putInt("xp", entry.getValue());
-                xpTag.add(entryTag);
+            if (event.shouldCommit()) {
+                event.bytes = tag.contains(PACKED_KEY, Tag.TAG_BYTE_ARRAY) ? tag.getByteArray(PACKED_KEY).length : 0;
+                event.commit();
             }
-            tag.put("mastery_xp", xpTag);
+        }
+
+        /**
+         * Replaces the current state with previously encoded bytes.
+         * The bytes are only decoded when the data is first read.
+         */
+        public void loadPacked(byte[] packed) {
+            loadLazily(packed, null);
+            // Untouched data re-serializes to exactly the bytes it was loaded from
+            encoded = new EncodedData(version, CompletableFuture.completedFuture(packed));
+        }
 
-            // Serialize unlocked letters
-            ListTag lettersTag = new ListTag();
-            for (var entry : unlockedLetterIndices.entrySet()) {
-                CompoundTag entryTag = new CompoundTag();
-                entryTag.putString("id", entry.getKey().toString());
-                entryTag.putIntArray("indices", entry.getValue());
-                lettersTag.add(entryTag);
+        private void loadLazily(@Nullable byte[] packed, @Nullable CompoundTag tree) {
+            masteryLevels.clear();
+            masteryXp.clear();
+            unlockedLetterIndices.clear();
+            totalLevelsSpent = 0;
+            lazyPacked = packed;
+            lazyTree = tree;
+            undecoded = ALL_SECTIONS;
+            version++;
+            snapshot = null;
+            dropCopies(ALL_SECTIONS);
+        }
+
+        /**
+         * Whether the data was loaded and has not been read or changed since.
+         * Its encoded bytes can then be passed on without decoding.
+         */
+        public boolean isUndecoded() {
+            return undecoded == ALL_SECTIONS;
+        }
+
+        // --- Lazy section decoding ---
+
+        private boolean lazySectioned() {
+            return lazyTree == null && MasterySerializer.isSectioned(lazyPacked);
+        }
+
+        private CompoundTag lazyTree() {
+            if (lazyTree == null) {
+                lazyTree = MasterySerializer.decode(lazyPacked);
             }
-            tag.put("unlocked_letters", lettersTag);
+            return lazyTree;
+        }
 
-            tag.putInt("total_levels_spent", totalLevelsSpent);
+        /**
+         * Gets the tag to read a section from: just that section for sectioned bytes, otherwise
+         * the whole tree, which is then kept for the other sections.
+         */
+        private CompoundTag lazySection(MasterySerializer.Section section) {
+            return lazySectioned() ? MasterySerializer.decodeSection(lazyPacked, section) : lazyTree();
+        }
 
-            return tag;
+        private boolean needsDecode(int section) {
+            return (undecoded & section) != 0;
         }
 
-        @Override
-        public void deserializeNBT(CompoundTag tag) {
+        /**
+         * Runs a section's read and marks the section decoded. A read that throws marks the whole
+         * data unloaded instead of letting the failure out of a getter.
+         */
+        private void decodeSection(int section, Runnable read) {
+            try {
+                read.run();
+            } catch (RuntimeException e) {
+                failDecode(e);
+                return;
+            }
+            undecoded &= ~section;
+            if (undecoded == 0) {
+                lazyTree = null;
+                lazyPacked = null;
+            }
+        }
+
+        /**
+         * Handles loaded bytes that can't be decoded: logs it, and leaves the data empty and
+         * read-only with the bytes kept to be saved back as loaded, like a missing store record.
+         */
+        private void failDecode(RuntimeException e) {
+            EnchantmentMastery.LOGGER.error("Failed to decode mastery data{}, leaving it read-only as loaded",
+                    owner != null ? " for " + owner.getName().getString() : "", e);
+            CompoundTag saved = lazyPacked == null && lazyTree != null ? lazyTree.copy() : new CompoundTag();
+            if (lazyPacked != null) {
+                saved.putByteArray(PACKED_KEY, lazyPacked);
+            }
+            saved.putLong(JOURNAL_SEQ_KEY, journalSeq);
+            unloadedTag = saved;
             masteryLevels.clear();
             masteryXp.clear();
             unlockedLetterIndices.clear();
+            totalLevelsSpent = 0;
+            undecoded = 0;
+            lazyTree = null;
+            lazyPacked = null;
+            version++;
+            snapshot = null;
+            dropCopies(ALL_SECTIONS);
+        }
 
-            // Deserialize mastery levels
-            ListTag levelsTag = tag.getList("mastery_levels", Tag.TAG_COMPOUND);
-            for (int i = 0; i < levelsTag.size(); i++) {
-                CompoundTag entryTag = levelsTag.getCompound(i);
-                ResourceLocation id = ResourceLocation.tryParse(entryTag.getString("id"));
-                if (id != null) {
-                    masteryLevels.put(id, entryTag.getInt("level"));
-                }
+        private void discardLazy() {
+            undecoded = 0;
+            lazyTree = null;
+            lazyPacked = null;
+        }
+
+        private Map<ResourceLocation, Integer> levels() {
+            if (needsDecode(LEVELS_SECTION)) {
+                decodeSection(LEVELS_SECTION, () -> {
+                    Map<ResourceLocation, Integer> read = new HashMap<>();
+                    MasterySnapshot.readLevels(lazySection(MasterySerializer.Section.LEVELS), read);
+                    masteryLevels.putAll(read);
+                });
             }
+            return masteryLevels;
+        }
 
-            // Deserialize mastery XP
-            ListTag xpTag = tag.getList("mastery_xp", Tag.TAG_COMPOUND);
-            for (int i = 0; i < xpTag.size(); i++) {
-                CompoundTag entryTag = xpTag.getCompound(i);
-                ResourceLocation id = ResourceLocation.tryParse(entryTag.getString("id"));
-                if (id != null) {
-                    masteryXp.put(id, entryTag.getInt("xp"));
-                }
+        private Map<ResourceLocation, Integer> xp() {
+            if (needsDecode(XP_SECTION)) {
+                decodeSection(XP_SECTION, () -> {
+                    Map<ResourceLocation, Integer> read = new HashMap<>();
+                    MasterySnapshot.readXp(lazySection(MasterySerializer.Section.XP), read);
+                    masteryXp.putAll(read);
+                });
             }
+            return masteryXp;
+        }
 
-            // Deserialize unlocked letters
-            ListTag lettersTag = tag.getList("unlocked_letters", Tag.TAG_COMPOUND);
-            for (int i = 0; i < lettersTag.size(); i++) {
-                CompoundTag entryTag = lettersTag.getCompound(i);
-                ResourceLocation id = ResourceLocation.tryParse(entryTag.getString("id"));
-                if (id != null) {
-                    unlockedLetterIndices.put(id, entryTag.getIntArray("indices"));
+        private Map<ResourceLocation, int[]> letters() {
+            if (needsDecode(LETTERS_SECTION)) {
+                decodeSection(LETTERS_SECTION, () -> {
+                    Map<ResourceLocation, int[]> read = new HashMap<>();
+                    MasterySnapshot.readLetters(lazySection(MasterySerializer.Section.LETTERS), read);
+                    unlockedLetterIndices.putAll(read);
+                });
+            }
+            return unlockedLetterIndices;
+        }
+
+        private int total() {
+            if (needsDecode(TOTAL_SECTION)) {
+                decodeSection(TOTAL_SECTION, () -> totalLevelsSpent = lazySectioned()
+                        ? MasterySerializer.decodeTotalLevelsSpent(lazyPacked)
+                        : MasterySnapshot.readTotalLevelsSpent(lazyTree()));
+            }
+            return totalLevelsSpent;
+        }
+
+        /**
+         * Gets the encoded bytes for the current version, encoding on-thread if the
+         * background encode is missing or not finished yet.
+         */
+        public byte[] encodedBytes() {
+            EncodedData current = encoded;
+            if (current != null && current.version() == version) {
+                byte[] packed = current.bytesIfDone();
+                if (packed != null) {
+                    return packed;
                 }
             }
+            MasterySnapshot snap = snapshot();
+            if (unloadedTag != null) {
+                // Nothing could be read, so pass on the bytes as loaded rather than empty maps
+                return unloadedTag.getByteArray(PACKED_KEY);
+            }
+            byte[] packed = MasterySerializer.encode(snap);
+            encoded = new EncodedData(version, CompletableFuture.completedFuture(packed));
+            return packed;
+        }
 
-            totalLevelsSpent = tag.getInt("total_levels_spent");
+        /**
+         * Encoded bytes (possibly still being produced) for a data version.
+         */
+        private record EncodedData(long version, CompletableFuture<byte[]> bytes) {
+            byte[] bytesIfDone() {
+                try {
+                    return bytes.getNow(null);
+                } catch (CompletionException | CancellationException e) {
+                    EnchantmentMastery.LOGGER.warn("Background mastery encode failed, encoding on-thread", e);
+                    return null;
+                }
+            }
         }
     }
 
@@ -268,8 +673,28 @@ public class MasteryCapability {
      * Capability provider for players.
      */
     public static class Provider implements ICapabilityProvider, INBTSerializable<CompoundTag> {
+        private static final String IN_STORE_KEY = "in_store";
+
         private final PlayerMasteryData data = new PlayerMasteryData();
         private final LazyOptional<IPlayerMasteryData> optional = LazyOptional.of(() -> data);
+        // Capabilities attach before the player's UUID is set, so keep the player rather than the UUID
+        private final @Nullable ServerPlayer owner;
+
+        public Provider() {
+            this.owner = null;
+        }
+
+        /**
+         * Creates a provider for a player. Server-side players get background encoding
+         * and can keep their data in the mastery store instead of player.dat.
+         */
+        public Provider(Player player) {
+            this.owner = player instanceof ServerPlayer serverPlayer ? serverPlayer : null;
+            if (owner != null) {
+                data.enableBackgroundEncoding();
+                data.setOwner(owner);
+            }
+        }
 
         @Override
         public @NotNull <T> LazyOptional<T> getCapability(@NotNull Capability<T> cap, @Nullable Direction side) {
@@ -278,11 +703,36 @@ public class MasteryCapability {
 
         @Override
         public CompoundTag serializeNBT(HolderLookup.Provider provider) {
+            if (data.unloadedTag != null) {
+                // Keep pointing at the store until the data can be read again
+                return data.unloadedTag.copy();
+            }
+            if (owner != null && MasteryStorage.storeOnly()) {
+                // The store write happens on the player save event that follows
+                CompoundTag tag = new CompoundTag();
+                tag.putBoolean(IN_STORE_KEY, true);
+                tag.putLong(PlayerMasteryData.JOURNAL_SEQ_KEY, data.getJournalSeq());
+                return tag;
+            }
             return data.serializeNBT();
         }
 
         @Override
         public void deserializeNBT(HolderLookup.Provider provider, CompoundTag nbt) {
+            if (owner != null && nbt.getBoolean(IN_STORE_KEY)) {
+                Optional<byte[]> stored = MasteryStorage.store().flatMap(store -> store.readBytes(owner.getUUID()));
+                if (stored.isPresent()) {
+                    data.loadPacked(stored.get());
+                    data.markStoreWritten();
+                    data.setJournalSeq(nbt.getLong(PlayerMasteryData.JOURNAL_SEQ_KEY));
+                } else {
+                    EnchantmentMastery.LOGGER.error("Mastery data for {} is marked as stored but the store {}; "
+                                    + "keeping the marker and leaving the data read-only for this session",
+                            owner.getUUID(), MasteryStorage.store().isPresent() ? "has no readable record" : "is not open");
+                    data.markUnloaded(nbt);
+                }
+                return;
+            }
             data.deserializeNBT(nbt);
         }
 
@@ -298,13 +748,15 @@ public class MasteryCapability {
     public static class EventHandler {
         @SubscribeEvent
         public static void onAttachCapabilities(AttachCapabilitiesEvent<Entity> event) {
-            if (event.getObject() instanceof Player) {
-                event.addCapability(CAPABILITY_ID, new Provider());
+            if (event.getObject() instanceof Player player) {
+                event.addCapability(CAPABILITY_ID, new Provider(player));
             }
         }
 
         @SubscribeEvent
         public static void onPlayerClone(PlayerEvent.Clone event) {
+            MasteryDataHelper.invalidate(event.getOriginal());
+            MasteryDataHelper.invalidate(event.getEntity());
             // Copy capability data on death/respawn
             if (event.isWasDeath()) {
                 event.getOriginal().reviveCaps();
@@ -316,5 +768,17 @@ public class MasteryCapability {
                 event.getOriginal().invalidateCaps();
             }
         }
+
+        @SubscribeEvent
+        public static void onLivingDeath(LivingDeathEvent event) {
+            if (event.getEntity() instanceof Player player) {
+                MasteryDataHelper.invalidate(player);
+            }
+        }
+
+        @SubscribeEvent
+        public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+            MasteryDataHelper.invalidate(event.getEntity());
+        }
     }
 }
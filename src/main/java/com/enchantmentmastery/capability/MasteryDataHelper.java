@@ -1,74 +1,119 @@
 package com.enchantmentmastery.capability;
 
+import com.enchantmentmastery.metrics.MasteryMetrics;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.player.Player;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Helper class for accessing player mastery data via capabilities.
+ *
+ * The data is looked up through the capability once per player entity and then read from a
+ * field on the player (see {@link MasteryDataHolder}), so these calls don't go through the
+ * capability dispatcher or allocate a LazyOptional chain.
  */
 public class MasteryDataHelper {
+    private static final int[] NO_LETTERS = new int[0];
+
+    /**
+     * Gets a player's mastery data, or null if the capability is missing or invalidated.
+     */
+    @Nullable
+    public static MasteryCapability.PlayerMasteryData getDataOrNull(Player player) {
+        MasteryDataHolder holder = (MasteryDataHolder) player;
+        MasteryCapability.PlayerMasteryData data = holder.enchantmentmastery$getMasteryData();
+        if (data != null) {
+            MasteryMetrics.PLAYER_DATA_CACHE.hit();
+            return data;
+        }
+        MasteryMetrics.PLAYER_DATA_CACHE.miss();
+        data = resolve(player);
+        holder.enchantmentmastery$setMasteryData(data);
+        return data;
+    }
+
+    @Nullable
+    private static MasteryCapability.PlayerMasteryData resolve(Player player) {
+        MasteryCapability.IPlayerMasteryData data = player.getCapability(MasteryCapability.PLAYER_MASTERY).orElse(null);
+        return data instanceof MasteryCapability.PlayerMasteryData masteryData ? masteryData : null;
+    }
+
+    /**
+     * Drops the cached reference so the next access goes through the capability again.
+     */
+    public static void invalidate(Player player) {
+        ((MasteryDataHolder) player).enchantmentmastery$setMasteryData(null);
+    }
 
     public static MasteryCapability.IPlayerMasteryData getData(Player player) {
-        return player.getCapability(MasteryCapability.PLAYER_MASTERY)
-                .orElseThrow(() -> new IllegalStateException("Player missing mastery capability"));
+        MasteryCapability.PlayerMasteryData data = getDataOrNull(player);
+        if (data == null) {
+            throw new IllegalStateException("Player missing mastery capability");
+        }
+        return data;
     }
 
     public static int getMasteryLevel(Player player, ResourceLocation enchantId) {
-        return player.getCapability(MasteryCapability.PLAYER_MASTERY)
-                .map(data -> data.getMasteryLevel(enchantId))
-                .orElse(0);
+        MasteryCapability.PlayerMasteryData data = getDataOrNull(player);
+        return data != null ? data.getMasteryLevel(enchantId) : 0;
     }
 
     public static void setMasteryLevel(Player player, ResourceLocation enchantId, int level) {
-        player.getCapability(MasteryCapability.PLAYER_MASTERY)
-                .ifPresent(data -> data.setMasteryLevel(enchantId, level));
+        MasteryCapability.PlayerMasteryData data = getDataOrNull(player);
+        if (data != null) {
+            data.setMasteryLevel(enchantId, level);
+        }
     }
 
     public static int getMasteryXp(Player player, ResourceLocation enchantId) {
-        return player.getCapability(MasteryCapability.PLAYER_MASTERY)
-                .map(data -> data.getMasteryXp(enchantId))
-                .orElse(0);
+        MasteryCapability.PlayerMasteryData data = getDataOrNull(player);
+        return data != null ? data.getMasteryXp(enchantId) : 0;
     }
 
     public static void addMasteryXp(Player player, ResourceLocation enchantId, int xp) {
-        player.getCapability(MasteryCapability.PLAYER_MASTERY)
-                .ifPresent(data -> data.addMasteryXp(enchantId, xp));
+        MasteryCapability.PlayerMasteryData data = getDataOrNull(player);
+        if (data != null) {
+            data.addMasteryXp(enchantId, xp);
+        }
     }
 
     public static boolean hasEnchantmentUnlocked(Player player, ResourceLocation enchantId) {
-        return player.getCapability(MasteryCapability.PLAYER_MASTERY)
-                .map(data -> data.hasEnchantmentUnlocked(enchantId))
-                .orElse(false);
+        MasteryCapability.PlayerMasteryData data = getDataOrNull(player);
+        return data != null && data.hasEnchantmentUnlocked(enchantId);
     }
 
     public static Map<ResourceLocation, Integer> getAllMasteryLevels(Player player) {
-        return player.getCapability(MasteryCapability.PLAYER_MASTERY)
-                .map(MasteryCapability.IPlayerMasteryData::getAllMasteryLevels)
-                .orElse(new HashMap<>());
+        MasteryCapability.PlayerMasteryData data = getDataOrNull(player);
+        return data != null ? data.getAllMasteryLevels() : new HashMap<>();
     }
 
     public static int getTotalLevelsSpent(Player player) {
-        return player.getCapability(MasteryCapability.PLAYER_MASTERY)
-                .map(MasteryCapability.IPlayerMasteryData::getTotalLevelsSpent)
-                .orElse(0);
+        MasteryCapability.PlayerMasteryData data = getDataOrNull(player);
+        return data != null ? data.getTotalLevelsSpent() : 0;
     }
 
     public static void addLevelsSpent(Player player, int levels) {
-        player.getCapability(MasteryCapability.PLAYER_MASTERY)
-                .ifPresent(data -> data.addLevelsSpent(levels));
+        MasteryCapability.PlayerMasteryData data = getDataOrNull(player);
+        if (data != null) {
+            data.addLevelsSpent(levels);
+        }
     }
 
+    /**
+     * Gets the unlocked letter indices. The returned array must not be modified.
+     */
     public static int[] getUnlockedLetterIndices(Player player, ResourceLocation enchantId) {
-        return player.getCapability(MasteryCapability.PLAYER_MASTERY)
-                .map(data -> data.getUnlockedLetterIndices(enchantId))
-                .orElse(new int[0]);
+        MasteryCapability.PlayerMasteryData data = getDataOrNull(player);
+        return data != null ? data.getUnlockedLetterIndices(enchantId) : NO_LETTERS;
     }
 
     public static void addUnlockedLetterIndex(Player player, ResourceLocation enchantId, int index) {
-        player.getCapability(MasteryCapability.PLAYER_MASTERY)
-                .ifPresent(data -> data.addUnlockedLetterIndex(enchantId, index));
+        MasteryCapability.PlayerMasteryData data = getDataOrNull(player);
+        if (data != null) {
+            data.addUnlockedLetterIndex(enchantId, index);
+        }
     }
 }
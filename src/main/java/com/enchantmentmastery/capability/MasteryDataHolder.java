@@ -0,0 +1,14 @@
+package com.enchantmentmastery.capability;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Implemented on {@link net.minecraft.world.entity.player.Player} by PlayerMixin to keep a
+ * direct reference to the player's mastery data, skipping the capability dispatcher.
+ */
+public interface MasteryDataHolder {
+    @Nullable
+    MasteryCapability.PlayerMasteryData enchantmentmastery$getMasteryData();
+
+    void enchantmentmastery$setMasteryData(@Nullable MasteryCapability.PlayerMasteryData data);
+}
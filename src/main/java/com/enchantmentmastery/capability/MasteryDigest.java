@@ -0,0 +1,85 @@
+package com.enchantmentmastery.capability;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Content hashes of mastery data, for checking whether a client's copy matches the server's
+ * without sending the data.
+ *
+ * Enchantments are split into {@link #BUCKETS} buckets by id. A bucket's hash is the sum of
+ * its entries' hashes, so it doesn't depend on map order, and a client and server that disagree
+ * only need to exchange the buckets whose hashes differ. The total levels spent aren't hashed
+ * since clients never receive them.
+ */
+public final class MasteryDigest {
+    private MasteryDigest() {}
+
+    /** Buckets per player; one bit each in a {@code long} mask. */
+    public static final int BUCKETS = 64;
+
+    /**
+     * Gets the bucket an enchantment id hashes into. Stable across JVMs.
+     */
+    public static int bucket(ResourceLocation id) {
+        return HashCommon.mix(id.hashCode()) & (BUCKETS - 1);
+    }
+
+    /**
+     * Gets every enchantment id with a level, XP or unlocked letters.
+     */
+    public static Set<ResourceLocation> ids(MasterySnapshot snapshot) {
+        Set<ResourceLocation> ids = new HashSet<>(snapshot.levels().keySet());
+        ids.addAll(snapshot.xp().keySet());
+        ids.addAll(snapshot.letters().keySet());
+        return ids;
+    }
+
+    /**
+     * Hashes one enchantment's level, XP and unlocked letters.
+     */
+    public static long entryHash(ResourceLocation id, int level, int xp, int[] letters) {
+        int digest = 31 * (31 * level + xp) + (letters == null || letters.length == 0 ? 0 : Arrays.hashCode(letters));
+        return HashCommon.mix(((long) id.hashCode() << 32) | (digest & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Computes the per-bucket hashes of a snapshot. Empty buckets hash to 0.
+     */
+    public static long[] bucketHashes(MasterySnapshot snapshot) {
+        long[] buckets = new long[BUCKETS];
+        for (ResourceLocation id : ids(snapshot)) {
+            buckets[bucket(id)] += entryHash(id, snapshot.levels().getOrDefault(id, 0),
+                    snapshot.xp().getOrDefault(id, 0), snapshot.letters().get(id));
+        }
+        return buckets;
+    }
+
+    /**
+     * Combines bucket hashes into one hash of the whole data.
+     */
+    public static long hash(long[] buckets) {
+        long hash = 0;
+        for (long bucket : buckets) {
+            hash += bucket;
+        }
+        return hash;
+    }
+
+    /**
+     * Gets a mask with a bit set for every bucket whose hashes differ.
+     */
+    public static long differingBuckets(long[] ours, long[] theirs) {
+        long mask = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (ours[i] != theirs[i]) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,204 @@
+package com.enchantmentmastery.capability;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Moves mastery data encoding off the server thread.
+ *
+ * Server-side data marks itself dirty on mutation. At the end of each server tick the
+ * dirty set is flushed: an immutable {@link MasterySnapshot} is taken on the server thread
+ * and encoded to bytes on a background I/O executor. When the player is saved,
+ * {@link MasteryCapability.PlayerMasteryData#serializeNBT()} only attaches the finished
+ * bytes, falling back to an on-thread encode if the data changed since the last flush.
+ *
+ * Encoded data is split into sections so each can be decoded on its own: an int magic and
+ * {@link #FORMAT_VERSION}, then the levels, XP and letters sections, each an int byte length
+ * followed by an uncompressed NBT compound holding that one list under its usual key (see
+ * {@link MasterySnapshot#toNbt()}), then the total levels spent as an int. Bytes without the
+ * magic are the older layout, the whole NBT compound on its own, and are still read.
+ */
+@Mod.EventBusSubscriber(modid = EnchantmentMastery.MOD_ID)
+public final class MasterySerializer {
+    private MasterySerializer() {}
+
+    // Leading int of the sectioned layout; the older layout starts with an NBT compound's type id
+    private static final int MAGIC = 0x454D5053; // "EMPS"
+    private static final int HEADER_BYTES = 8;
+
+    /** Version of the sectioned layout, bumped whenever it changes. */
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * The separately decodable lists of encoded data, in the order they are written.
+     */
+    public enum Section {
+        LEVELS("mastery_levels"),
+        XP("mastery_xp"),
+        LETTERS("unlocked_letters");
+
+        private final String key;
+
+        Section(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final ExecutorService IO_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "EnchantmentMastery IO");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Server thread only
+    private static final List<MasteryCapability.PlayerMasteryData> DIRTY = new ArrayList<>();
+
+    /**
+     * Gets the background executor used for mastery encoding and disk I/O.
+     */
+    public static Executor ioExecutor() {
+        return IO_EXECUTOR;
+    }
+
+    static void markDirty(MasteryCapability.PlayerMasteryData data) {
+        DIRTY.add(data);
+    }
+
+    /**
+     * Snapshots every dirty player and submits the encodes. Server thread only.
+     */
+    public static void flush() {
+        if (DIRTY.isEmpty()) {
+            return;
+        }
+        for (MasteryCapability.PlayerMasteryData data : DIRTY) {
+            data.scheduleEncode();
+        }
+        DIRTY.clear();
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            flush();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        DIRTY.clear();
+    }
+
+    /**
+     * Encodes a snapshot to the sectioned layout. Safe to call from any thread.
+     */
+    public static byte[] encode(MasterySnapshot snapshot) {
+        CompoundTag tree = snapshot.toNbt();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + snapshot.entryCount() * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream(bytes.size());
+            for (Section section : Section.values()) {
+                CompoundTag sectionTag = new CompoundTag();
+                sectionTag.put(section.key, tree.get(section.key));
+                sectionBytes.reset();
+                NbtIo.write(sectionTag, new DataOutputStream(sectionBytes));
+                out.writeInt(sectionBytes.size());
+                sectionBytes.writeTo(out);
+            }
+            out.writeInt(snapshot.totalLevelsSpent());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode mastery snapshot", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Whether encoded bytes are in the sectioned layout, rather than the older single compound.
+     */
+    public static boolean isSectioned(byte[] packed) {
+        return packed.length >= HEADER_BYTES && ByteBuffer.wrap(packed).getInt(0) == MAGIC;
+    }
+
+    /**
+     * Decodes encoded bytes back to the NBT tree form.
+     */
+    public static CompoundTag decode(byte[] packed) {
+        if (!isSectioned(packed)) {
+            return read(packed, 0, packed.length);
+        }
+        CompoundTag tree = new CompoundTag();
+        for (Section section : Section.values()) {
+            tree.merge(decodeSection(packed, section));
+        }
+        tree.putInt("total_levels_spent", decodeTotalLevelsSpent(packed));
+        return tree;
+    }
+
+    /**
+     * Decodes one section of sectioned bytes into a compound holding just that list, without
+     * reading the other sections.
+     */
+    public static CompoundTag decodeSection(byte[] packed, Section section) {
+        ByteBuffer buffer = ByteBuffer.wrap(packed);
+        int offset = sectionsStart(buffer);
+        for (Section current : Section.values()) {
+            int length = buffer.getInt(offset);
+            if (current == section) {
+                return read(packed, offset + 4, length);
+            }
+            offset += 4 + length;
+        }
+        throw new IllegalArgumentException("Unknown section " + section);
+    }
+
+    /**
+     * Reads the total levels spent from sectioned bytes, skipping over the sections.
+     */
+    public static int decodeTotalLevelsSpent(byte[] packed) {
+        ByteBuffer buffer = ByteBuffer.wrap(packed);
+        int offset = sectionsStart(buffer);
+        for (int i = 0; i < Section.values().length; i++) {
+            offset += 4 + buffer.getInt(offset);
+        }
+        return buffer.getInt(offset);
+    }
+
+    private static int sectionsStart(ByteBuffer buffer) {
+        int version = buffer.getInt(4);
+        if (buffer.getInt(0) != MAGIC || version != FORMAT_VERSION) {
+            throw new UncheckedIOException(new IOException("Unknown mastery data format " + version));
+        }
+        return HEADER_BYTES;
+    }
+
+    private static CompoundTag read(byte[] packed, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > packed.length) {
+            throw new UncheckedIOException(new IOException("Mastery data section out of bounds"));
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(packed, offset, length))) {
+            return NbtIo.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode mastery data", e);
+        }
+    }
+}
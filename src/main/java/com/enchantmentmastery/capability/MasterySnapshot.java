@@ -0,0 +1,145 @@
+package com.enchantmentmastery.capability;
+
+import com.enchantmentmastery.util.EnchantIdPool;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable point-in-time copy of a player's mastery data.
+ * Safe to hand to other threads; the letter arrays are never mutated once
+ * stored in {@link MasteryCapability.PlayerMasteryData} (updates replace them).
+ *
+ * @param version          Data version the snapshot was taken at
+ * @param levels           Enchantment ID -> mastery level
+ * @param xp               Enchantment ID -> mastery XP
+ * @param letters          Enchantment ID -> unlocked letter indices
+ * @param totalLevelsSpent Total XP levels spent
+ */
+public record MasterySnapshot(
+        long version,
+        Map<ResourceLocation, Integer> levels,
+        Map<ResourceLocation, Integer> xp,
+        Map<ResourceLocation, int[]> letters,
+        int totalLevelsSpent
+) {
+
+    public int entryCount() {
+        return levels.size() + xp.size() + letters.size();
+    }
+
+    /**
+     * Builds the NBT tree form of this snapshot (the original capability layout).
+     */
+    public CompoundTag toNbt() {
+        CompoundTag tag = new CompoundTag();
+
+        // Serialize mastery levels
+        ListTag levelsTag = new ListTag();
+        for (var entry : levels.entrySet()) {
+            CompoundTag entryTag = new CompoundTag();
+            entryTag.putString("id", entry.getKey().toString());
+            entryTag.putInt("level", entry.getValue());
+            levelsTag.add(entryTag);
+        }
+        tag.put("mastery_levels", levelsTag);
+
+        // Serialize mastery XP
+        ListTag xpTag = new ListTag();
+        for (var entry : xp.entrySet()) {
+            CompoundTag entryTag = new CompoundTag();
+            entryTag.putString("id", entry.getKey().toString());
+            entryTag.putInt("xp", entry.getValue());
+            xpTag.add(entryTag);
+        }
+        tag.put("mastery_xp", xpTag);
+
+        // Serialize unlocked letters
+        ListTag lettersTag = new ListTag();
+        for (var entry : letters.entrySet()) {
+            CompoundTag entryTag = new CompoundTag();
+            entryTag.putString("id", entry.getKey().toString());
+            entryTag.putIntArray("indices", entry.getValue());
+            lettersTag.add(entryTag);
+        }
+        tag.put("unlocked_letters", lettersTag);
+
+        tag.putInt("total_levels_spent", totalLevelsSpent);
+
+        return tag;
+    }
+
+    /**
+     * Decodes bytes produced by {@link MasterySerializer#encode(MasterySnapshot)}.
+     */
+    public static MasterySnapshot fromBytes(byte[] packed) {
+        return fromNbt(MasterySerializer.decode(packed));
+    }
+
+    /**
+     * Parses the NBT tree form into a snapshot.
+     */
+    public static MasterySnapshot fromNbt(CompoundTag tag) {
+        Map<ResourceLocation, Integer> levels = new HashMap<>();
+        Map<ResourceLocation, Integer> xp = new HashMap<>();
+        Map<ResourceLocation, int[]> letters = new HashMap<>();
+        int totalSpent = readTree(tag, levels, xp, letters);
+        return new MasterySnapshot(0, Collections.unmodifiableMap(levels), Collections.unmodifiableMap(xp),
+                Collections.unmodifiableMap(letters), totalSpent);
+    }
+
+    /**
+     * Reads the NBT tree form into the given maps.
+     *
+     * @return The total levels spent
+     */
+    static int readTree(CompoundTag tag, Map<ResourceLocation, Integer> levels,
+                        Map<ResourceLocation, Integer> xp, Map<ResourceLocation, int[]> letters) {
+        readLevels(tag, levels);
+        readXp(tag, xp);
+        readLetters(tag, letters);
+        return readTotalLevelsSpent(tag);
+    }
+
+    static void readLevels(CompoundTag tag, Map<ResourceLocation, Integer> levels) {
+        ListTag levelsTag = tag.getList("mastery_levels", Tag.TAG_COMPOUND);
+        for (int i = 0; i < levelsTag.size(); i++) {
+            CompoundTag entryTag = levelsTag.getCompound(i);
+            ResourceLocation id = EnchantIdPool.parse(entryTag.getString("id"));
+            if (id != null) {
+                levels.put(id, entryTag.getInt("level"));
+            }
+        }
+    }
+
+    static void readXp(CompoundTag tag, Map<ResourceLocation, Integer> xp) {
+        ListTag xpTag = tag.getList("mastery_xp", Tag.TAG_COMPOUND);
+        for (int i = 0; i < xpTag.size(); i++) {
+            CompoundTag entryTag = xpTag.getCompound(i);
+            ResourceLocation id = EnchantIdPool.parse(entryTag.getString("id"));
+            if (id != null) {
+                xp.put(id, entryTag.getInt("xp"));
+            }
+        }
+    }
+
+    static void readLetters(CompoundTag tag, Map<ResourceLocation, int[]> letters) {
+        ListTag lettersTag = tag.getList("unlocked_letters", Tag.TAG_COMPOUND);
+        for (int i = 0; i < lettersTag.size(); i++) {
+            CompoundTag entryTag = lettersTag.getCompound(i);
+            ResourceLocation id = EnchantIdPool.parse(entryTag.getString("id"));
+            if (id != null) {
+                letters.put(id, entryTag.getIntArray("indices"));
+            }
+        }
+    }
+
+    static int readTotalLevelsSpent(CompoundTag tag) {
+        return tag.getInt("total_levels_spent");
+    }
+}
@@ -0,0 +1,271 @@
+package com.enchantmentmastery.capability;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.storage.MasteryJournal;
+import com.enchantmentmastery.util.ProgressionMath;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A batch of mastery changes applied together by {@link MasteryCapability.IPlayerMasteryData#edit}.
+ *
+ * Changes are staged here and reads through the transaction see them; the player's data is
+ * only written once the edit body returns, with a single version bump, journal entry and sync.
+ * If the body throws, nothing is written and the rollback actions run in reverse order
+ * (for example refunding XP levels taken by {@link #chargeLevels(int)}).
+ */
+public final class MasteryTransaction {
+    private static final int[] NO_LETTERS = new int[0];
+
+    private final MasteryCapability.PlayerMasteryData data;
+    private final @Nullable ServerPlayer player;
+
+    private final Map<ResourceLocation, Integer> levels = new HashMap<>();
+    private final Map<ResourceLocation, Integer> xp = new HashMap<>();
+    private final Map<ResourceLocation, int[]> letters = new HashMap<>();
+    private final Set<ResourceLocation> touched = new LinkedHashSet<>();
+    private boolean reset = false;
+    private int levelsSpent = 0;
+    private int levelCost = 0;
+    private MasteryJournal.Op op = MasteryJournal.Op.SET;
+
+    private final List<Runnable> rollbackActions = new ArrayList<>();
+    private final List<Runnable> commitActions = new ArrayList<>();
+
+    MasteryTransaction(MasteryCapability.PlayerMasteryData data, @Nullable ServerPlayer player) {
+        this.data = data;
+        this.player = player;
+    }
+
+    /**
+     * Thrown to abort a transaction with a message for the player.
+     */
+    public static class RollbackException extends RuntimeException {
+        private final Component reason;
+
+        public RollbackException(Component reason) {
+            super(reason.getString(), null, false, false);
+            this.reason = reason;
+        }
+
+        public Component reason() {
+            return reason;
+        }
+    }
+
+    /**
+     * Sets the kind of operation this transaction is journaled as. Defaults to {@link MasteryJournal.Op#SET}.
+     */
+    public void op(MasteryJournal.Op op) {
+        this.op = op;
+    }
+
+    /**
+     * Gets the player whose data is being edited, or null on the client.
+     */
+    public @Nullable ServerPlayer player() {
+        return player;
+    }
+
+    public int getMasteryLevel(ResourceLocation enchantId) {
+        Integer staged = levels.get(enchantId);
+        if (staged != null) return staged;
+        return reset ? 0 : data.getMasteryLevel(enchantId);
+    }
+
+    public void setMasteryLevel(ResourceLocation enchantId, int level) {
+        levels.put(enchantId, Math.max(0, level));
+        touched.add(enchantId);
+    }
+
+    public int getMasteryXp(ResourceLocation enchantId) {
+        Integer staged = xp.get(enchantId);
+        if (staged != null) return staged;
+        return reset ? 0 : data.getMasteryXp(enchantId);
+    }
+
+    public void setMasteryXp(ResourceLocation enchantId, int amount) {
+        xp.put(enchantId, Math.max(0, amount));
+        touched.add(enchantId);
+    }
+
+    public void addMasteryXp(ResourceLocation enchantId, int amount) {
+        setMasteryXp(enchantId, getMasteryXp(enchantId) + amount);
+    }
+
+    /**
+     * Adds mastery XP, handling level-ups (see {@link ProgressionMath#processXpGain}).
+     * The player is sent the level-up message once the transaction commits.
+     */
+    public void grantMasteryXp(ResourceLocation enchantId, int xpGain) {
+        int currentLevel = getMasteryLevel(enchantId);
+        int[] result = new int[2];
+        ProgressionMath.processXpGain(currentLevel, getMasteryXp(enchantId), xpGain, result);
+
+        int newLevel = result[0];
+        if (newLevel > currentLevel) {
+            setMasteryLevel(enchantId, newLevel);
+            if (player != null) {
+                afterCommit(() -> player.displayClientMessage(
+                        Component.translatable("enchantmentmastery.mastery_level_up", enchantId.toString(), newLevel),
+                        false));
+            }
+        }
+        setMasteryXp(enchantId, result[1]);
+    }
+
+    /**
+     * Gets the unlocked letter indices. The returned array must not be modified.
+     */
+    public int[] getUnlockedLetterIndices(ResourceLocation enchantId) {
+        int[] staged = letters.get(enchantId);
+        if (staged != null) return staged;
+        return reset ? NO_LETTERS : data.getUnlockedLetterIndices(enchantId);
+    }
+
+    public void setUnlockedLetterIndices(ResourceLocation enchantId, int[] indices) {
+        letters.put(enchantId, indices == null ? NO_LETTERS : indices.clone());
+        touched.add(enchantId);
+    }
+
+    public void addUnlockedLetterIndex(ResourceLocation enchantId, int index) {
+        int[] current = getUnlockedLetterIndices(enchantId);
+        for (int i : current) {
+            if (i == index) return;
+        }
+        int[] newArr = new int[current.length + 1];
+        System.arraycopy(current, 0, newArr, 0, current.length);
+        newArr[current.length] = index;
+        letters.put(enchantId, newArr);
+        touched.add(enchantId);
+    }
+
+    public int getTotalLevelsSpent() {
+        return data.getTotalLevelsSpent() + levelsSpent;
+    }
+
+    public void addLevelsSpent(int levels) {
+        levelsSpent += levels;
+    }
+
+    /**
+     * Takes XP levels from the player now, counting them as spent.
+     * If the transaction rolls back the player's level, progress and total experience are put back
+     * exactly as they were, rather than refunding the levels on top of whatever the charge left.
+     */
+    public void chargeLevels(int levels) {
+        if (player == null) {
+            throw new IllegalStateException("XP levels can only be charged on the server");
+        }
+        if (player.experienceLevel < levels) {
+            fail(Component.translatable("enchantmentmastery.not_enough_xp", levels, player.experienceLevel));
+        }
+        int level = player.experienceLevel;
+        float progress = player.experienceProgress;
+        int total = player.totalExperience;
+        player.giveExperienceLevels(-levels);
+        onRollback(() -> {
+            // setExperienceLevels also makes the next tick resend the experience bar
+            player.setExperienceLevels(level);
+            player.experienceProgress = progress;
+            player.totalExperience = total;
+        });
+        addLevelsSpent(levels);
+        levelCost += levels;
+    }
+
+    /**
+     * Clears all mastery levels, XP and unlocked letters. Total levels spent is kept.
+     */
+    public void clearAll() {
+        reset = true;
+        levels.clear();
+        xp.clear();
+        letters.clear();
+        touched.clear();
+    }
+
+    /**
+     * Registers an action that undoes a side effect outside the mastery data.
+     */
+    public void onRollback(Runnable action) {
+        rollbackActions.add(action);
+    }
+
+    /**
+     * Registers an action to run once the changes are committed, e.g. player feedback.
+     */
+    public void afterCommit(Runnable action) {
+        commitActions.add(action);
+    }
+
+    /**
+     * Aborts the transaction.
+     */
+    public void fail(Component reason) {
+        throw new RollbackException(reason);
+    }
+
+    // --- Commit support for PlayerMasteryData ---
+
+    boolean isEmpty() {
+        return !reset && touched.isEmpty() && levelsSpent == 0;
+    }
+
+    boolean isReset() {
+        return reset;
+    }
+
+    MasteryJournal.Op getOp() {
+        return op;
+    }
+
+    Set<ResourceLocation> touched() {
+        return touched;
+    }
+
+    Map<ResourceLocation, Integer> stagedLevels() {
+        return levels;
+    }
+
+    Map<ResourceLocation, Integer> stagedXp() {
+        return xp;
+    }
+
+    Map<ResourceLocation, int[]> stagedLetters() {
+        return letters;
+    }
+
+    int levelsSpent() {
+        return levelsSpent;
+    }
+
+    int levelCost() {
+        return levelCost;
+    }
+
+    void rollback() {
+        for (int i = rollbackActions.size() - 1; i >= 0; i--) {
+            try {
+                rollbackActions.get(i).run();
+            } catch (RuntimeException e) {
+                EnchantmentMastery.LOGGER.error("Mastery transaction rollback action failed", e);
+            }
+        }
+    }
+
+    void runCommitActions() {
+        for (Runnable action : commitActions) {
+            action.run();
+        }
+    }
+}
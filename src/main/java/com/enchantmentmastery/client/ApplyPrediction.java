@@ -0,0 +1,171 @@
+package com.enchantmentmastery.client;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.capability.MasteryDigest;
+import com.enchantmentmastery.menu.MasteryEnchanterMenu;
+import com.enchantmentmastery.network.MasteryHelloPacket;
+import com.enchantmentmastery.network.ModNetworking;
+import com.enchantmentmastery.util.EnchantComponentUtil;
+import com.enchantmentmastery.util.EnchantRegistryUtil;
+import com.enchantmentmastery.util.ProgressionMath;
+import net.minecraft.client.Minecraft;
+import net.minecraft.core.Holder;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.enchantment.Enchantment;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.network.PacketDistributor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Shows Mastery Enchanter applies before the server confirms them.
+ *
+ * Each apply gets a sequence number. If the client's own checks pass, the enchanted item, the
+ * XP levels and the mastery progress are changed locally right away and the previous values are
+ * kept until the server's {@link com.enchantmentmastery.network.ApplyResultPacket} for that
+ * sequence arrives. Confirmed predictions are simply dropped, since the server's slot, XP and
+ * mastery syncs carry the same values; rejected ones are rolled back. A value is only rolled
+ * back if it still holds the predicted value. If the server changed it in the meantime, the
+ * client asks for a resync instead of guessing.
+ */
+@Mod.EventBusSubscriber(modid = EnchantmentMastery.MOD_ID, value = Dist.CLIENT)
+public final class ApplyPrediction {
+    private ApplyPrediction() {}
+
+    /**
+     * What an apply changed, for rolling it back.
+     */
+    private record Pending(int sequence, int containerId, ItemStack original, ItemStack predicted, int cost,
+                           int predictedXpLevel, ResourceLocation enchantId, int masteryLevel, int masteryXp,
+                           int predictedMasteryLevel, int predictedMasteryXp) {}
+
+    // Unconfirmed predictions, oldest first; results arrive in sequence order
+    private static final Deque<Pending> PENDING = new ArrayDeque<>();
+    private static int nextSequence = 1;
+
+    /**
+     * Predicts applying an enchantment in the open menu.
+     *
+     * @return The sequence number to send with the apply request
+     */
+    public static int predict(MasteryEnchanterMenu menu, ResourceLocation enchantId, int level) {
+        int sequence = nextSequence++;
+        Player player = Minecraft.getInstance().player;
+        MasteryCapability.IPlayerMasteryData data = player != null ? MasteryDataHelper.getDataOrNull(player) : null;
+        ItemStack input = menu.getInputItem();
+        int cost = menu.getQuotedCost(level);
+        // Only predict what the server is expected to accept; anything else waits for its answer
+        if (data == null || input.isEmpty() || cost < 0 || player.experienceLevel < cost
+                || level > data.getMasteryLevel(enchantId)) {
+            return sequence;
+        }
+        Optional<Holder.Reference<Enchantment>> holder =
+                EnchantRegistryUtil.getEnchantment(player.level().registryAccess(), enchantId);
+        if (holder.isEmpty() || !EnchantRegistryUtil.validateEnchantment(input, holder.get()).isValid()) {
+            return sequence;
+        }
+
+        ItemStack predicted = input.copy();
+        EnchantComponentUtil.applyEnchantmentWithEffectiveLevel(predicted, holder.get(), level);
+        int masteryLevel = data.getMasteryLevel(enchantId);
+        int masteryXp = data.getMasteryXp(enchantId);
+
+        menu.getSlot(0).set(predicted.copy());
+        player.giveExperienceLevels(-cost);
+        int[] result = new int[2];
+        ProgressionMath.processXpGain(masteryLevel, masteryXp, ProgressionMath.masteryXpGainFromApplyCost(cost), result);
+        data.setMasteryLevel(enchantId, result[0]);
+        data.setMasteryXp(enchantId, result[1]);
+        PENDING.addLast(new Pending(sequence, menu.containerId, input.copy(), predicted, cost, player.experienceLevel,
+                enchantId, masteryLevel, masteryXp, result[0], result[1]));
+        return sequence;
+    }
+
+    /**
+     * Handles the server's answer to an apply request.
+     */
+    public static void resolve(int sequence, boolean accepted) {
+        if (accepted) {
+            PENDING.removeIf(pending -> pending.sequence() == sequence);
+            return;
+        }
+        if (PENDING.stream().noneMatch(pending -> pending.sequence() == sequence)) {
+            // Not predicted, so there is nothing to undo
+            return;
+        }
+
+        // Anything predicted after the rejected apply was built on top of it, so undo those too, newest first
+        Player player = Minecraft.getInstance().player;
+        boolean diverged = false;
+        Iterator<Pending> newestFirst = PENDING.descendingIterator();
+        while (newestFirst.hasNext()) {
+            Pending pending = newestFirst.next();
+            if (pending.sequence() < sequence) {
+                break;
+            }
+            newestFirst.remove();
+            if (player != null && !rollBack(player, pending)) {
+                diverged = true;
+            }
+        }
+        if (diverged) {
+            requestResync(player);
+        }
+    }
+
+    /**
+     * Undoes one prediction, leaving alone anything the server has changed since.
+     *
+     * @return Whether the XP levels and mastery could be restored
+     */
+    private static boolean rollBack(Player player, Pending pending) {
+        // The slot only goes back if the server hasn't sent a different item since; the server resyncs slots itself
+        if (player.containerMenu instanceof MasteryEnchanterMenu menu && menu.containerId == pending.containerId()
+                && ItemStack.matches(menu.getInputItem(), pending.predicted())) {
+            menu.getSlot(0).set(pending.original());
+        }
+        boolean restored = true;
+        if (player.experienceLevel == pending.predictedXpLevel()) {
+            player.giveExperienceLevels(pending.cost());
+        } else {
+            restored = false;
+        }
+        MasteryCapability.IPlayerMasteryData data = MasteryDataHelper.getDataOrNull(player);
+        if (data != null) {
+            if (data.getMasteryLevel(pending.enchantId()) == pending.predictedMasteryLevel()
+                    && data.getMasteryXp(pending.enchantId()) == pending.predictedMasteryXp()) {
+                data.setMasteryLevel(pending.enchantId(), pending.masteryLevel());
+                data.setMasteryXp(pending.enchantId(), pending.masteryXp());
+            } else {
+                restored = false;
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Asks the server to resend whatever differs from the client's copy, and its XP.
+     */
+    private static void requestResync(Player player) {
+        MasteryCapability.PlayerMasteryData data = MasteryDataHelper.getDataOrNull(player);
+        MasteryHelloPacket hello = data != null
+                ? new MasteryHelloPacket(MasteryDigest.bucketHashes(data.snapshot()))
+                : MasteryHelloPacket.empty();
+        ModNetworking.CHANNEL.send(hello, PacketDistributor.SERVER.noArg());
+    }
+
+    @SubscribeEvent
+    public static void onLoggingOut(ClientPlayerNetworkEvent.LoggingOut event) {
+        PENDING.clear();
+    }
+}
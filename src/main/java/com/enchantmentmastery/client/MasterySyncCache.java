@@ -0,0 +1,108 @@
+package com.enchantmentmastery.client;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.capability.MasteryDigest;
+import com.enchantmentmastery.capability.MasterySerializer;
+import com.enchantmentmastery.capability.MasterySnapshot;
+import com.enchantmentmastery.network.MasteryHelloPacket;
+import com.enchantmentmastery.network.ModNetworking;
+import com.google.common.hash.Hashing;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ServerData;
+import net.minecraft.world.entity.player.Player;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.network.PacketDistributor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps the mastery data from the last session on each server, so logging in only has to
+ * transfer what changed.
+ *
+ * The data is saved per server address and player on logout. On login it is loaded back and
+ * its bucket hashes are sent in a {@link MasteryHelloPacket}; the server answers with the
+ * buckets that differ, or everything if most of it did. Singleplayer worlds aren't cached.
+ */
+@Mod.EventBusSubscriber(modid = EnchantmentMastery.MOD_ID, value = Dist.CLIENT)
+public final class MasterySyncCache {
+    private MasterySyncCache() {}
+
+    // Cache file for the current connection, or null if it isn't cached
+    private static @Nullable Path cacheFile;
+
+    @SubscribeEvent
+    public static void onLoggingIn(ClientPlayerNetworkEvent.LoggingIn event) {
+        Minecraft minecraft = Minecraft.getInstance();
+        ServerData server = minecraft.getCurrentServer();
+        cacheFile = server != null && !minecraft.isLocalServer()
+                ? cacheFile(minecraft, server.ip, event.getPlayer()) : null;
+
+        MasteryCapability.PlayerMasteryData data = MasteryDataHelper.getDataOrNull(event.getPlayer());
+        MasteryHelloPacket hello = MasteryHelloPacket.empty();
+        if (data != null && cacheFile != null && Files.isRegularFile(cacheFile)) {
+            try {
+                data.loadPacked(Files.readAllBytes(cacheFile));
+                MasterySnapshot cached = data.snapshot();
+                if (data.isUnloaded()) {
+                    throw new IOException("Cached mastery data doesn't decode");
+                }
+                hello = new MasteryHelloPacket(MasteryDigest.bucketHashes(cached));
+            } catch (IOException | RuntimeException e) {
+                EnchantmentMastery.LOGGER.warn("Discarding unreadable mastery cache {}", cacheFile, e);
+                data.copyFrom(new MasteryCapability.PlayerMasteryData());
+            }
+        }
+        ModNetworking.CHANNEL.send(hello, PacketDistributor.SERVER.noArg());
+    }
+
+    @SubscribeEvent
+    public static void onLoggingOut(ClientPlayerNetworkEvent.LoggingOut event) {
+        Path file = cacheFile;
+        cacheFile = null;
+        Player player = event.getPlayer();
+        MasteryCapability.PlayerMasteryData data = player != null ? MasteryDataHelper.getDataOrNull(player) : null;
+        if (file == null || data == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, MasterySerializer.encode(data.snapshot()));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            EnchantmentMastery.LOGGER.warn("Failed to save mastery cache {}", file, e);
+        }
+    }
+
+    /**
+     * Respawning and changing dimension replace the local player; the server doesn't resend
+     * unchanged data, so the new player takes over the old one's copy.
+     */
+    @SubscribeEvent
+    public static void onClone(ClientPlayerNetworkEvent.Clone event) {
+        Player oldPlayer = event.getOldPlayer();
+        Player newPlayer = event.getNewPlayer();
+        MasteryDataHelper.invalidate(oldPlayer);
+        MasteryDataHelper.invalidate(newPlayer);
+        oldPlayer.reviveCaps();
+        oldPlayer.getCapability(MasteryCapability.PLAYER_MASTERY).ifPresent(oldData ->
+                newPlayer.getCapability(MasteryCapability.PLAYER_MASTERY).ifPresent(newData -> newData.copyFrom(oldData)));
+        oldPlayer.invalidateCaps();
+    }
+
+    private static Path cacheFile(Minecraft minecraft, String address, Player player) {
+        String server = Hashing.sha256().hashString(address, StandardCharsets.UTF_8).toString().substring(0, 16);
+        return minecraft.gameDirectory.toPath().resolve(EnchantmentMastery.MOD_ID).resolve("sync_cache")
+                .resolve(server + "_" + player.getUUID() + ".dat");
+    }
+}
@@ -0,0 +1,42 @@
+package com.enchantmentmastery.client;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.network.MasteryFramePacket;
+import com.enchantmentmastery.network.MasteryTransfer;
+import com.enchantmentmastery.network.ModNetworking;
+import net.minecraft.client.Minecraft;
+import net.minecraft.world.entity.player.Player;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.network.PacketDistributor;
+
+/**
+ * Assembles streamed full syncs for the local player. The frames are collected into a separate
+ * buffer and the player's data is only replaced, in one step, once the whole transfer has
+ * arrived and decoded (see {@link MasteryTransfer.Receiver}).
+ */
+@Mod.EventBusSubscriber(modid = EnchantmentMastery.MOD_ID, value = Dist.CLIENT)
+public final class MasteryTransferReceiver {
+    private MasteryTransferReceiver() {}
+
+    private static final MasteryTransfer.Receiver RECEIVER = new MasteryTransfer.Receiver();
+
+    public static void accept(MasteryFramePacket frame) {
+        RECEIVER.accept(frame, MasteryTransferReceiver::playerData,
+                ack -> ModNetworking.CHANNEL.send(ack, PacketDistributor.SERVER.noArg()));
+    }
+
+    private static MasteryCapability.PlayerMasteryData playerData() {
+        Player player = Minecraft.getInstance().player;
+        return player != null ? MasteryDataHelper.getDataOrNull(player) : null;
+    }
+
+    @SubscribeEvent
+    public static void onLoggingOut(ClientPlayerNetworkEvent.LoggingOut event) {
+        RECEIVER.reset();
+    }
+}
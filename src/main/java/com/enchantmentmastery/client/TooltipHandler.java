@@ -2,22 +2,19 @@ package com.enchantmentmastery.client;
 
 import com.enchantmentmastery.EnchantmentMastery;
 import com.enchantmentmastery.capability.MasteryDataHelper;
-import com.enchantmentmastery.data.EffectiveLevelsComponent;
-import com.enchantmentmastery.data.ModDataComponents;
+import com.enchantmentmastery.metrics.MasteryMetrics;
 import com.enchantmentmastery.util.DecodingUtil;
 import com.enchantmentmastery.util.EnchantComponentUtil;
 import com.enchantmentmastery.util.RomanNumerals;
 import net.minecraft.ChatFormatting;
 import net.minecraft.client.Minecraft;
 import net.minecraft.core.Holder;
-import net.minecraft.core.component.DataComponents;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.enchantment.Enchantment;
-import net.minecraft.world.item.enchantment.ItemEnchantments;
 import net.minecraft.tags.EnchantmentTags;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.event.entity.player.ItemTooltipEvent;
@@ -26,7 +23,6 @@ import net.minecraftforge.fml.common.Mod;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Handles custom tooltip rendering for enchantments.
@@ -40,17 +36,23 @@ public class TooltipHandler {
         ItemStack stack = event.getItemStack();
 
         // Check if item has enchantments
-        ItemEnchantments enchants = stack.get(DataComponents.ENCHANTMENTS);
-        if (enchants == null || enchants.isEmpty()) {
+        if (!EnchantComponentUtil.hasEnchantments(stack)) {
             return;
         }
 
-        // Get effective levels component if present
-        EffectiveLevelsComponent effectiveLevels = stack.get(ModDataComponents.EFFECTIVE_LEVELS.get());
+        long start = System.nanoTime();
 
         // Get the current player for decoding data
         Player player = Minecraft.getInstance().player;
 
+        // Build one custom line per enchantment, with the effective level resolved inline
+        List<String> enchantNames = new ArrayList<>();
+        List<Component> enchantLines = new ArrayList<>();
+        EnchantComponentUtil.forEachEffectiveEnchantment(stack, (holder, enchantId, level) -> {
+            enchantNames.add(holder.value().description().getString());
+            enchantLines.add(createEnchantmentLine(holder, level, enchantId, player));
+        });
+
         // Find and replace enchantment lines in the tooltip
         List<Component> tooltip = event.getToolTip();
         List<Integer> indicesToRemove = new ArrayList<>();
@@ -58,36 +60,13 @@ public class TooltipHandler {
 
         // Collect vanilla enchantment lines to replace
         for (int i = 0; i < tooltip.size(); i++) {
-            Component line = tooltip.get(i);
-            String lineText = line.getString();
+            String lineText = tooltip.get(i).getString();
 
             // Check each enchantment to see if this line is for it
-            for (var entry : enchants.entrySet()) {
-                Holder<Enchantment> holder = entry.getKey();
-                int vanillaLevel = entry.getIntValue();
-
-                String enchantName = holder.value().description().getString();
-
-                // Check if this tooltip line contains this enchantment name
-                if (lineText.contains(enchantName)) {
-                    // Get effective level
-                    ResourceLocation enchantId = holder.unwrapKey()
-                            .map(key -> key.location())
-                            .orElse(null);
-
-                    int displayLevel = vanillaLevel;
-                    if (enchantId != null && effectiveLevels != null) {
-                        int effective = effectiveLevels.getLevel(enchantId);
-                        if (effective > 0) {
-                            displayLevel = effective;
-                        }
-                    }
-
-                    // Create custom line with decoded name and Roman numeral
-                    Component customLine = createEnchantmentLine(holder, displayLevel, enchantId, player);
-
+            for (int e = 0; e < enchantNames.size(); e++) {
+                if (lineText.contains(enchantNames.get(e))) {
                     indicesToRemove.add(i);
-                    newLines.add(customLine);
+                    newLines.add(enchantLines.get(e));
                     break;
                 }
             }
@@ -98,6 +77,9 @@ public class TooltipHandler {
             int index = indicesToRemove.get(i);
             tooltip.set(index, newLines.get(i));
         }
+
+        MasteryMetrics.TOOLTIP_BUILDS.increment();
+        MasteryMetrics.TOOLTIP_LATENCY.observeSince(start);
     }
 
     /**
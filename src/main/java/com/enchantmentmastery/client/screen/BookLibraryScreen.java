@@ -0,0 +1,229 @@
+package com.enchantmentmastery.client.screen;
+
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.client.EnchantmentDisplayHelper;
+import com.enchantmentmastery.network.LibraryContentsPacket;
+import com.enchantmentmastery.network.LibraryWithdrawPacket;
+import com.enchantmentmastery.network.ModNetworking;
+import com.enchantmentmastery.util.EnchantRegistryUtil;
+import com.enchantmentmastery.util.ProgressionMath;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.GuiGraphics;
+import net.minecraft.client.gui.components.Button;
+import net.minecraft.client.gui.screens.Screen;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.enchantment.Enchantment;
+import net.minecraftforge.network.PacketDistributor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Client screen for the Book Library.
+ * Lists the stored books with their counts; clicking a row takes one book out. The
+ * "absorb next" filter shows only the books that continue the player's mastery chains.
+ */
+public class BookLibraryScreen extends Screen {
+    private static final int VISIBLE_ENTRIES = 8;
+    private static final int ENTRY_HEIGHT = 20;
+    private static final int LIST_WIDTH = 200;
+
+    private final BlockPos pos;
+    private List<Row> rows = List.of();
+    // Rows passing the filter, rebuilt with the buttons rather than every frame
+    private List<Row> visibleRows = List.of();
+    // Mastery data version the filter was applied against
+    private long filteredVersion = -1;
+    private final List<RowButton> rowButtons = new ArrayList<>();
+    private int scrollOffset = 0;
+    private boolean absorbNextOnly = false;
+    private Button filterButton;
+
+    /**
+     * A stored book resolved against the client's enchantment registry.
+     */
+    private record Row(Holder<Enchantment> holder, ResourceLocation enchantId, int enchantment, int level,
+                       int count) {}
+
+    private BookLibraryScreen(BlockPos pos) {
+        super(Component.translatable("enchantmentmastery.library.title"));
+        this.pos = pos;
+    }
+
+    /**
+     * Opens the screen for a library, or refreshes it if it is already open.
+     */
+    public static void open(BlockPos pos, List<LibraryContentsPacket.Entry> entries) {
+        Minecraft minecraft = Minecraft.getInstance();
+        if (minecraft.level == null) {
+            return;
+        }
+        BookLibraryScreen screen = minecraft.screen instanceof BookLibraryScreen current && current.pos.equals(pos)
+                ? current : new BookLibraryScreen(pos);
+        screen.setEntries(entries);
+        if (minecraft.screen != screen) {
+            minecraft.setScreen(screen);
+        }
+    }
+
+    private void setEntries(List<LibraryContentsPacket.Entry> entries) {
+        Registry<Enchantment> registry = EnchantRegistryUtil.getRegistry(Minecraft.getInstance().level.registryAccess());
+        List<Row> resolved = new ArrayList<>(entries.size());
+        for (LibraryContentsPacket.Entry entry : entries) {
+            registry.getHolder(entry.enchantment()).ifPresent(holder -> resolved.add(new Row(holder,
+                    holder.key().location(), entry.enchantment(), entry.level(), entry.count())));
+        }
+        resolved.sort(Comparator.comparing((Row row) -> row.enchantId().toString()).thenComparingInt(Row::level));
+        this.rows = resolved;
+        if (filterButton != null) {
+            rebuildRowList();
+        }
+    }
+
+    private List<Row> filterRows() {
+        Player player = Minecraft.getInstance().player;
+        if (!absorbNextOnly || player == null) {
+            return rows;
+        }
+        List<Row> next = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.level() == MasteryDataHelper.getMasteryLevel(player, row.enchantId()) + 1) {
+                next.add(row);
+            }
+        }
+        return next;
+    }
+
+    private int left() {
+        return (width - LIST_WIDTH) / 2;
+    }
+
+    private int top() {
+        return (height - VISIBLE_ENTRIES * ENTRY_HEIGHT) / 2;
+    }
+
+    @Override
+    protected void init() {
+        filterButton = Button.builder(filterLabel(), btn -> {
+                    absorbNextOnly = !absorbNextOnly;
+                    btn.setMessage(filterLabel());
+                    scrollOffset = 0;
+                    rebuildRowList();
+                })
+                .bounds(left(), top() - 24, LIST_WIDTH, 20)
+                .build();
+        addRenderableWidget(filterButton);
+        rebuildRowList();
+    }
+
+    @Override
+    public void tick() {
+        super.tick();
+        // The absorb-next filter depends on mastery, which can change while the screen is open
+        if (absorbNextOnly && masteryVersion() != filteredVersion) {
+            rebuildRowList();
+        }
+    }
+
+    private long masteryVersion() {
+        Player player = Minecraft.getInstance().player;
+        MasteryCapability.PlayerMasteryData data = player != null ? MasteryDataHelper.getDataOrNull(player) : null;
+        return data != null ? data.getVersion() : -1;
+    }
+
+    private Component filterLabel() {
+        return Component.translatable(absorbNextOnly
+                ? "enchantmentmastery.library.filter.absorb_next"
+                : "enchantmentmastery.library.filter.all");
+    }
+
+    private void rebuildRowList() {
+        for (RowButton button : rowButtons) {
+            removeWidget(button);
+        }
+        rowButtons.clear();
+
+        visibleRows = filterRows();
+        filteredVersion = masteryVersion();
+        List<Row> visible = visibleRows;
+        scrollOffset = Math.max(0, Math.min(scrollOffset, visible.size() - VISIBLE_ENTRIES));
+        Player player = Minecraft.getInstance().player;
+        for (int i = 0; i < Math.min(VISIBLE_ENTRIES, visible.size() - scrollOffset); i++) {
+            Row row = visible.get(scrollOffset + i);
+            RowButton button = new RowButton(left(), top() + i * ENTRY_HEIGHT, LIST_WIDTH, ENTRY_HEIGHT - 2,
+                    row, player);
+            rowButtons.add(button);
+            addRenderableWidget(button);
+        }
+    }
+
+    @Override
+    public boolean mouseScrolled(double mouseX, double mouseY, double scrollX, double scrollY) {
+        int maxScroll = Math.max(0, visibleRows.size() - VISIBLE_ENTRIES);
+        scrollOffset = Math.max(0, Math.min(maxScroll, scrollOffset - (int) scrollY));
+        rebuildRowList();
+        return true;
+    }
+
+    @Override
+    public void render(GuiGraphics guiGraphics, int mouseX, int mouseY, float partialTick) {
+        super.render(guiGraphics, mouseX, mouseY, partialTick);
+        guiGraphics.drawCenteredString(font, title, width / 2, top() - 38, 0xFFFFFF);
+
+        int total = visibleRows.size();
+        if (total == 0) {
+            guiGraphics.drawCenteredString(font, Component.translatable("enchantmentmastery.library.empty"),
+                    width / 2, top() + 6, 0x808080);
+        } else if (total > VISIBLE_ENTRIES) {
+            String scrollText = (scrollOffset + 1) + "-" +
+                    Math.min(scrollOffset + VISIBLE_ENTRIES, total) + "/" + total;
+            guiGraphics.drawString(font, scrollText, left(), top() + VISIBLE_ENTRIES * ENTRY_HEIGHT + 2, 0x808080);
+        }
+    }
+
+    @Override
+    public boolean isPauseScreen() {
+        return false;
+    }
+
+    /**
+     * Row showing one stored enchantment level; pressing it withdraws one book.
+     */
+    private class RowButton extends Button {
+        private final Row row;
+        private final int absorbCost;
+
+        RowButton(int x, int y, int width, int height, Row row, Player player) {
+            super(x, y, width, height,
+                    EnchantmentDisplayHelper.createEnchantmentDisplay(row.holder(), row.level(), player),
+                    btn -> ModNetworking.CHANNEL.send(new LibraryWithdrawPacket(pos, row.enchantment(), row.level()),
+                            PacketDistributor.SERVER.noArg()),
+                    DEFAULT_NARRATION);
+            this.row = row;
+            this.absorbCost = absorbNextOnly ? ProgressionMath.absorbCostLevels(row.level()) : 0;
+        }
+
+        @Override
+        protected void renderWidget(GuiGraphics guiGraphics, int mouseX, int mouseY, float partialTick) {
+            guiGraphics.fill(getX(), getY(), getX() + width, getY() + height, isHovered ? 0xFF606060 : 0xFF404040);
+            guiGraphics.drawString(font, getMessage(), getX() + 4, getY() + 5, 0xFFFFFF);
+
+            String right = "x" + row.count();
+            if (absorbCost > 0) {
+                Player player = Minecraft.getInstance().player;
+                int color = player != null && player.experienceLevel >= absorbCost ? 0x00FF00 : 0xFF0000;
+                String cost = absorbCost + "L  ";
+                guiGraphics.drawString(font, cost, getX() + width - 4 - font.width(right) - font.width(cost),
+                        getY() + 5, color);
+            }
+            guiGraphics.drawString(font, right, getX() + width - 4 - font.width(right), getY() + 5, 0xFFFFFF);
+        }
+    }
+}
@@ -1,22 +1,33 @@
 package com.enchantmentmastery.client.screen;
 
 import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.client.ApplyPrediction;
 import com.enchantmentmastery.menu.MasteryEnchanterMenu;
+import com.enchantmentmastery.network.AbsorbAllPacket;
 import com.enchantmentmastery.network.ApplyEnchantmentPacket;
 import com.enchantmentmastery.network.ModNetworking;
-import com.enchantmentmastery.util.ProgressionMath;
+import com.enchantmentmastery.util.EnchantPlanner;
 import com.enchantmentmastery.util.RomanNumerals;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.gui.components.Button;
+import net.minecraft.client.gui.components.Tooltip;
+import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
 import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
 import net.minecraftforge.network.PacketDistributor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Client screen for the Mastery Enchanter.
@@ -36,9 +47,33 @@ public class MasteryEnchanterScreen extends AbstractContainerScreen<MasteryEncha
     private int selectedLevel = 1;
     private ResourceLocation selectedEnchantId = null;
     private Button applyButton;
+    private Button absorbAllButton;
+    // Inventory change count the Absorb All state was computed at
+    private int absorbAllInventoryVersion = -1;
+    private boolean inventoryHasBooks;
     private Button levelUpButton;
     private Button levelDownButton;
 
+    // Targets added with the Plan button, and their plan for the current input item
+    private final List<EnchantPlanner.Target> planTargets = new ArrayList<>();
+    private Button planButton;
+    private EnchantPlanner.Plan plan;
+    private ItemStack plannedItem = ItemStack.EMPTY;
+    private int plannedBudget = -1;
+    private Component planLabel;
+
+    // Prebuilt labels and the state they were built from
+    private Component levelLabel;
+    private Component costLabel;
+    private int labelCost;
+    private ResourceLocation labelEnchantId;
+    private int labelLevel;
+    private int[] labelQuotes;
+    private Component scrollLabel;
+    private int scrollFirst;
+    private int scrollLast;
+    private int scrollTotal;
+
     public MasteryEnchanterScreen(MasteryEnchanterMenu menu, Inventory playerInventory, Component title) {
         super(menu, playerInventory, title);
         this.imageWidth = 176;
@@ -57,6 +92,14 @@ public class MasteryEnchanterScreen extends AbstractContainerScreen<MasteryEncha
                 .build();
         addRenderableWidget(applyButton);
 
+        // Absorb every book in the inventory that continues a mastery chain
+        absorbAllButton = Button.builder(
+                        Component.translatable("enchantmentmastery.gui.absorb_all"),
+                        btn -> ModNetworking.CHANNEL.send(new AbsorbAllPacket(), PacketDistributor.SERVER.noArg()))
+                .bounds(leftPos + 120, topPos + 4, 50, 14)
+                .build();
+        addRenderableWidget(absorbAllButton);
+
         // Level adjustment buttons
         levelDownButton = Button.builder(
                         Component.literal("-"),
@@ -72,6 +115,14 @@ public class MasteryEnchanterScreen extends AbstractContainerScreen<MasteryEncha
                 .build();
         addRenderableWidget(levelUpButton);
 
+        // Add the selection to the plan; shift-click clears it
+        planButton = Button.builder(
+                        Component.translatable("enchantmentmastery.gui.plan"),
+                        btn -> onPlanClicked())
+                .bounds(leftPos + 120, topPos - 16, 50, 14)
+                .build();
+        addRenderableWidget(planButton);
+
         rebuildEnchantmentList();
     }
 
@@ -144,21 +195,84 @@ public class MasteryEnchanterScreen extends AbstractContainerScreen<MasteryEncha
         }
 
         applyButton.active = canApply;
+        absorbAllButton.active = inventoryHasBooks();
         levelUpButton.active = selectedEnchantId != null;
         levelDownButton.active = selectedEnchantId != null && selectedLevel > 1;
+        planButton.active = selectedEnchantId != null || !planTargets.isEmpty();
+        updateSelectionLabels();
+        updateScrollLabel();
+    }
+
+    /**
+     * Whether the inventory holds an enchanted book, rescanned only when the inventory changed.
+     */
+    private boolean inventoryHasBooks() {
+        Player player = Minecraft.getInstance().player;
+        if (player == null) {
+            return false;
+        }
+        Inventory inventory = player.getInventory();
+        if (inventory.getTimesChanged() != absorbAllInventoryVersion) {
+            absorbAllInventoryVersion = inventory.getTimesChanged();
+            inventoryHasBooks = inventory.contains(stack -> stack.is(Items.ENCHANTED_BOOK));
+        }
+        return inventoryHasBooks;
+    }
+
+    private void onPlanClicked() {
+        if (Screen.hasShiftDown()) {
+            planTargets.clear();
+        } else if (selectedEnchantId != null) {
+            planTargets.removeIf(target -> target.enchantId().equals(selectedEnchantId));
+            planTargets.add(new EnchantPlanner.Target(selectedEnchantId, selectedLevel));
+        }
+        replan();
+    }
+
+    /**
+     * Plans the targets against the input item, using the synced mastery data.
+     */
+    private void replan() {
+        Player player = Minecraft.getInstance().player;
+        MasteryCapability.IPlayerMasteryData data = player != null ? MasteryDataHelper.getDataOrNull(player) : null;
+        plannedItem = menu.getInputItem().copy();
+        plannedBudget = player != null ? player.experienceLevel : 0;
+        if (planTargets.isEmpty() || data == null) {
+            plan = null;
+            planLabel = null;
+            planButton.setTooltip(null);
+            return;
+        }
+
+        plan = EnchantPlanner.plan(player.level().registryAccess(), plannedItem, planTargets, data, plannedBudget);
+        MutableComponent steps = Component.empty();
+        int index = 1;
+        for (EnchantPlanner.Step step : plan.steps()) {
+            if (index > 1) {
+                steps.append("\n");
+            }
+            steps.append(index++ + ". " + step.enchantId().getPath() + " " + RomanNumerals.toRoman(step.level())
+                    + " (" + step.cost() + ")" + (step.training() ? " *" : ""));
+        }
+        planButton.setTooltip(plan.steps().isEmpty() ? null : Tooltip.create(steps));
+        planLabel = plan.feasible()
+                ? Component.translatable("enchantmentmastery.gui.plan_summary", plan.steps().size(), plan.totalCost())
+                : plan.failure();
     }
 
     private void onApplyClicked() {
         if (selectedEnchantId == null || selectedLevel <= 0) return;
 
-        // Send packet to server
-        ModNetworking.CHANNEL.send(new ApplyEnchantmentPacket(selectedEnchantId, selectedLevel), PacketDistributor.SERVER.noArg());
+        // Show the result right away and send the request tagged with its sequence number
+        int sequence = ApplyPrediction.predict(menu, selectedEnchantId, selectedLevel);
+        ModNetworking.CHANNEL.send(new ApplyEnchantmentPacket(selectedEnchantId, selectedLevel, sequence),
+                PacketDistributor.SERVER.noArg());
 
         // Reset selection
         selectedEnchantId = null;
         selectedLevel = 1;
 
-        // Rebuild list after short delay (will update when container changes)
+        // The predicted item already updated the list; a rejection rolls it back
     }
 
     @Override
@@ -180,6 +294,12 @@ public class MasteryEnchanterScreen extends AbstractContainerScreen<MasteryEncha
         super.containerTick();
         // Refresh list when container changes
         rebuildEnchantmentList();
+
+        Player player = Minecraft.getInstance().player;
+        if (!planTargets.isEmpty() && (!ItemStack.matches(plannedItem, menu.getInputItem())
+                || (player != null && player.experienceLevel != plannedBudget))) {
+            replan();
+        }
     }
 
     @Override
@@ -194,27 +314,63 @@ public class MasteryEnchanterScreen extends AbstractContainerScreen<MasteryEncha
         renderTooltip(guiGraphics, mouseX, mouseY);
 
         // Draw selected level and cost
-        if (selectedEnchantId != null) {
-            String levelText = "Level: " + RomanNumerals.toRoman(selectedLevel);
-            int cost = ProgressionMath.applyCostLevels(selectedLevel);
-            String costText = "Cost: " + cost + " levels";
-
+        if (levelLabel != null) {
+            guiGraphics.drawString(font, levelLabel, leftPos + 120, topPos + 22, 0xFFFFFF);
+        }
+        if (costLabel != null) {
             int xpLevels = Minecraft.getInstance().player != null ?
                     Minecraft.getInstance().player.experienceLevel : 0;
-            int costColor = xpLevels >= cost ? 0x00FF00 : 0xFF0000;
+            guiGraphics.drawString(font, costLabel, leftPos + 8, topPos + 75,
+                    xpLevels >= labelCost ? 0x00FF00 : 0xFF0000);
+        }
 
-            guiGraphics.drawString(font, levelText, leftPos + 120, topPos + 22, 0xFFFFFF);
-            guiGraphics.drawString(font, costText, leftPos + 8, topPos + 75, costColor);
+        // Plan summary, above the panel
+        if (planLabel != null) {
+            guiGraphics.drawString(font, planLabel, leftPos + 8, topPos - 12, plan.feasible() ? 0x00FF00 : 0xFF0000);
         }
 
         // Scroll indicator
+        if (scrollLabel != null) {
+            guiGraphics.drawString(font, scrollLabel, leftPos + 8, topPos + 8, 0x808080);
+        }
+    }
+
+    /**
+     * Rebuilds the level and cost labels when the selection or the server's cost table changes,
+     * so rendering only draws prebuilt components.
+     */
+    private void updateSelectionLabels() {
+        int[] quotes = menu.getCostQuotes();
+        if (Objects.equals(selectedEnchantId, labelEnchantId) && selectedLevel == labelLevel && quotes == labelQuotes) {
+            return;
+        }
+        labelEnchantId = selectedEnchantId;
+        labelLevel = selectedLevel;
+        labelQuotes = quotes;
+
+        if (selectedEnchantId == null) {
+            levelLabel = null;
+            costLabel = null;
+            return;
+        }
+        levelLabel = Component.translatable("enchantmentmastery.gui.level", RomanNumerals.toRoman(selectedLevel));
+        labelCost = menu.getQuotedCost(selectedLevel);
+        // No label until the server has quoted this level
+        costLabel = labelCost < 0 ? null : Component.translatable("enchantmentmastery.gui.cost", labelCost);
+    }
+
+    private void updateScrollLabel() {
         int totalEntries = menu.getAvailableEnchantments().size();
-        if (totalEntries > VISIBLE_ENTRIES) {
-            String scrollText = (scrollOffset + 1) + "-" +
-                    Math.min(scrollOffset + VISIBLE_ENTRIES, totalEntries) +
-                    "/" + totalEntries;
-            guiGraphics.drawString(font, scrollText, leftPos + 8, topPos + 8, 0x808080);
+        int first = scrollOffset + 1;
+        int last = Math.min(scrollOffset + VISIBLE_ENTRIES, totalEntries);
+        if (totalEntries <= VISIBLE_ENTRIES) {
+            scrollLabel = null;
+        } else if (scrollLabel == null || scrollFirst != first || scrollLast != last || scrollTotal != totalEntries) {
+            scrollLabel = Component.literal(first + "-" + last + "/" + totalEntries);
         }
+        scrollFirst = first;
+        scrollLast = last;
+        scrollTotal = totalEntries;
     }
 
     @Override
@@ -2,12 +2,22 @@ package com.enchantmentmastery.command;
 
 import com.enchantmentmastery.EnchantmentMastery;
 import com.enchantmentmastery.capability.MasteryDataHelper;
-import com.enchantmentmastery.network.ModNetworking;
+import com.enchantmentmastery.capability.MasterySnapshot;
+import com.enchantmentmastery.capability.MasteryTransaction;
+import com.enchantmentmastery.metrics.MasteryMetrics;
+import com.enchantmentmastery.storage.MasteryJournal;
+import com.enchantmentmastery.storage.MasteryStorage;
+import com.enchantmentmastery.util.EnchantPlanner;
 import com.enchantmentmastery.util.RomanNumerals;
+import com.mojang.authlib.GameProfile;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
+import net.minecraft.commands.arguments.GameProfileArgument;
 import net.minecraft.commands.arguments.ResourceLocationArgument;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
@@ -16,7 +26,10 @@ import net.minecraftforge.event.RegisterCommandsEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Debug commands for testing the mastery system.
@@ -62,8 +75,15 @@ public class MasteryCommands {
                                                     ResourceLocation enchantId = ResourceLocationArgument.getId(context, "enchantment");
                                                     int level = IntegerArgumentType.getInteger(context, "level");
 
-                                                    MasteryDataHelper.setMasteryLevel(player, enchantId, level);
-                                                    ModNetworking.syncMasteryData(player);
+                                                    try {
+                                                        MasteryDataHelper.getData(player).edit(tx -> {
+                                                            tx.op(MasteryJournal.Op.SET);
+                                                            tx.setMasteryLevel(enchantId, level);
+                                                        });
+                                                    } catch (MasteryTransaction.RollbackException e) {
+                                                        context.getSource().sendFailure(e.reason());
+                                                        return 0;
+                                                    }
 
                                                     context.getSource().sendSuccess(
                                                             () -> Component.literal("Set " + enchantId + " mastery to " + level), true);
@@ -74,17 +94,16 @@ public class MasteryCommands {
                         .then(Commands.literal("reset")
                                 .executes(context -> {
                                     ServerPlayer player = context.getSource().getPlayerOrException();
-                                    var data = MasteryDataHelper.getData(player);
-
-                                    // Clear all data by setting levels to 0
-                                    for (var id : data.getAllMasteryLevels().keySet()) {
-                                        data.setMasteryLevel(id, 0);
-                                        data.setMasteryXp(id, 0);
-                                        data.setUnlockedLetterIndices(id, new int[0]);
+                                    try {
+                                        MasteryDataHelper.getData(player).edit(tx -> {
+                                            tx.op(MasteryJournal.Op.RESET);
+                                            tx.clearAll();
+                                        });
+                                    } catch (MasteryTransaction.RollbackException e) {
+                                        context.getSource().sendFailure(e.reason());
+                                        return 0;
                                     }
 
-                                    ModNetworking.syncMasteryData(player);
-
                                     context.getSource().sendSuccess(
                                             () -> Component.literal("Reset all mastery data."), true);
                                     return 1;
@@ -111,6 +130,97 @@ public class MasteryCommands {
                                             () -> Component.literal("  Combined mastery: " + combinedMastery), false);
                                     return 1;
                                 }))
+
+                        // /mastery metrics - Show mod performance metrics
+                        .then(Commands.literal("metrics")
+                                .executes(context -> {
+                                    context.getSource().sendSuccess(
+                                            () -> Component.literal("Mastery Metrics:"), false);
+                                    for (String line : MasteryMetrics.summaryLines()) {
+                                        context.getSource().sendSuccess(
+                                                () -> Component.literal("  " + line), false);
+                                    }
+                                    return 1;
+                                }))
+
+                        // /mastery plan <enchant=level ...> - Plan the cheapest way to enchant the held item
+                        .then(Commands.literal("plan")
+                                .then(Commands.argument("targets", StringArgumentType.greedyString())
+                                        .executes(MasteryCommands::plan)))
+
+                        // /mastery lookup <player> - Show stats for an online or offline player
+                        .then(Commands.literal("lookup")
+                                .then(Commands.argument("player", GameProfileArgument.gameProfile())
+                                        .executes(context -> {
+                                            int found = 0;
+                                            for (GameProfile profile : GameProfileArgument.getGameProfiles(context, "player")) {
+                                                Optional<MasterySnapshot> snapshot = MasteryStorage.lookup(
+                                                        context.getSource().getServer(), profile.getId());
+                                                if (snapshot.isEmpty()) {
+                                                    context.getSource().sendFailure(
+                                                            Component.literal("No mastery data stored for " + profile.getName()));
+                                                    continue;
+                                                }
+
+                                                Map<ResourceLocation, Integer> levels = snapshot.get().levels();
+                                                int combinedMastery = levels.values().stream().mapToInt(Integer::intValue).sum();
+                                                context.getSource().sendSuccess(
+                                                        () -> Component.literal("Mastery Stats for " + profile.getName() + ":"), false);
+                                                context.getSource().sendSuccess(
+                                                        () -> Component.literal("  Enchantments learned: " + levels.size()), false);
+                                                context.getSource().sendSuccess(
+                                                        () -> Component.literal("  Total levels spent: " + snapshot.get().totalLevelsSpent()), false);
+                                                context.getSource().sendSuccess(
+                                                        () -> Component.literal("  Combined mastery: " + combinedMastery), false);
+                                                found++;
+                                            }
+                                            return found;
+                                        })))
         );
     }
+
+    private static int plan(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
+        ServerPlayer player = context.getSource().getPlayerOrException();
+
+        // Targets are written as enchantment=level, e.g. "sharpness=5 minecraft:unbreaking=3"
+        List<EnchantPlanner.Target> targets = new ArrayList<>();
+        for (String token : StringArgumentType.getString(context, "targets").trim().split("\\s+")) {
+            int split = token.lastIndexOf('=');
+            ResourceLocation enchantId = split > 0 ? ResourceLocation.tryParse(token.substring(0, split)) : null;
+            int level;
+            try {
+                level = split > 0 ? Integer.parseInt(token.substring(split + 1)) : 0;
+            } catch (NumberFormatException e) {
+                level = 0;
+            }
+            if (enchantId == null || level <= 0) {
+                context.getSource().sendFailure(Component.literal("Expected enchantment=level, got " + token));
+                return 0;
+            }
+            targets.add(new EnchantPlanner.Target(enchantId, level));
+        }
+
+        long start = System.nanoTime();
+        EnchantPlanner.Plan plan = EnchantPlanner.plan(player.level().registryAccess(), player.getMainHandItem(),
+                targets, MasteryDataHelper.getData(player), player.experienceLevel);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        if (plan.steps().isEmpty() && !plan.feasible()) {
+            context.getSource().sendFailure(plan.failure());
+            return 0;
+        }
+        context.getSource().sendSuccess(() -> Component.literal("Plan for " + player.getMainHandItem().getHoverName().getString()
+                + ": " + plan.steps().size() + " steps, " + plan.totalCost() + " levels (" + micros + "us)"), false);
+        int index = 1;
+        for (EnchantPlanner.Step step : plan.steps()) {
+            String line = "  " + index++ + ". " + step.enchantId() + " " + RomanNumerals.toRoman(step.level())
+                    + " - " + step.cost() + " levels" + (step.training() ? " (training)" : "");
+            context.getSource().sendSuccess(() -> Component.literal(line), false);
+        }
+        if (!plan.feasible()) {
+            context.getSource().sendFailure(plan.failure());
+            return 0;
+        }
+        return plan.steps().size();
+    }
 }
@@ -1,14 +1,25 @@
 package com.enchantmentmastery.data;
 
+import com.enchantmentmastery.metrics.MasteryMetrics;
+import com.enchantmentmastery.util.EnchantIdPool;
+import com.enchantmentmastery.util.EnchantRegistryUtil;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.mojang.serialization.Codec;
-import com.mojang.serialization.codecs.RecordCodecBuilder;
-import io.netty.buffer.ByteBuf;
-import net.minecraft.network.codec.ByteBufCodecs;
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.VarInt;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.enchantment.Enchantment;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Data component storing effective enchantment levels beyond vanilla caps.
@@ -16,28 +27,188 @@ import java.util.Map;
  * vanilla maximum levels.
  *
  * Format: Map of enchantment ResourceLocation -> effective level (int)
+ *
+ * Levels are held as two parallel arrays sorted by id, since items rarely carry more than
+ * a handful of entries; lookups are a binary search without boxing. The persistent codec still
+ * reads and writes the original map layout by name.
+ *
+ * Instances are interned: every decode and {@link #withLevel} goes through the interner, so all
+ * items carrying the same levels share one instance and component equality is usually an
+ * identity check. The interner holds instances weakly, so unused ones are still collected.
  */
-public record EffectiveLevelsComponent(Map<ResourceLocation, Integer> levels) {
-
-    public static final EffectiveLevelsComponent EMPTY = new EffectiveLevelsComponent(Map.of());
-
-    public static final Codec<EffectiveLevelsComponent> CODEC = RecordCodecBuilder.create(instance ->
-            instance.group(
-                    Codec.unboundedMap(ResourceLocation.CODEC, Codec.INT)
-                            .fieldOf("levels")
-                            .forGetter(EffectiveLevelsComponent::levels)
-            ).apply(instance, EffectiveLevelsComponent::new)
-    );
-
-    public static final StreamCodec<ByteBuf, EffectiveLevelsComponent> STREAM_CODEC = StreamCodec.composite(
-            ByteBufCodecs.map(
-                    HashMap::new,
-                    ResourceLocation.STREAM_CODEC,
-                    ByteBufCodecs.VAR_INT
-            ),
-            EffectiveLevelsComponent::levels,
-            EffectiveLevelsComponent::new
-    );
+public final class EffectiveLevelsComponent {
+    private static final Interner<EffectiveLevelsComponent> INTERNER = Interners.newWeakInterner();
+    private static final ResourceLocation[] NO_IDS = new ResourceLocation[0];
+    private static final int[] NO_LEVELS = new int[0];
+
+    public static final EffectiveLevelsComponent EMPTY = INTERNER.intern(new EffectiveLevelsComponent(NO_IDS, NO_LEVELS));
+
+    public static final Codec<EffectiveLevelsComponent> CODEC = Codec.unboundedMap(ResourceLocation.CODEC, Codec.INT)
+            .fieldOf("levels")
+            .xmap(EffectiveLevelsComponent::of, EffectiveLevelsComponent::levels)
+            .codec();
+
+    /**
+     * Network codec. Registered enchantments are written as their registry network id (plus one),
+     * like vanilla {@code ItemEnchantments}; anything else as 0 followed by the full id.
+     * This is sent with every ItemStack, so names would dominate the payload of enchanted gear.
+     */
+    public static final StreamCodec<RegistryFriendlyByteBuf, EffectiveLevelsComponent> STREAM_CODEC = new StreamCodec<>() {
+        @Override
+        public EffectiveLevelsComponent decode(RegistryFriendlyByteBuf buf) {
+            int size = VarInt.read(buf);
+            if (size == 0) {
+                return EMPTY;
+            }
+            Registry<Enchantment> registry = EnchantRegistryUtil.getRegistry(buf.registryAccess());
+            ResourceLocation[] ids = new ResourceLocation[size];
+            int[] levels = new int[size];
+            for (int i = 0; i < size; i++) {
+                int networkId = VarInt.read(buf) - 1;
+                if (networkId >= 0) {
+                    ids[i] = registry.getHolder(networkId)
+                            .orElseThrow(() -> new DecoderException("Unknown enchantment network id " + networkId))
+                            .key().location();
+                } else {
+                    ids[i] = EnchantIdPool.canonical(ResourceLocation.STREAM_CODEC.decode(buf));
+                }
+                levels[i] = VarInt.read(buf);
+            }
+            return sortedOf(ids, levels);
+        }
+
+        @Override
+        public void encode(RegistryFriendlyByteBuf buf, EffectiveLevelsComponent component) {
+            VarInt.write(buf, component.ids.length);
+            if (component.ids.length == 0) {
+                return;
+            }
+            Registry<Enchantment> registry = EnchantRegistryUtil.getRegistry(buf.registryAccess());
+            for (int i = 0; i < component.ids.length; i++) {
+                Enchantment enchantment = registry.get(component.ids[i]);
+                if (enchantment != null) {
+                    VarInt.write(buf, registry.getId(enchantment) + 1);
+                } else {
+                    VarInt.write(buf, 0);
+                    ResourceLocation.STREAM_CODEC.encode(buf, component.ids[i]);
+                }
+                VarInt.write(buf, component.levels[i]);
+            }
+        }
+    };
+
+    /** Upper bound on holders remembered by {@link #getLevel(Holder)}, e.g. client and server holders in singleplayer. */
+    private static final int MAX_RESOLVED = 64;
+
+    // Bumped on registry reload; holders remembered under an older generation are dropped on next use
+    private static volatile int generation = 0;
+
+    // Sorted by id, no duplicates
+    private final ResourceLocation[] ids;
+    private final int[] levels;
+    private final int hash;
+
+    // Holders already looked up through getLevel(Holder), shared by every stack carrying this instance
+    private volatile Resolved resolved = Resolved.NONE;
+
+    private record Resolved(int generation, Holder<?>[] holders, int[] levels) {
+        static final Resolved NONE = new Resolved(0, new Holder<?>[0], NO_LEVELS);
+    }
+
+    private EffectiveLevelsComponent(ResourceLocation[] ids, int[] levels) {
+        this.ids = ids;
+        this.levels = levels;
+        this.hash = 31 * Arrays.hashCode(ids) + Arrays.hashCode(levels);
+    }
+
+    /**
+     * Gets the shared component for the given levels.
+     */
+    public static EffectiveLevelsComponent of(Map<ResourceLocation, Integer> levels) {
+        if (levels.isEmpty()) {
+            return EMPTY;
+        }
+        ResourceLocation[] ids = new ResourceLocation[levels.size()];
+        int[] values = new int[levels.size()];
+        int i = 0;
+        for (var entry : levels.entrySet()) {
+            ids[i] = EnchantIdPool.canonical(entry.getKey());
+            values[i] = entry.getValue();
+            i++;
+        }
+        return sortedOf(ids, values);
+    }
+
+    /**
+     * Sorts the arrays by id (insertion sort, they're tiny), drops duplicate ids and interns the result.
+     */
+    private static EffectiveLevelsComponent sortedOf(ResourceLocation[] ids, int[] levels) {
+        int size = 0;
+        for (int i = 0; i < ids.length; i++) {
+            ResourceLocation id = ids[i];
+            int level = levels[i];
+            int j = size - 1;
+            while (j >= 0 && ids[j].compareTo(id) > 0) {
+                j--;
+            }
+            if (j >= 0 && ids[j].equals(id)) {
+                // Later entries win, like a map put
+                levels[j] = level;
+                continue;
+            }
+            System.arraycopy(ids, j + 1, ids, j + 2, size - j - 1);
+            System.arraycopy(levels, j + 1, levels, j + 2, size - j - 1);
+            ids[j + 1] = id;
+            levels[j + 1] = level;
+            size++;
+        }
+        if (size < ids.length) {
+            ids = Arrays.copyOf(ids, size);
+            levels = Arrays.copyOf(levels, size);
+        }
+        return intern(new EffectiveLevelsComponent(ids, levels));
+    }
+
+    private static EffectiveLevelsComponent intern(EffectiveLevelsComponent candidate) {
+        EffectiveLevelsComponent interned = INTERNER.intern(candidate);
+        if (interned != candidate) {
+            MasteryMetrics.LEVELS_INTERNER.hit();
+        } else {
+            MasteryMetrics.LEVELS_INTERNER.miss();
+        }
+        return interned;
+    }
+
+    private int indexOf(ResourceLocation enchantId) {
+        return Arrays.binarySearch(ids, enchantId);
+    }
+
+    /**
+     * Gets the stored levels as a map. Allocates; prefer {@link #forEach} or {@link #getLevel}.
+     */
+    public Map<ResourceLocation, Integer> levels() {
+        Map<ResourceLocation, Integer> map = new LinkedHashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            map.put(ids[i], levels[i]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Calls the action for each stored enchantment and level, in id order.
+     */
+    public void forEach(ObjIntConsumer<ResourceLocation> action) {
+        for (int i = 0; i < ids.length; i++) {
+            action.accept(ids[i], levels[i]);
+        }
+    }
+
+    /**
+     * Gets the number of stored levels.
+     */
+    public int size() {
+        return ids.length;
+    }
 
     /**
      * Gets the effective level for an enchantment.
@@ -46,14 +217,63 @@ public record EffectiveLevelsComponent(Map<ResourceLocation, Integer> levels) {
      * @return The effective level, or 0 if not present
      */
     public int getLevel(ResourceLocation enchantId) {
-        return levels.getOrDefault(enchantId, 0);
+        int index = indexOf(enchantId);
+        return index >= 0 ? levels[index] : 0;
+    }
+
+    /**
+     * Gets the effective level for an enchantment holder.
+     * This is on the enchantment effect path (every hit, armor tick and block break), so holders
+     * are remembered after their first lookup and later calls are an identity scan over a few entries.
+     *
+     * @return The effective level, or 0 if not present
+     */
+    public int getLevel(Holder<Enchantment> enchantment) {
+        Resolved current = resolved;
+        if (current.generation != generation) {
+            // Holders of a previous registry would never match again and keep it reachable
+            current = new Resolved(generation, Resolved.NONE.holders, NO_LEVELS);
+            resolved = current;
+        }
+        Holder<?>[] holders = current.holders;
+        for (int i = 0; i < holders.length; i++) {
+            if (holders[i] == enchantment) {
+                return current.levels[i];
+            }
+        }
+        return resolve(enchantment, current);
+    }
+
+    private int resolve(Holder<Enchantment> enchantment, Resolved current) {
+        MasteryMetrics.LEVELS_HOLDER_RESOLVES.increment();
+        int level = enchantment.unwrapKey()
+                .map(key -> getLevel(key.location()))
+                .orElse(0);
+        int size = current.holders.length;
+        if (size < MAX_RESOLVED) {
+            // Copy-on-write; a racing lookup at worst drops the other thread's entry
+            Holder<?>[] holders = Arrays.copyOf(current.holders, size + 1);
+            int[] resolvedLevels = Arrays.copyOf(current.levels, size + 1);
+            holders[size] = enchantment;
+            resolvedLevels[size] = level;
+            resolved = new Resolved(current.generation, holders, resolvedLevels);
+        }
+        return level;
+    }
+
+    /**
+     * Forgets every holder remembered by {@link #getLevel(Holder)}. Called when registries are
+     * reloaded, since the new registry hands out new holders.
+     */
+    public static void onRegistriesReloaded() {
+        generation++;
     }
 
     /**
      * Checks if this component has a level stored for the given enchantment.
      */
     public boolean hasLevel(ResourceLocation enchantId) {
-        return levels.containsKey(enchantId) && levels.get(enchantId) > 0;
+        return getLevel(enchantId) > 0;
     }
 
     /**
@@ -64,43 +284,71 @@ public record EffectiveLevelsComponent(Map<ResourceLocation, Integer> levels) {
      * @return A new EffectiveLevelsComponent with the updated level
      */
     public EffectiveLevelsComponent withLevel(ResourceLocation enchantId, int level) {
-        Map<ResourceLocation, Integer> newLevels = new HashMap<>(levels);
         if (level <= 0) {
-            newLevels.remove(enchantId);
-        } else {
-            newLevels.put(enchantId, level);
+            return withoutLevel(enchantId);
+        }
+        int index = indexOf(enchantId);
+        if (index >= 0) {
+            if (levels[index] == level) {
+                return this;
+            }
+            int[] newLevels = levels.clone();
+            newLevels[index] = level;
+            return intern(new EffectiveLevelsComponent(ids, newLevels));
         }
-        return new EffectiveLevelsComponent(Map.copyOf(newLevels));
+        int insert = -index - 1;
+        ResourceLocation[] newIds = new ResourceLocation[ids.length + 1];
+        int[] newLevels = new int[ids.length + 1];
+        System.arraycopy(ids, 0, newIds, 0, insert);
+        System.arraycopy(levels, 0, newLevels, 0, insert);
+        newIds[insert] = EnchantIdPool.canonical(enchantId);
+        newLevels[insert] = level;
+        System.arraycopy(ids, insert, newIds, insert + 1, ids.length - insert);
+        System.arraycopy(levels, insert, newLevels, insert + 1, ids.length - insert);
+        return intern(new EffectiveLevelsComponent(newIds, newLevels));
     }
 
     /**
      * Creates a new component with a level removed.
      */
     public EffectiveLevelsComponent withoutLevel(ResourceLocation enchantId) {
-        if (!levels.containsKey(enchantId)) {
+        int index = indexOf(enchantId);
+        if (index < 0) {
             return this;
         }
-        Map<ResourceLocation, Integer> newLevels = new HashMap<>(levels);
-        newLevels.remove(enchantId);
-        return new EffectiveLevelsComponent(Map.copyOf(newLevels));
+        if (ids.length == 1) {
+            return EMPTY;
+        }
+        ResourceLocation[] newIds = new ResourceLocation[ids.length - 1];
+        int[] newLevels = new int[ids.length - 1];
+        System.arraycopy(ids, 0, newIds, 0, index);
+        System.arraycopy(levels, 0, newLevels, 0, index);
+        System.arraycopy(ids, index + 1, newIds, index, ids.length - index - 1);
+        System.arraycopy(levels, index + 1, newLevels, index, ids.length - index - 1);
+        return intern(new EffectiveLevelsComponent(newIds, newLevels));
     }
 
     /**
      * Checks if this component is empty (no levels stored).
      */
     public boolean isEmpty() {
-        return levels.isEmpty();
+        return ids.length == 0;
     }
 
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (!(obj instanceof EffectiveLevelsComponent other)) return false;
-        return levels.equals(other.levels);
+        return hash == other.hash && Arrays.equals(ids, other.ids) && Arrays.equals(levels, other.levels);
     }
 
     @Override
     public int hashCode() {
-        return levels.hashCode();
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "EffectiveLevelsComponent[levels=" + levels() + "]";
     }
 }
@@ -0,0 +1,66 @@
+package com.enchantmentmastery.data;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Contents of a book library in its saved form: per enchantment, the stored levels and their
+ * counts as two parallel int arrays. In NBT that is one compound with two int array tags per
+ * enchantment rather than one item tag per book.
+ *
+ * Used both for the block entity's NBT and, as a data component, to carry the contents on the
+ * library item when the block is broken.
+ */
+public record LibraryBooksComponent(List<Shelf> shelves) {
+    public static final LibraryBooksComponent EMPTY = new LibraryBooksComponent(List.of());
+
+    private static final Codec<int[]> INT_ARRAY_CODEC = Codec.INT_STREAM.xmap(IntStream::toArray, Arrays::stream);
+
+    public static final Codec<LibraryBooksComponent> CODEC = Shelf.CODEC.listOf()
+            .xmap(LibraryBooksComponent::new, LibraryBooksComponent::shelves);
+
+    public LibraryBooksComponent {
+        shelves = List.copyOf(shelves);
+    }
+
+    public boolean isEmpty() {
+        return shelves.isEmpty();
+    }
+
+    /**
+     * The books of one enchantment: {@code counts[i]} books at {@code levels[i]}.
+     */
+    public record Shelf(ResourceLocation enchantment, int[] levels, int[] counts) {
+        public static final Codec<Shelf> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+                ResourceLocation.CODEC.fieldOf("id").forGetter(Shelf::enchantment),
+                INT_ARRAY_CODEC.fieldOf("levels").forGetter(Shelf::levels),
+                INT_ARRAY_CODEC.fieldOf("counts").forGetter(Shelf::counts)
+        ).apply(instance, Shelf::new));
+
+        // Components are compared when stacking items, so compare the arrays by content
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Shelf other
+                    && enchantment.equals(other.enchantment)
+                    && Arrays.equals(levels, other.levels)
+                    && Arrays.equals(counts, other.counts);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * enchantment.hashCode() + Arrays.hashCode(levels)) + Arrays.hashCode(counts);
+        }
+
+        @Override
+        public String toString() {
+            return "Shelf[" + enchantment + ", levels=" + Arrays.toString(levels)
+                    + ", counts=" + Arrays.toString(counts) + "]";
+        }
+    }
+}
@@ -24,4 +24,14 @@ public class ModDataComponents {
                             .networkSynchronized(EffectiveLevelsComponent.STREAM_CODEC)
                             .build()
             );
+
+    /**
+     * Books stored in a book library, kept on the library item when the block is broken.
+     */
+    public static final RegistryObject<DataComponentType<LibraryBooksComponent>> LIBRARY_BOOKS =
+            REGISTRY.register("library_books", () ->
+                    DataComponentType.<LibraryBooksComponent>builder()
+                            .persistent(LibraryBooksComponent.CODEC)
+                            .build()
+            );
 }
@@ -0,0 +1,148 @@
+package com.enchantmentmastery.gametest;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.capability.MasterySerializer;
+import com.enchantmentmastery.capability.MasterySnapshot;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the server-thread cost of saving mastery data for a full server,
+ * comparing the original tree serialization against attaching bytes encoded in the background.
+ * Both paths include writing the resulting tag, as the player data save would.
+ *
+ * Every measurement starts from freshly mutated data, so no snapshot is cached. The snapshot
+ * taken on the server thread is timed on its own: for the tree path before the tag is built,
+ * for the background path as the tick-end flush that snapshots and submits the encodes.
+ */
+public class AutosaveBenchmark {
+    private static final int ROUNDS = 5;
+
+    private final GameTestHelper helper;
+    private final int playerCount;
+    private final int entries;
+    private final List<ServerPlayer> players = new ArrayList<>();
+    private final DataOutputStream sink = new DataOutputStream(OutputStream.nullOutputStream());
+
+    private final LoadStats treeSnapshotNanos = new LoadStats(ROUNDS);
+    private final LoadStats treeWriteNanos = new LoadStats(ROUNDS);
+    private final LoadStats flushNanos = new LoadStats(ROUNDS);
+    private final LoadStats packedSaveNanos = new LoadStats(ROUNDS);
+    private int round = 0;
+
+    public AutosaveBenchmark(GameTestHelper helper) {
+        this.helper = helper;
+        this.playerCount = Integer.getInteger("enchantmentmastery.loadtest.savePlayers", 150);
+        this.entries = Integer.getInteger("enchantmentmastery.loadtest.masteryEntries", 60);
+    }
+
+    public void setUp() {
+        for (int i = 0; i < playerCount; i++) {
+            ServerPlayer player = helper.makeMockServerPlayerInLevel();
+            var data = MasteryDataHelper.getData(player);
+            for (int e = 0; e < entries; e++) {
+                ResourceLocation id = ResourceLocation.fromNamespaceAndPath(EnchantmentMastery.MOD_ID, "autosave_" + e);
+                data.setMasteryLevel(id, 1 + e % 7);
+                data.setMasteryXp(id, e * 3);
+                data.setUnlockedLetterIndices(id, new int[]{0, 2, 4});
+            }
+            players.add(player);
+        }
+    }
+
+    /**
+     * Mutates every player and measures the original tree path, snapshot and write separately.
+     * Then mutates again and measures the flush that snapshots the data and submits the
+     * background encodes, which otherwise runs at the end of this tick.
+     */
+    public void mutateAndMeasureTree() {
+        mutate();
+        List<MasterySnapshot> snapshots = new ArrayList<>(players.size());
+        long start = System.nanoTime();
+        for (ServerPlayer player : players) {
+            snapshots.add(data(player).snapshot());
+        }
+        treeSnapshotNanos.record(System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (MasterySnapshot snapshot : snapshots) {
+            write(snapshot.toNbt());
+        }
+        treeWriteNanos.record(System.nanoTime() - start);
+
+        mutate();
+        start = System.nanoTime();
+        MasterySerializer.flush();
+        flushNanos.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Measures the save path once background encodes have completed.
+     */
+    public void measurePacked() {
+        long start = System.nanoTime();
+        for (ServerPlayer player : players) {
+            write(data(player).serializeNBT());
+        }
+        packedSaveNanos.record(System.nanoTime() - start);
+        round++;
+    }
+
+    private void mutate() {
+        for (ServerPlayer player : players) {
+            data(player).addLevelsSpent(1);
+        }
+    }
+
+    private static MasteryCapability.PlayerMasteryData data(ServerPlayer player) {
+        return (MasteryCapability.PlayerMasteryData) MasteryDataHelper.getData(player);
+    }
+
+    public boolean done() {
+        return round >= ROUNDS;
+    }
+
+    private void write(CompoundTag tag) {
+        try {
+            NbtIo.write(tag, sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void report() {
+        EnchantmentMastery.LOGGER.info("==== Mastery autosave benchmark ====");
+        EnchantmentMastery.LOGGER.info("players={} entries={} rounds={}", playerCount, entries, treeSnapshotNanos.count());
+        EnchantmentMastery.LOGGER.info("tree serialization: snapshot {}, tag + write {}",
+                format(treeSnapshotNanos), format(treeWriteNanos));
+        EnchantmentMastery.LOGGER.info("background-encoded: tick-end flush {}, save {}",
+                format(flushNanos), format(packedSaveNanos));
+        EnchantmentMastery.LOGGER.info("server-thread total per save: tree mean={}ms, background-encoded mean={}ms",
+                String.format("%.3f", (treeSnapshotNanos.mean() + treeWriteNanos.mean()) / 1_000_000.0),
+                String.format("%.3f", (flushNanos.mean() + packedSaveNanos.mean()) / 1_000_000.0));
+    }
+
+    private static String format(LoadStats stats) {
+        return String.format("mean=%.3fms max=%.3fms", stats.mean() / 1_000_000.0, stats.max() / 1_000_000.0);
+    }
+
+    public void tearDown() {
+        var playerList = helper.getLevel().getServer().getPlayerList();
+        for (ServerPlayer player : players) {
+            playerList.remove(player);
+        }
+        players.clear();
+    }
+}
@@ -0,0 +1,88 @@
+package com.enchantmentmastery.gametest;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.util.EnchantComponentUtil;
+import com.enchantmentmastery.util.EnchantRegistryUtil;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.damagesource.DamageSource;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.monster.Zombie;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.enchantment.Enchantment;
+import net.minecraft.world.item.enchantment.EnchantmentHelper;
+import net.minecraft.world.item.enchantment.Enchantments;
+
+/**
+ * Measures the hooked melee damage calculation ({@link EnchantmentHelper#modifyDamage}) for a
+ * sword at the vanilla cap, and for one over the cap that goes through the effective level hook.
+ * Also checks that the over-cap sword actually hits harder.
+ */
+public class EffectiveDamageBenchmark {
+    private static final int OVER_CAP_LEVEL = 15;
+    private static final float BASE_DAMAGE = 1.0f;
+
+    private final GameTestHelper helper;
+    private final int iterations;
+    // Keeps the JIT from dropping the measured calls
+    private float blackhole;
+
+    public EffectiveDamageBenchmark(GameTestHelper helper) {
+        this.helper = helper;
+        this.iterations = Integer.getInteger("enchantmentmastery.loadtest.damageIterations", 1_000_000);
+    }
+
+    public void run() {
+        ServerLevel level = helper.getLevel();
+        ServerPlayer attacker = helper.makeMockServerPlayerInLevel();
+        Zombie target = helper.spawnWithNoFreeWill(EntityType.ZOMBIE, BlockPos.ZERO.above());
+        DamageSource source = level.damageSources().playerAttack(attacker);
+
+        Holder<Enchantment> sharpness = EnchantRegistryUtil.getEnchantment(level.registryAccess(),
+                        Enchantments.SHARPNESS.location())
+                .orElseThrow(() -> new IllegalStateException("Sharpness is not registered"));
+
+        ItemStack capped = new ItemStack(Items.DIAMOND_SWORD);
+        EnchantComponentUtil.applyEnchantmentWithEffectiveLevel(capped, sharpness, sharpness.value().getMaxLevel());
+        ItemStack overCap = new ItemStack(Items.DIAMOND_SWORD);
+        EnchantComponentUtil.applyEnchantmentWithEffectiveLevel(overCap, sharpness, OVER_CAP_LEVEL);
+
+        float cappedDamage = EnchantmentHelper.modifyDamage(level, capped, target, source, BASE_DAMAGE);
+        float overCapDamage = EnchantmentHelper.modifyDamage(level, overCap, target, source, BASE_DAMAGE);
+        if (overCapDamage <= cappedDamage) {
+            helper.fail("Sharpness " + OVER_CAP_LEVEL + " dealt " + overCapDamage
+                    + ", not more than the capped " + cappedDamage);
+        }
+
+        // Warm up both paths before timing
+        measure(level, capped, target, source);
+        measure(level, overCap, target, source);
+        long cappedNanos = measure(level, capped, target, source);
+        long overCapNanos = measure(level, overCap, target, source);
+
+        EnchantmentMastery.LOGGER.info("==== Effective level damage benchmark ====");
+        EnchantmentMastery.LOGGER.info("damage: sharpness {}={} sharpness {} (effective)={}",
+                sharpness.value().getMaxLevel(), cappedDamage, OVER_CAP_LEVEL, overCapDamage);
+        EnchantmentMastery.LOGGER.info("modifyDamage over {} calls: capped={}ns/call over-cap={}ns/call",
+                iterations, String.format("%.1f", (double) cappedNanos / iterations),
+                String.format("%.1f", (double) overCapNanos / iterations));
+
+        target.discard();
+        level.getServer().getPlayerList().remove(attacker);
+    }
+
+    private long measure(ServerLevel level, ItemStack weapon, Zombie target, DamageSource source) {
+        float sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += EnchantmentHelper.modifyDamage(level, weapon, target, source, BASE_DAMAGE);
+        }
+        long elapsed = System.nanoTime() - start;
+        blackhole += sink;
+        return elapsed;
+    }
+}
@@ -0,0 +1,247 @@
+package com.enchantmentmastery.gametest;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.util.EnchantPlanner;
+import com.enchantmentmastery.util.EnchantRegistryUtil;
+import com.enchantmentmastery.util.ProgressionMath;
+import com.mojang.serialization.Lifecycle;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderSet;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.EquipmentSlotGroup;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.enchantment.Enchantment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times the enchant planner on a sword plan where every target is above the player's mastery,
+ * on a twenty-target plan, and on twenty candidates' worth of training searches. Fails if a
+ * twenty-target plan takes more than {@link #PLAN_BUDGET_NANOS} on average. Also replays both
+ * plans to check that every step is allowed by the mastery reached at that point, and checks the
+ * planner's costs against an exhaustive search on small cases.
+ *
+ * No vanilla item takes twenty compatible enchantments, so the twenty-target plan runs against
+ * a standalone registry of sword enchantments that never reaches the game.
+ */
+public class EnchantPlannerBenchmark {
+    private static final int CANDIDATES = 20;
+    private static final int PLAN_TARGETS = 20;
+    private static final long PLAN_BUDGET_NANOS = 1_000_000;
+    private static final int START_MASTERY = 2;
+    private static final int LEVELS_ABOVE_MASTERY = 4;
+    // Small enough for the exhaustive search: starting mastery 1..4, up to 3 levels above it
+    private static final int BRUTE_FORCE_MAX_START = 4;
+    private static final int BRUTE_FORCE_MAX_GAIN = 3;
+    private static final int[] BRUTE_FORCE_START_XP = {0, 7};
+
+    private final GameTestHelper helper;
+    private final int iterations;
+    private long blackhole;
+
+    public EnchantPlannerBenchmark(GameTestHelper helper) {
+        this.helper = helper;
+        this.iterations = Integer.getInteger("enchantmentmastery.loadtest.planIterations", 10_000);
+    }
+
+    public void run() {
+        ItemStack sword = new ItemStack(Items.DIAMOND_SWORD);
+        Registry<Enchantment> registry = EnchantRegistryUtil.getRegistry(helper.getLevel().registryAccess());
+
+        // Every sword enchantment that is compatible with the ones picked before it
+        List<Holder<Enchantment>> picked = new ArrayList<>();
+        List<EnchantPlanner.Target> targets = new ArrayList<>();
+        MasteryCapability.PlayerMasteryData mastery = new MasteryCapability.PlayerMasteryData();
+        for (Holder<Enchantment> holder : registry.holders().toList()) {
+            if (!EnchantRegistryUtil.canEnchantItem(sword, holder)
+                    || picked.stream().anyMatch(other -> EnchantRegistryUtil.areIncompatible(holder, other))) {
+                continue;
+            }
+            ResourceLocation id = holder.unwrapKey().orElseThrow().location();
+            picked.add(holder);
+            targets.add(new EnchantPlanner.Target(id, START_MASTERY + LEVELS_ABOVE_MASTERY));
+            mastery.setMasteryLevel(id, START_MASTERY);
+        }
+
+        RegistryAccess registryAccess = helper.getLevel().registryAccess();
+        EnchantPlanner.Plan plan = EnchantPlanner.plan(registryAccess, sword, targets, mastery, Integer.MAX_VALUE);
+        if (!plan.feasible()) {
+            helper.fail("Sword plan was infeasible: " + plan.failure().getString());
+        }
+        checkReplay(plan, targets);
+        checkOptimal(plan, targets);
+
+        RegistryAccess wideAccess = wideRegistry();
+        List<EnchantPlanner.Target> wideTargets = new ArrayList<>();
+        MasteryCapability.PlayerMasteryData wideMastery = new MasteryCapability.PlayerMasteryData();
+        for (ResourceLocation id : EnchantRegistryUtil.getRegistry(wideAccess).keySet()) {
+            wideTargets.add(new EnchantPlanner.Target(id, START_MASTERY + LEVELS_ABOVE_MASTERY));
+            wideMastery.setMasteryLevel(id, START_MASTERY);
+        }
+        EnchantPlanner.Plan widePlan = EnchantPlanner.plan(wideAccess, sword, wideTargets, wideMastery, Integer.MAX_VALUE);
+        if (!widePlan.feasible()) {
+            helper.fail(PLAN_TARGETS + "-target plan was infeasible: " + widePlan.failure().getString());
+        }
+        checkReplay(widePlan, wideTargets);
+
+        // Warm up, then time each case
+        measurePlans(registryAccess, sword, targets, mastery);
+        measurePlans(wideAccess, sword, wideTargets, wideMastery);
+        measureTraining();
+        long planNanos = measurePlans(registryAccess, sword, targets, mastery);
+        long widePlanNanos = measurePlans(wideAccess, sword, wideTargets, wideMastery);
+        long trainingNanos = measureTraining();
+
+        EnchantmentMastery.LOGGER.info("==== Enchant planner benchmark ====");
+        EnchantmentMastery.LOGGER.info("sword plan: targets={} steps={} cost={} levels, {}us/plan",
+                targets.size(), plan.steps().size(), plan.totalCost(),
+                String.format("%.1f", planNanos / 1000.0 / iterations));
+        EnchantmentMastery.LOGGER.info("wide plan: targets={} steps={} cost={} levels, {}us/plan",
+                wideTargets.size(), widePlan.steps().size(), widePlan.totalCost(),
+                String.format("%.1f", widePlanNanos / 1000.0 / iterations));
+        EnchantmentMastery.LOGGER.info("{} training searches (mastery {} -> {}): {}us per set",
+                CANDIDATES, START_MASTERY, START_MASTERY + LEVELS_ABOVE_MASTERY,
+                String.format("%.1f", trainingNanos / 1000.0 / iterations));
+
+        if (widePlanNanos / iterations > PLAN_BUDGET_NANOS) {
+            helper.fail(String.format("%d-target plan took %.1fus, over the %dus budget", PLAN_TARGETS,
+                    widePlanNanos / 1000.0 / iterations, PLAN_BUDGET_NANOS / 1000));
+        }
+    }
+
+    /**
+     * A frozen registry access holding only {@link #PLAN_TARGETS} mutually compatible sword enchantments.
+     */
+    private static RegistryAccess wideRegistry() {
+        MappedRegistry<Enchantment> registry = new MappedRegistry<>(Registries.ENCHANTMENT, Lifecycle.stable());
+        HolderSet<Item> swords = HolderSet.direct(Items.DIAMOND_SWORD.builtInRegistryHolder());
+        for (int i = 0; i < PLAN_TARGETS; i++) {
+            ResourceLocation id = ResourceLocation.fromNamespaceAndPath(EnchantmentMastery.MOD_ID, "planner_" + i);
+            Registry.register(registry, id, Enchantment.enchantment(Enchantment.definition(swords, 1, 255,
+                    Enchantment.dynamicCost(1, 10), Enchantment.dynamicCost(51, 10), 1, EquipmentSlotGroup.MAINHAND))
+                    .build(id));
+        }
+        registry.freeze();
+        return new RegistryAccess.ImmutableRegistryAccess(List.of(registry)).freeze();
+    }
+
+    /**
+     * Steps through the plan, tracking mastery the way applying does.
+     */
+    private void checkReplay(EnchantPlanner.Plan plan, List<EnchantPlanner.Target> targets) {
+        Map<ResourceLocation, int[]> state = new HashMap<>();
+        int totalCost = 0;
+        for (EnchantPlanner.Step step : plan.steps()) {
+            int[] masteryState = state.computeIfAbsent(step.enchantId(), id -> new int[]{START_MASTERY, 0});
+            if (step.level() > masteryState[0]) {
+                helper.fail("Step " + step + " is above the mastery reached (" + masteryState[0] + ")");
+            }
+            int cost = ProgressionMath.applyCostLevels(step.level());
+            ProgressionMath.processXpGain(masteryState[0], masteryState[1],
+                    ProgressionMath.masteryXpGainFromApplyCost(cost), masteryState);
+            totalCost += cost;
+        }
+        for (EnchantPlanner.Target target : targets) {
+            boolean applied = plan.steps().stream().anyMatch(step -> !step.training()
+                    && step.enchantId().equals(target.enchantId()) && step.level() == target.level());
+            if (!applied) {
+                helper.fail("Plan never applies " + target);
+            }
+        }
+        if (totalCost != plan.totalCost()) {
+            helper.fail("Plan reports " + plan.totalCost() + " levels but its steps cost " + totalCost);
+        }
+    }
+
+    /**
+     * Checks the training search against an exhaustive search over every application sequence on
+     * small cases, and the sword plan's total against the sum of the exhaustive minimums.
+     */
+    private void checkOptimal(EnchantPlanner.Plan plan, List<EnchantPlanner.Target> targets) {
+        for (int start = 1; start <= BRUTE_FORCE_MAX_START; start++) {
+            for (int xp : BRUTE_FORCE_START_XP) {
+                for (int goal = start + 1; goal <= start + BRUTE_FORCE_MAX_GAIN; goal++) {
+                    int planned = 0;
+                    for (int level : EnchantPlanner.planTraining(start, xp, goal)) {
+                        planned += ProgressionMath.applyCostLevels(level);
+                    }
+                    int minimum = bruteForceTraining(start, xp, goal);
+                    if (planned != minimum) {
+                        helper.fail(String.format("Training %d (%d xp) -> %d costs %d levels, the minimum is %d",
+                                start, xp, goal, planned, minimum));
+                    }
+                }
+            }
+        }
+
+        int goal = START_MASTERY + LEVELS_ABOVE_MASTERY;
+        int minimum = targets.size() * (bruteForceTraining(START_MASTERY, 0, goal) + ProgressionMath.applyCostLevels(goal));
+        if (plan.totalCost() != minimum) {
+            helper.fail("Sword plan costs " + plan.totalCost() + " levels, the minimum is " + minimum);
+        }
+    }
+
+    /**
+     * The cheapest cost of raising mastery from (level, xp) to the goal, trying every application
+     * sequence. Only sequences that reach a state more cheaply than before are followed further.
+     */
+    private static int bruteForceTraining(int level, int xp, int goal) {
+        int[] best = {Integer.MAX_VALUE};
+        bruteForce(level, xp, goal, 0, best, new HashMap<>());
+        return best[0];
+    }
+
+    private static void bruteForce(int level, int xp, int goal, int spent, int[] best, Map<Long, Integer> reached) {
+        if (spent >= best[0]) {
+            return;
+        }
+        if (level >= goal) {
+            best[0] = spent;
+            return;
+        }
+        long state = ((long) level << 32) | xp;
+        Integer previous = reached.get(state);
+        if (previous != null && previous <= spent) {
+            return;
+        }
+        reached.put(state, spent);
+        int[] next = new int[2];
+        for (int apply = 1; apply <= level; apply++) {
+            int cost = ProgressionMath.applyCostLevels(apply);
+            ProgressionMath.processXpGain(level, xp, ProgressionMath.masteryXpGainFromApplyCost(cost), next);
+            bruteForce(next[0], next[1], goal, spent + cost, best, reached);
+        }
+    }
+
+    private long measurePlans(RegistryAccess registryAccess, ItemStack sword, List<EnchantPlanner.Target> targets,
+                              MasteryCapability.IPlayerMasteryData mastery) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += EnchantPlanner.plan(registryAccess, sword, targets, mastery, Integer.MAX_VALUE).totalCost();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long measureTraining() {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (int candidate = 0; candidate < CANDIDATES; candidate++) {
+                // Vary the starting XP so the searches don't all take the same path
+                blackhole += EnchantPlanner.planTraining(START_MASTERY, candidate,
+                        START_MASTERY + LEVELS_ABOVE_MASTERY).size();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
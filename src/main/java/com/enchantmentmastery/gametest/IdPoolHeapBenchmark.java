@@ -0,0 +1,117 @@
+package com.enchantmentmastery.gametest;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasterySerializer;
+import com.enchantmentmastery.capability.MasterySnapshot;
+import com.enchantmentmastery.util.EnchantIdPool;
+import com.enchantmentmastery.util.EnchantRegistryUtil;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measures the heap retained by a server's worth of decoded mastery data
+ * with and without the enchantment id pool.
+ * Each player's saved bytes are decoded the way a login does and kept alive, then the
+ * retained heap is sampled after a GC and the distinct id instances are counted.
+ * The unpooled baseline re-keys the decoded maps with freshly parsed ids, which is what a
+ * decode did before the pool existed; the pool itself has no off switch.
+ */
+public class IdPoolHeapBenchmark {
+    private final GameTestHelper helper;
+    private final int playerCount;
+    private final int entries;
+
+    public IdPoolHeapBenchmark(GameTestHelper helper) {
+        this.helper = helper;
+        this.playerCount = Integer.getInteger("enchantmentmastery.loadtest.heapPlayers", 150);
+        this.entries = Integer.getInteger("enchantmentmastery.loadtest.masteryEntries", 60);
+    }
+
+    public void run() {
+        List<byte[]> saved = buildSavedData();
+
+        Result without = measure(saved, true);
+        Result with = measure(saved, false);
+
+        EnchantmentMastery.LOGGER.info("==== Enchantment id pool heap benchmark ====");
+        EnchantmentMastery.LOGGER.info("players={} entries={} pooled ids={}", playerCount, entries, EnchantIdPool.size());
+        EnchantmentMastery.LOGGER.info("without pool: retained={}KB distinct id instances={}",
+                without.retainedBytes / 1024, without.distinctIds);
+        EnchantmentMastery.LOGGER.info("with pool:    retained={}KB distinct id instances={}",
+                with.retainedBytes / 1024, with.distinctIds);
+
+        if (with.distinctIds > without.distinctIds) {
+            helper.fail("Pooling produced more id instances (" + with.distinctIds + ") than parsing ("
+                    + without.distinctIds + ")");
+        }
+    }
+
+    private List<byte[]> buildSavedData() {
+        List<ResourceLocation> ids = new ArrayList<>(
+                EnchantRegistryUtil.getRegistry(helper.getLevel().registryAccess()).keySet());
+        for (int i = ids.size(); i < entries; i++) {
+            ids.add(ResourceLocation.fromNamespaceAndPath(EnchantmentMastery.MOD_ID, "heap_" + i));
+        }
+
+        List<byte[]> saved = new ArrayList<>(playerCount);
+        for (int p = 0; p < playerCount; p++) {
+            Map<ResourceLocation, Integer> levels = new HashMap<>();
+            Map<ResourceLocation, Integer> xp = new HashMap<>();
+            Map<ResourceLocation, int[]> letters = new HashMap<>();
+            for (int e = 0; e < entries; e++) {
+                ResourceLocation id = ids.get((p + e) % ids.size());
+                levels.put(id, 1 + e % 7);
+                xp.put(id, e * 3);
+                letters.put(id, new int[]{0, 2, 4});
+            }
+            saved.add(MasterySerializer.encode(new MasterySnapshot(0, levels, xp, letters, p)));
+        }
+        return saved;
+    }
+
+    private Result measure(List<byte[]> saved, boolean reparse) {
+        long before = usedHeapAfterGc();
+        List<MasterySnapshot> loaded = new ArrayList<>(saved.size());
+        for (byte[] bytes : saved) {
+            MasterySnapshot snapshot = MasterySnapshot.fromBytes(bytes);
+            if (reparse) {
+                snapshot = new MasterySnapshot(snapshot.version(), reparse(snapshot.levels()),
+                        reparse(snapshot.xp()), reparse(snapshot.letters()), snapshot.totalLevelsSpent());
+            }
+            loaded.add(snapshot);
+        }
+        long after = usedHeapAfterGc();
+
+        Set<ResourceLocation> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (MasterySnapshot snapshot : loaded) {
+            distinct.addAll(snapshot.levels().keySet());
+            distinct.addAll(snapshot.xp().keySet());
+            distinct.addAll(snapshot.letters().keySet());
+        }
+        return new Result(Math.max(0, after - before), distinct.size());
+    }
+
+    private static <V> Map<ResourceLocation, V> reparse(Map<ResourceLocation, V> pooled) {
+        Map<ResourceLocation, V> parsed = new HashMap<>(pooled.size());
+        pooled.forEach((id, value) -> parsed.put(ResourceLocation.parse(id.toString()), value));
+        return parsed;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private record Result(long retainedBytes, int distinctIds) {}
+}
@@ -0,0 +1,115 @@
+package com.enchantmentmastery.gametest;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.data.EffectiveLevelsComponent;
+import com.enchantmentmastery.data.ModDataComponents;
+import com.enchantmentmastery.util.EnchantComponentUtil;
+import com.enchantmentmastery.util.EnchantRegistryUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.core.Holder;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.enchantment.Enchantment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the bytes a full inventory of over-cap gear costs on the wire, comparing the
+ * effective levels component keyed by registry id against the former name-keyed layout.
+ */
+public class InventorySyncBenchmark {
+    /** Main inventory, armor and offhand. */
+    private static final int SLOTS = 41;
+    private static final int OVER_CAP = 5;
+
+    /** The component's stream codec before it switched to registry ids. */
+    private static final StreamCodec<ByteBuf, Map<ResourceLocation, Integer>> NAME_KEYED =
+            ByteBufCodecs.map(HashMap::new, ResourceLocation.STREAM_CODEC, ByteBufCodecs.VAR_INT);
+
+    private final GameTestHelper helper;
+
+    public InventorySyncBenchmark(GameTestHelper helper) {
+        this.helper = helper;
+    }
+
+    public void run() {
+        List<ItemStack> inventory = buildInventory();
+        RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.buffer(),
+                helper.getLevel().registryAccess());
+
+        int stacks = 0;
+        int componentBytes = 0;
+        int nameKeyedBytes = 0;
+        for (ItemStack stack : inventory) {
+            stacks += encodedSize(buf, () -> ItemStack.OPTIONAL_STREAM_CODEC.encode(buf, stack));
+
+            EffectiveLevelsComponent component = stack.get(ModDataComponents.EFFECTIVE_LEVELS.get());
+            if (component == null) {
+                continue;
+            }
+            componentBytes += encodedSize(buf, () -> EffectiveLevelsComponent.STREAM_CODEC.encode(buf, component));
+            nameKeyedBytes += encodedSize(buf, () -> NAME_KEYED.encode(buf, component.levels()));
+
+            buf.clear();
+            EffectiveLevelsComponent.STREAM_CODEC.encode(buf, component);
+            if (EffectiveLevelsComponent.STREAM_CODEC.decode(buf) != component) {
+                helper.fail("Effective levels didn't round-trip to the same instance: " + component);
+            }
+        }
+        buf.release();
+
+        int saved = nameKeyedBytes - componentBytes;
+        EnchantmentMastery.LOGGER.info("==== Inventory sync bandwidth ====");
+        EnchantmentMastery.LOGGER.info("slots={} item stack bytes={} (with registry-id effective levels)",
+                inventory.size(), stacks);
+        EnchantmentMastery.LOGGER.info("effective levels bytes: name-keyed={} registry-id={} saved={} ({}% of the stacks)",
+                nameKeyedBytes, componentBytes, saved,
+                String.format("%.1f", 100.0 * saved / (stacks + saved)));
+    }
+
+    private static int encodedSize(RegistryFriendlyByteBuf buf, Runnable encode) {
+        buf.clear();
+        encode.run();
+        return buf.writerIndex();
+    }
+
+    /**
+     * Builds swords, tools and armor carrying every compatible enchantment a few levels over its cap.
+     */
+    private List<ItemStack> buildInventory() {
+        List<Holder.Reference<Enchantment>> enchantments = EnchantRegistryUtil
+                .getRegistry(helper.getLevel().registryAccess()).holders().toList();
+        ItemStack[] templates = {
+                new ItemStack(Items.NETHERITE_SWORD), new ItemStack(Items.NETHERITE_PICKAXE),
+                new ItemStack(Items.NETHERITE_HELMET), new ItemStack(Items.NETHERITE_CHESTPLATE),
+                new ItemStack(Items.NETHERITE_LEGGINGS), new ItemStack(Items.NETHERITE_BOOTS),
+                new ItemStack(Items.BOW), new ItemStack(Items.TRIDENT)
+        };
+
+        List<ItemStack> gear = new ArrayList<>(templates.length);
+        for (ItemStack stack : templates) {
+            for (Holder.Reference<Enchantment> holder : enchantments) {
+                if (EnchantRegistryUtil.validateEnchantment(stack, holder).isValid()) {
+                    EnchantComponentUtil.applyEnchantmentWithEffectiveLevel(stack, holder,
+                            holder.value().getMaxLevel() + OVER_CAP);
+                }
+            }
+            gear.add(stack);
+        }
+
+        List<ItemStack> inventory = new ArrayList<>(SLOTS);
+        for (int i = 0; i < SLOTS; i++) {
+            inventory.add(gear.get(i % gear.size()).copy());
+        }
+        return inventory;
+    }
+}
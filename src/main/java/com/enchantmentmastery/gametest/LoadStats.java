@@ -0,0 +1,57 @@
+package com.enchantmentmastery.gametest;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity per-tick sample recorder used by the load tests.
+ * Samples are stored in a primitive array so recording never allocates.
+ */
+public final class LoadStats {
+    private final long[] samples;
+    private int count = 0;
+
+    public LoadStats(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public void record(long value) {
+        if (count < samples.length) {
+            samples[count++] = value;
+        }
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long total() {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += samples[i];
+        }
+        return sum;
+    }
+
+    public double mean() {
+        return count == 0 ? 0.0 : (double) total() / count;
+    }
+
+    /**
+     * Gets the given percentile (0-100) using nearest-rank.
+     */
+    public long percentile(double percentile) {
+        if (count == 0) return 0;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count - 1, rank - 1))];
+    }
+
+    public long max() {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, samples[i]);
+        }
+        return max;
+    }
+}
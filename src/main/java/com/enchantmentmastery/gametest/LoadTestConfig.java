@@ -0,0 +1,46 @@
+package com.enchantmentmastery.gametest;
+
+/**
+ * Tunables for the mastery load tests.
+ * Every value can be overridden with a system property, e.g.
+ * {@code -Denchantmentmastery.loadtest.players=300} on the gameTestServer run.
+ *
+ * @param players          Number of mock server players to spawn
+ * @param masteryEntries   Learned enchantments seeded per player (registry entries first, then synthetic ids)
+ * @param absorbsPerTick   Book absorptions driven per tick, spread round-robin over players
+ * @param appliesPerTick   Enchanter applications driven per tick
+ * @param slotChangesPerTick Enchanter input slot changes driven per tick
+ * @param ticks            Measured ticks (clamped to the test timeout)
+ * @param warmupTicks      Ticks driven before measurement starts
+ * @param p99BudgetMicros  Fails the test when the p99 mod tick time exceeds this (0 = report only)
+ */
+public record LoadTestConfig(
+        int players,
+        int masteryEntries,
+        int absorbsPerTick,
+        int appliesPerTick,
+        int slotChangesPerTick,
+        int ticks,
+        int warmupTicks,
+        long p99BudgetMicros
+) {
+    private static final String PREFIX = "enchantmentmastery.loadtest.";
+
+    /** Upper bound for warmup + measured ticks, kept below the @GameTest timeout. */
+    public static final int MAX_TICKS = 1100;
+
+    public static LoadTestConfig fromSystemProperties() {
+        int warmup = Integer.getInteger(PREFIX + "warmupTicks", 20);
+        int ticks = Integer.getInteger(PREFIX + "ticks", 200);
+        return new LoadTestConfig(
+                Integer.getInteger(PREFIX + "players", 200),
+                Integer.getInteger(PREFIX + "masteryEntries", 60),
+                Integer.getInteger(PREFIX + "absorbsPerTick", 20),
+                Integer.getInteger(PREFIX + "appliesPerTick", 20),
+                Integer.getInteger(PREFIX + "slotChangesPerTick", 40),
+                Math.max(1, Math.min(ticks, MAX_TICKS - warmup)),
+                Math.max(0, warmup),
+                Long.getLong(PREFIX + "p99BudgetMicros", 0L)
+        );
+    }
+}
@@ -0,0 +1,225 @@
+package com.enchantmentmastery.gametest;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.handler.AbsorbHandler;
+import com.enchantmentmastery.menu.MasteryEnchanterMenu;
+import com.enchantmentmastery.network.ModNetworking;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.InteractionHand;
+import net.minecraft.world.inventory.ContainerLevelAccess;
+import net.minecraft.world.item.EnchantedBookItem;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.enchantment.Enchantment;
+import net.minecraft.world.item.enchantment.EnchantmentInstance;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives absorb, apply and enchanter slot-change traffic from mock server players
+ * and records the time, allocations and sync bytes attributable to the mod.
+ */
+public class MasteryLoadDriver {
+    private static final Item[] SLOT_ITEMS = {
+            Items.DIAMOND_SWORD, Items.DIAMOND_PICKAXE, Items.DIAMOND_CHESTPLATE, Items.BOW
+    };
+    private static final int XP_LEVELS = 100_000;
+
+    private final GameTestHelper helper;
+    private final LoadTestConfig config;
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    private final List<ServerPlayer> players = new ArrayList<>();
+    private final List<MasteryEnchanterMenu> menus = new ArrayList<>();
+    private final List<Holder.Reference<Enchantment>> enchantments = new ArrayList<>();
+
+    private final LoadStats tickNanos;
+    private final LoadStats tickAllocations;
+
+    private int tick = 0;
+    private int absorbCursor = 0;
+    private int applyCursor = 0;
+    private int slotCursor = 0;
+    private int absorbs = 0;
+    private int applies = 0;
+    private long syncBytesAtStart;
+    private long syncPacketsAtStart;
+
+    public MasteryLoadDriver(GameTestHelper helper, LoadTestConfig config) {
+        this.helper = helper;
+        this.config = config;
+        this.threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.tickNanos = new LoadStats(config.ticks());
+        this.tickAllocations = new LoadStats(config.ticks());
+    }
+
+    /**
+     * Spawns the mock players, seeds their mastery data and opens an enchanter menu for each.
+     */
+    public void setUp() {
+        helper.getLevel().registryAccess().registryOrThrow(Registries.ENCHANTMENT)
+                .holders()
+                .forEach(enchantments::add);
+
+        for (int i = 0; i < config.players(); i++) {
+            ServerPlayer player = helper.makeMockServerPlayerInLevel();
+            player.setExperienceLevels(XP_LEVELS);
+            seedMastery(MasteryDataHelper.getData(player));
+
+            MasteryEnchanterMenu menu = new MasteryEnchanterMenu(0, player.getInventory(), ContainerLevelAccess.NULL);
+            menu.getSlot(0).set(new ItemStack(SLOT_ITEMS[i % SLOT_ITEMS.length]));
+
+            players.add(player);
+            menus.add(menu);
+        }
+
+        EnchantmentMastery.LOGGER.info("Load test: {} players seeded with {} mastery entries each",
+                players.size(), config.masteryEntries());
+    }
+
+    private void seedMastery(MasteryCapability.IPlayerMasteryData data) {
+        for (int i = 0; i < config.masteryEntries(); i++) {
+            ResourceLocation id = i < enchantments.size()
+                    ? enchantments.get(i).key().location()
+                    : ResourceLocation.fromNamespaceAndPath(EnchantmentMastery.MOD_ID, "loadtest_" + i);
+            data.setMasteryLevel(id, 1 + i % 5);
+        }
+    }
+
+    /**
+     * Runs one tick of load. Only ticks after the warmup are recorded.
+     */
+    public void tick() {
+        if (tick == config.warmupTicks()) {
+            syncBytesAtStart = ModNetworking.getSyncBytesSent();
+            syncPacketsAtStart = ModNetworking.getSyncPacketsSent();
+        }
+
+        boolean measured = tick >= config.warmupTicks() && tick < config.warmupTicks() + config.ticks();
+        long allocBefore = threadBean.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < config.absorbsPerTick(); i++) {
+            driveAbsorb();
+        }
+        for (int i = 0; i < config.appliesPerTick(); i++) {
+            driveApply();
+        }
+        for (int i = 0; i < config.slotChangesPerTick(); i++) {
+            driveSlotChange();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - allocBefore;
+
+        if (measured) {
+            tickNanos.record(elapsed);
+            tickAllocations.record(allocated);
+        }
+        tick++;
+    }
+
+    private void driveAbsorb() {
+        if (players.isEmpty() || enchantments.isEmpty()) return;
+
+        ServerPlayer player = players.get(absorbCursor % players.size());
+        Holder.Reference<Enchantment> holder = enchantments.get(absorbCursor % enchantments.size());
+        absorbCursor++;
+
+        int nextLevel = MasteryDataHelper.getMasteryLevel(player, holder.key().location()) + 1;
+        ItemStack book = EnchantedBookItem.createForEnchantment(new EnchantmentInstance(holder, nextLevel));
+        book.setCount(2);
+
+        player.setExperienceLevels(XP_LEVELS);
+        if (AbsorbHandler.tryAbsorb(player, book, InteractionHand.MAIN_HAND).success()) {
+            absorbs++;
+        }
+    }
+
+    private void driveApply() {
+        if (menus.isEmpty()) return;
+
+        int index = applyCursor++ % menus.size();
+        MasteryEnchanterMenu menu = menus.get(index);
+        ServerPlayer player = players.get(index);
+
+        if (menu.getInputItem().isEmpty()) {
+            menu.getSlot(0).set(new ItemStack(SLOT_ITEMS[index % SLOT_ITEMS.length]));
+        }
+
+        MasteryEnchanterMenu.EnchantmentEntry candidate = null;
+        for (MasteryEnchanterMenu.EnchantmentEntry entry : menu.getAvailableEnchantments()) {
+            if (entry.applicable() && !entry.hasConflict()) {
+                candidate = entry;
+                break;
+            }
+        }
+
+        if (candidate == null) {
+            // Everything conflicts on this item: start over with a fresh one
+            menu.getSlot(0).set(new ItemStack(SLOT_ITEMS[index % SLOT_ITEMS.length]));
+            return;
+        }
+
+        player.setExperienceLevels(XP_LEVELS);
+        menu.selectEnchantment(candidate.enchantId(), candidate.masteryLevel());
+        if (menu.tryApplyEnchantment()) {
+            applies++;
+        }
+    }
+
+    private void driveSlotChange() {
+        if (menus.isEmpty()) return;
+
+        int index = slotCursor++;
+        MasteryEnchanterMenu menu = menus.get(index % menus.size());
+        menu.getSlot(0).set(new ItemStack(SLOT_ITEMS[(index / menus.size() + index) % SLOT_ITEMS.length]));
+    }
+
+    /**
+     * Logs the collected measurements and fails the test if the p99 budget is exceeded.
+     */
+    public void report() {
+        long syncBytes = ModNetworking.getSyncBytesSent() - syncBytesAtStart;
+        long syncPackets = ModNetworking.getSyncPacketsSent() - syncPacketsAtStart;
+        long p99Micros = tickNanos.percentile(99) / 1000;
+
+        EnchantmentMastery.LOGGER.info("==== Mastery load test ====");
+        EnchantmentMastery.LOGGER.info("players={} entries={} absorbs/t={} applies/t={} slotChanges/t={} ticks={}",
+                config.players(), config.masteryEntries(), config.absorbsPerTick(),
+                config.appliesPerTick(), config.slotChangesPerTick(), tickNanos.count());
+        EnchantmentMastery.LOGGER.info("mod tick time: mean={}us p99={}us max={}us",
+                String.format("%.1f", tickNanos.mean() / 1000.0), p99Micros, tickNanos.max() / 1000);
+        EnchantmentMastery.LOGGER.info("allocations: mean={} KiB/tick p99={} KiB/tick",
+                String.format("%.1f", tickAllocations.mean() / 1024.0), tickAllocations.percentile(99) / 1024);
+        EnchantmentMastery.LOGGER.info("sync: packets={} bytes={} ({} bytes/tick)",
+                syncPackets, syncBytes, tickNanos.count() == 0 ? 0 : syncBytes / tickNanos.count());
+        EnchantmentMastery.LOGGER.info("successful absorbs={} applies={}", absorbs, applies);
+
+        if (config.p99BudgetMicros() > 0 && p99Micros > config.p99BudgetMicros()) {
+            helper.fail("Mod p99 tick time " + p99Micros + "us exceeds budget of "
+                    + config.p99BudgetMicros() + "us");
+        }
+    }
+
+    /**
+     * Disconnects all mock players.
+     */
+    public void tearDown() {
+        var playerList = helper.getLevel().getServer().getPlayerList();
+        for (ServerPlayer player : players) {
+            playerList.remove(player);
+        }
+        players.clear();
+        menus.clear();
+    }
+}
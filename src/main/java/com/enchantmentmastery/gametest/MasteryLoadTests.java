@@ -0,0 +1,113 @@
+package com.enchantmentmastery.gametest;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+
+/**
+ * Headless load tests for the mastery system.
+ * Run with {@code ./gradlew runGameTestServer}; tune via {@link LoadTestConfig} system properties.
+ */
+@GameTestHolder(EnchantmentMastery.MOD_ID)
+@PrefixGameTestTemplate(false)
+public class MasteryLoadTests {
+    /** Empty 1x1x1 structure shipped in data/enchantmentmastery/structure. */
+    static final String EMPTY_TEMPLATE = "empty";
+
+    @GameTest(template = EMPTY_TEMPLATE, timeoutTicks = 1200)
+    public static void absorbApplyLoad(GameTestHelper helper) {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        MasteryLoadDriver driver = new MasteryLoadDriver(helper, config);
+        driver.setUp();
+
+        helper.onEachTick(driver::tick);
+        helper.runAfterDelay(config.warmupTicks() + config.ticks(), () -> {
+            try {
+                driver.report();
+            } finally {
+                driver.tearDown();
+            }
+            helper.succeed();
+        });
+    }
+
+    /**
+     * Compares the server-thread cost of saving mastery data with and without background encoding.
+     */
+    @GameTest(template = EMPTY_TEMPLATE, timeoutTicks = 400)
+    public static void autosaveSerialization(GameTestHelper helper) {
+        AutosaveBenchmark benchmark = new AutosaveBenchmark(helper);
+        benchmark.setUp();
+
+        int[] tick = {0};
+        helper.onEachTick(() -> {
+            if (benchmark.done()) {
+                return;
+            }
+            // Mutate and flush, then give the I/O thread a few ticks before saving
+            switch (tick[0]++ % 4) {
+                case 0 -> benchmark.mutateAndMeasureTree();
+                case 3 -> {
+                    benchmark.measurePacked();
+                    if (benchmark.done()) {
+                        try {
+                            benchmark.report();
+                        } finally {
+                            benchmark.tearDown();
+                        }
+                        helper.succeed();
+                    }
+                }
+                default -> {}
+            }
+        });
+    }
+
+    /**
+     * Compares the heap retained by decoded mastery data with and without the enchantment id pool.
+     */
+    @GameTest(template = EMPTY_TEMPLATE, timeoutTicks = 200)
+    public static void idPoolHeap(GameTestHelper helper) {
+        new IdPoolHeapBenchmark(helper).run();
+        helper.succeed();
+    }
+
+    /**
+     * Compares the wire size of a full inventory of over-cap gear with name- and registry-keyed effective levels.
+     */
+    @GameTest(template = EMPTY_TEMPLATE)
+    public static void inventorySyncBandwidth(GameTestHelper helper) {
+        new InventorySyncBenchmark(helper).run();
+        helper.succeed();
+    }
+
+    /**
+     * Times the melee damage calculation with and without effective level substitution.
+     */
+    @GameTest(template = EMPTY_TEMPLATE)
+    public static void effectiveLevelDamage(GameTestHelper helper) {
+        new EffectiveDamageBenchmark(helper).run();
+        helper.succeed();
+    }
+
+    /**
+     * Times the enchant planner, failing if a twenty-target plan takes over 1ms, and checks that
+     * its plans only use levels the player has mastered and cost no more than an exhaustive search finds.
+     */
+    @GameTest(template = EMPTY_TEMPLATE)
+    public static void enchantPlanner(GameTestHelper helper) {
+        new EnchantPlannerBenchmark(helper).run();
+        helper.succeed();
+    }
+
+    /**
+     * Streams a 5000-entry full sync through the frame transfer and checks the assembled copy.
+     */
+    @GameTest(template = EMPTY_TEMPLATE)
+    public static void streamedSyncStress(GameTestHelper helper) {
+        new StreamedSyncStressTest(helper).run();
+        helper.succeed();
+    }
+}
@@ -0,0 +1,170 @@
+package com.enchantmentmastery.gametest;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.capability.MasteryDigest;
+import com.enchantmentmastery.network.MasteryFrameAckPacket;
+import com.enchantmentmastery.network.MasteryFramePacket;
+import com.enchantmentmastery.network.MasteryTransfer;
+import com.enchantmentmastery.network.ModNetworking;
+import com.enchantmentmastery.network.SyncMasteryDataPacket;
+import io.netty.buffer.Unpooled;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a full sync of mastery data with thousands of entries through the real transfer:
+ * {@link ModNetworking#syncMasteryData} starts it, {@link MasteryTransfer#tick} sends the frames
+ * and a {@link MasteryTransfer.Receiver}, the same one the client uses, assembles them. Frames
+ * arrive one simulated tick after they are sent, and are acknowledged when they do. Checks that
+ * every frame stays within the frame size, that the window is respected, that the client's copy
+ * is untouched until the last frame and that the swapped-in copy matches the source.
+ *
+ * The simulated ticks all run within one game tick, so the server's own tick handler never
+ * sends frames of this transfer.
+ */
+public class StreamedSyncStressTest {
+    private static final int LETTERS_PER_ENTRY = 6;
+    /** Transfer id, frame index and total size, all VarInts, plus the array length. */
+    private static final int FRAME_HEADER_BYTES = 4 * 5;
+
+    private final GameTestHelper helper;
+    private final int entries;
+
+    public StreamedSyncStressTest(GameTestHelper helper) {
+        this.helper = helper;
+        this.entries = Integer.getInteger("enchantmentmastery.loadtest.streamEntries", 5000);
+    }
+
+    public void run() {
+        MinecraftServer server = helper.getLevel().getServer();
+        ServerPlayer player = helper.makeMockServerPlayerInLevel();
+        try {
+            run(server, player);
+        } finally {
+            server.getPlayerList().remove(player);
+        }
+    }
+
+    private void run(MinecraftServer server, ServerPlayer player) {
+        MasteryCapability.PlayerMasteryData source = MasteryDataHelper.getData(player);
+        fill(source);
+        long encodeStart = System.nanoTime();
+        byte[] packed = source.encodedBytes();
+        long encodeNanos = System.nanoTime() - encodeStart;
+        if (!MasteryTransfer.needsStreaming(packed)) {
+            helper.fail(entries + " entries encoded to " + packed.length + " bytes, too few to stream");
+        }
+
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        SyncMasteryDataPacket.encode(new SyncMasteryDataPacket(source), buf);
+        int singlePacketBytes = buf.writerIndex();
+
+        // The client's existing copy, with an entry the source doesn't have
+        MasteryCapability.PlayerMasteryData client = new MasteryCapability.PlayerMasteryData();
+        client.setMasteryLevel(id(-1), 3);
+        long clientVersion = client.getVersion();
+        MasteryTransfer.Receiver receiver = new MasteryTransfer.Receiver();
+
+        ModNetworking.syncMasteryData(player);
+        if (!MasteryTransfer.isActive(player)) {
+            helper.fail("Sync of " + packed.length + " bytes wasn't streamed");
+        }
+        int frameCount = (packed.length + MasteryTransfer.FRAME_BYTES - 1) / MasteryTransfer.FRAME_BYTES;
+        List<MasteryFramePacket> inFlight = new ArrayList<>();
+        List<MasteryFrameAckPacket> acks = new ArrayList<>();
+        boolean completed = false;
+        int ticks = 0;
+        int sent = 0;
+        int acked = 0;
+        int[] maxFrameBytes = {0};
+        int maxInFlight = 0;
+        long assembleNanos = 0;
+        while (MasteryTransfer.isActive(player)) {
+            if (++ticks > frameCount * 4) {
+                helper.fail("Transfer of " + frameCount + " frames stalled after " + ticks + " ticks");
+            }
+            // Frames sent last tick arrive, and their acknowledgements reach the server
+            long start = System.nanoTime();
+            for (MasteryFramePacket frame : inFlight) {
+                completed |= receiver.accept(frame, () -> client, acks::add);
+            }
+            assembleNanos += System.nanoTime() - start;
+            inFlight.clear();
+            for (MasteryFrameAckPacket ack : acks) {
+                MasteryTransfer.ack(player, ack.transferId(), ack.received());
+                acked = Math.max(acked, ack.received());
+            }
+            acks.clear();
+            if (!completed && client.getVersion() != clientVersion) {
+                helper.fail("Client data changed before the transfer completed");
+            }
+
+            MasteryTransfer.tick(server, (target, frame) -> {
+                if (target != player) {
+                    return;
+                }
+                buf.clear();
+                MasteryFramePacket.encode(frame, buf);
+                maxFrameBytes[0] = Math.max(maxFrameBytes[0], buf.writerIndex());
+                inFlight.add(MasteryFramePacket.decode(buf));
+            });
+            sent += inFlight.size();
+            int unacked = sent - acked;
+            if (unacked > MasteryTransfer.WINDOW_FRAMES) {
+                helper.fail(unacked + " frames unacknowledged, over the window of " + MasteryTransfer.WINDOW_FRAMES);
+            }
+            maxInFlight = Math.max(maxInFlight, unacked);
+        }
+        buf.release();
+
+        if (!completed) {
+            helper.fail("Transfer finished without replacing the client's data");
+        }
+        if (sent != frameCount) {
+            helper.fail("Sent " + sent + " frames for a transfer of " + frameCount);
+        }
+        if (maxFrameBytes[0] > MasteryTransfer.FRAME_BYTES + FRAME_HEADER_BYTES) {
+            helper.fail("Frame of " + maxFrameBytes[0] + " bytes exceeds the frame size");
+        }
+        if (client.getMasteryLevel(id(-1)) != 0) {
+            helper.fail("Entry missing from the streamed data survived the swap");
+        }
+        long expected = MasteryDigest.hash(MasteryDigest.bucketHashes(source.snapshot()));
+        long actual = MasteryDigest.hash(MasteryDigest.bucketHashes(client.snapshot()));
+        if (expected != actual) {
+            helper.fail("Streamed data doesn't match the source");
+        }
+
+        EnchantmentMastery.LOGGER.info("==== Streamed sync stress test ====");
+        EnchantmentMastery.LOGGER.info("entries={} encoded={} bytes (single sync packet would be {} bytes), encode {}ms",
+                entries, packed.length, singlePacketBytes, String.format("%.2f", encodeNanos / 1e6));
+        EnchantmentMastery.LOGGER.info("frames={} max frame={} bytes, max in flight={}, ticks={}",
+                frameCount, maxFrameBytes[0], maxInFlight, ticks);
+        EnchantmentMastery.LOGGER.info("assemble + stage + swap {}ms", String.format("%.2f", assembleNanos / 1e6));
+    }
+
+    private void fill(MasteryCapability.PlayerMasteryData data) {
+        for (int i = 0; i < entries; i++) {
+            ResourceLocation id = id(i);
+            data.setMasteryLevel(id, 1 + i % 40);
+            data.setMasteryXp(id, 1 + (i * 37) % 500);
+            int[] letters = new int[LETTERS_PER_ENTRY];
+            for (int j = 0; j < letters.length; j++) {
+                letters[j] = (i + j * 5) % 26;
+            }
+            data.setUnlockedLetterIndices(id, letters);
+        }
+    }
+
+    private static ResourceLocation id(int index) {
+        return ResourceLocation.fromNamespaceAndPath("stress_pack", "enchantment_" + (index < 0 ? "stale" : index));
+    }
+}
@@ -2,27 +2,43 @@ package com.enchantmentmastery.handler;
 
 import com.enchantmentmastery.EnchantmentMastery;
 import com.enchantmentmastery.capability.MasteryDataHelper;
-import com.enchantmentmastery.network.ModNetworking;
+import com.enchantmentmastery.capability.MasteryTransaction;
+import com.enchantmentmastery.metrics.MasteryJfrEvents;
+import com.enchantmentmastery.metrics.MasteryMetrics;
+import com.enchantmentmastery.storage.MasteryJournal;
 import com.enchantmentmastery.util.EnchantComponentUtil;
 import com.enchantmentmastery.util.EnchantRegistryUtil;
 import com.enchantmentmastery.util.ProgressionMath;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import net.minecraft.core.Holder;
+import net.minecraft.core.component.DataComponents;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.sounds.SoundEvents;
 import net.minecraft.sounds.SoundSource;
 import net.minecraft.world.InteractionHand;
+import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Items;
 import net.minecraft.world.item.enchantment.Enchantment;
+import net.minecraft.world.item.enchantment.ItemEnchantments;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
-import org.apache.commons.lang3.tuple.Pair;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Handles the absorption of enchanted books into player mastery data.
@@ -59,86 +75,336 @@ public class AbsorbHandler {
     }
 
     public static AbsorbResult tryAbsorb(ServerPlayer player, ItemStack bookStack, InteractionHand hand) {
-        // Get stored enchantment from book
-        Optional<Pair<Holder<Enchantment>, Integer>> singleEnchant =
-                EnchantComponentUtil.getSingleStoredEnchantment(bookStack);
-
-        if (singleEnchant.isEmpty()) {
-            var allEnchants = EnchantComponentUtil.getStoredEnchantments(bookStack);
-            if (allEnchants.isEmpty()) {
-                return new AbsorbResult(false,
-                        Component.translatable("enchantmentmastery.absorb.no_enchantment"));
-            } else {
-                return new AbsorbResult(false,
-                        Component.translatable("enchantmentmastery.absorb.multiple_enchantments"));
-            }
+        MasteryJfrEvents.AbsorbEvent event = new MasteryJfrEvents.AbsorbEvent();
+        event.begin();
+        long start = System.nanoTime();
+        // Read before absorbing, which can take enchantments off the book
+        if (event.isEnabled()) {
+            EnchantComponentUtil.forEachStoredEnchantment(bookStack, (holder, enchantId, level) -> {
+                String name = holder.getRegisteredName();
+                event.enchantment = event.enchantment == null ? name : event.enchantment + "," + name;
+                event.level = Math.max(event.level, level);
+            });
         }
 
-        Holder<Enchantment> enchantHolder = singleEnchant.get().getLeft();
-        int bookLevel = singleEnchant.get().getRight();
-
-        Optional<ResourceLocation> enchantIdOpt = EnchantRegistryUtil.getEnchantmentId(enchantHolder);
-        if (enchantIdOpt.isEmpty()) {
-            return new AbsorbResult(false,
-                    Component.translatable("enchantmentmastery.absorb.unknown_enchantment"));
-        }
+        AbsorbResult result = absorb(player, bookStack, hand);
 
-        ResourceLocation enchantId = enchantIdOpt.get();
-        int currentMastery = MasteryDataHelper.getMasteryLevel(player, enchantId);
+        MasteryMetrics.ABSORB_LATENCY.observeSince(start);
+        (result.success() ? MasteryMetrics.ABSORB_SUCCESS : MasteryMetrics.ABSORB_REJECTED).increment();
 
-        // Check progression requirement
-        if (bookLevel > currentMastery + 1) {
-            return new AbsorbResult(false,
-                    Component.translatable("enchantmentmastery.absorb.level_too_high",
-                            bookLevel, currentMastery + 1));
+        if (event.shouldCommit()) {
+            event.player = player.getName().getString();
+            event.success = result.success();
+            event.commit();
         }
+        return result;
+    }
 
-        if (bookLevel <= currentMastery) {
+    /**
+     * Absorbs every stored enchantment of the book that continues one of the player's mastery chains,
+     * as far as their XP levels allow, in one transaction. Enchantments that can't be absorbed yet stay
+     * on the book; the book is only consumed once nothing is left on it.
+     */
+    private static AbsorbResult absorb(ServerPlayer player, ItemStack bookStack, InteractionHand hand) {
+        ItemEnchantments stored = bookStack.get(DataComponents.STORED_ENCHANTMENTS);
+        if (stored == null || stored.isEmpty()) {
             return new AbsorbResult(false,
-                    Component.translatable("enchantmentmastery.absorb.already_learned", bookLevel));
+                    Component.translatable("enchantmentmastery.absorb.no_enchantment"));
         }
 
-        int xpCost = ProgressionMath.absorbCostLevels(bookLevel);
+        // One pass: eligibility of each enchantment and the combined cost of the eligible ones
+        List<Learned> learned = new ArrayList<>(stored.size());
+        int xpCost = 0;
+        Component ineligible = null;
+        Component unaffordable = null;
+        for (Object2IntMap.Entry<Holder<Enchantment>> entry : stored.entrySet()) {
+            Holder<Enchantment> enchantHolder = entry.getKey();
+            int bookLevel = entry.getIntValue();
+            Optional<ResourceLocation> enchantIdOpt = EnchantRegistryUtil.getEnchantmentId(enchantHolder);
+            if (enchantIdOpt.isEmpty()) {
+                if (ineligible == null) {
+                    ineligible = Component.translatable("enchantmentmastery.absorb.unknown_enchantment");
+                }
+                continue;
+            }
+
+            ResourceLocation enchantId = enchantIdOpt.get();
+            int currentMastery = MasteryDataHelper.getMasteryLevel(player, enchantId);
 
-        if (player.experienceLevel < xpCost) {
-            return new AbsorbResult(false,
-                    Component.translatable("enchantmentmastery.absorb.not_enough_xp",
-                            xpCost, player.experienceLevel));
+            // Check progression requirement
+            if (bookLevel > currentMastery + 1) {
+                if (ineligible == null) {
+                    ineligible = Component.translatable("enchantmentmastery.absorb.level_too_high",
+                            bookLevel, currentMastery + 1);
+                }
+                continue;
+            }
+            if (bookLevel <= currentMastery) {
+                if (ineligible == null) {
+                    ineligible = Component.translatable("enchantmentmastery.absorb.already_learned", bookLevel);
+                }
+                continue;
+            }
+
+            int levelCost = ProgressionMath.absorbCostLevels(bookLevel);
+            if (xpCost + levelCost > player.experienceLevel) {
+                if (unaffordable == null) {
+                    unaffordable = Component.translatable("enchantmentmastery.absorb.not_enough_xp",
+                            levelCost, player.experienceLevel);
+                }
+                continue;
+            }
+            learned.add(new Learned(enchantHolder, enchantId, bookLevel, levelCost));
+            xpCost += levelCost;
+        }
+
+        if (learned.isEmpty()) {
+            if (unaffordable != null) {
+                return new AbsorbResult(false, unaffordable);
+            }
+            return new AbsorbResult(false, stored.size() == 1
+                    ? ineligible
+                    : Component.translatable("enchantmentmastery.absorb.none_eligible"));
         }
 
-        // Perform absorption
-        player.giveExperienceLevels(-xpCost);
-        MasteryDataHelper.setMasteryLevel(player, enchantId, bookLevel);
-        MasteryDataHelper.addLevelsSpent(player, xpCost);
+        // Perform absorption as one transaction; it is journaled and synced on commit
+        int charged = xpCost;
+        try {
+            MasteryDataHelper.getData(player).edit(tx -> {
+                tx.op(MasteryJournal.Op.ABSORB);
+                tx.chargeLevels(charged);
+                for (Learned entry : learned) {
+                    tx.setMasteryLevel(entry.enchantId(), entry.level());
 
-        // Process decoding
-        DecodingHandler.processLevelsSpent(player, enchantId, xpCost);
+                    // Process decoding
+                    DecodingHandler.processLevelsSpent(player, tx, entry.enchantId(), entry.cost());
+                }
+            });
+        } catch (MasteryTransaction.RollbackException e) {
+            return new AbsorbResult(false, e.reason());
+        }
 
-        // Consume the book
-        if (bookStack.getCount() > 1) {
-            bookStack.shrink(1);
+        int remaining = stored.size() - learned.size();
+        if (remaining == 0) {
+            // Consume the book
+            if (bookStack.getCount() > 1) {
+                bookStack.shrink(1);
+            } else {
+                player.setItemInHand(hand, ItemStack.EMPTY);
+            }
         } else {
-            player.setItemInHand(hand, ItemStack.EMPTY);
+            // Leave the rest of the enchantments on the book
+            Set<Holder<Enchantment>> absorbed = new HashSet<>();
+            for (Learned entry : learned) {
+                absorbed.add(entry.enchantment());
+            }
+            if (bookStack.getCount() > 1) {
+                ItemStack rest = bookStack.copyWithCount(1);
+                bookStack.shrink(1);
+                EnchantComponentUtil.removeStoredEnchantments(rest, absorbed::contains);
+                if (!player.getInventory().add(rest)) {
+                    player.drop(rest, false);
+                }
+            } else {
+                EnchantComponentUtil.removeStoredEnchantments(bookStack, absorbed::contains);
+            }
         }
 
         // Play sound
         player.level().playSound(null, player.getX(), player.getY(), player.getZ(),
                 SoundEvents.ENCHANTMENT_TABLE_USE, SoundSource.PLAYERS, 1.0f, 1.0f);
 
-        // Sync data
-        ModNetworking.syncMasteryData(player);
+        if (learned.size() == 1 && remaining == 0) {
+            Learned entry = learned.get(0);
+            String enchantName = entry.enchantment().value().description().getString();
+            player.displayClientMessage(
+                    Component.translatable("enchantmentmastery.absorb.success", enchantName, entry.level()),
+                    true
+            );
+        } else if (remaining == 0) {
+            player.displayClientMessage(Component.translatable("enchantmentmastery.absorb.multi_success",
+                    learned.size(), xpCost), true);
+        } else {
+            player.displayClientMessage(Component.translatable("enchantmentmastery.absorb.partial_success",
+                    learned.size(), xpCost, remaining), true);
+        }
+
+        for (Learned entry : learned) {
+            EnchantmentMastery.LOGGER.debug("Player {} absorbed {} level {} for {} XP levels",
+                    player.getName().getString(), entry.enchantId(), entry.level(), entry.cost());
+        }
 
-        String enchantName = enchantHolder.value().description().getString();
-        player.displayClientMessage(
-                Component.translatable("enchantmentmastery.absorb.success", enchantName, bookLevel),
-                true
-        );
+        return new AbsorbResult(true, null);
+    }
 
-        EnchantmentMastery.LOGGER.debug("Player {} absorbed {} level {} for {} XP levels",
-                player.getName().getString(), enchantId, bookLevel, xpCost);
+    /**
+     * Absorbs every enchanted book in the inventory that continues one of the player's mastery chains,
+     * e.g. books I, II and III of an enchantment not learned yet. Levels are taken in order while the
+     * player can pay for them, all in one transaction with one sync, sound and summary message.
+     * Books storing several enchantments count like they do for a single absorb: the absorbed
+     * enchantments are taken off the book, and the book is only consumed once nothing is left on it.
+     */
+    public static AbsorbResult tryAbsorbAll(ServerPlayer player) {
+        MasteryJfrEvents.AbsorbEvent event = new MasteryJfrEvents.AbsorbEvent();
+        event.begin();
+        long start = System.nanoTime();
+        AbsorbResult result = absorbAll(player, event);
+        MasteryMetrics.ABSORB_LATENCY.observeSince(start);
+        if (!result.success()) {
+            MasteryMetrics.ABSORB_REJECTED.increment();
+        }
+
+        if (event.shouldCommit()) {
+            event.player = player.getName().getString();
+            event.success = result.success();
+            event.commit();
+        }
+        return result;
+    }
+
+    private static AbsorbResult absorbAll(ServerPlayer player, MasteryJfrEvents.AbsorbEvent event) {
+        // One pass over the inventory: enchantment -> level -> slot of a book storing it.
+        // Single-enchantment books are preferred, so multi-enchantment books aren't split needlessly
+        Inventory inventory = player.getInventory();
+        Map<ResourceLocation, Int2IntOpenHashMap> books = new HashMap<>();
+        Int2IntOpenHashMap storedCounts = new Int2IntOpenHashMap();
+        for (int slot = 0; slot < inventory.getContainerSize(); slot++) {
+            ItemStack stack = inventory.getItem(slot);
+            int stored = stack.is(Items.ENCHANTED_BOOK) ? EnchantComponentUtil.getStoredEnchantmentCount(stack) : 0;
+            if (stored == 0) {
+                continue;
+            }
+            storedCounts.put(slot, stored);
+            int bookSlot = slot;
+            EnchantComponentUtil.forEachStoredEnchantment(stack, (holder, enchantId, level) -> {
+                if (enchantId == null) {
+                    return;
+                }
+                Int2IntOpenHashMap levels = books.computeIfAbsent(enchantId, id -> new Int2IntOpenHashMap());
+                int existing = levels.getOrDefault(level, -1);
+                if (existing < 0 || stored == 1 && storedCounts.get(existing) > 1) {
+                    levels.put(level, bookSlot);
+                }
+            });
+        }
+
+        // Longest affordable chain per enchantment, in id order so the outcome is deterministic
+        List<ResourceLocation> ids = new ArrayList<>(books.keySet());
+        ids.sort(null);
+        List<Chain> chains = new ArrayList<>();
+        int budget = player.experienceLevel;
+        int totalCost = 0;
+        int blockedCost = 0;
+        for (ResourceLocation enchantId : ids) {
+            Int2IntOpenHashMap levels = books.get(enchantId);
+            int current = MasteryDataHelper.getMasteryLevel(player, enchantId);
+            int top = current;
+            int cost = 0;
+            while (levels.containsKey(top + 1)) {
+                int levelCost = ProgressionMath.absorbCostLevels(top + 1);
+                if (totalCost + cost + levelCost > budget) {
+                    if (top == current && (blockedCost == 0 || levelCost < blockedCost)) {
+                        blockedCost = levelCost;
+                    }
+                    break;
+                }
+                cost += levelCost;
+                top++;
+            }
+            if (top > current) {
+                int chainCost = ProgressionMath.totalAbsorbCost(current, top);
+                chains.add(new Chain(enchantId, current, top, chainCost));
+                totalCost += chainCost;
+            }
+        }
+
+        if (event.isEnabled()) {
+            for (Chain chain : chains) {
+                event.enchantment = event.enchantment == null
+                        ? chain.enchantId().toString() : event.enchantment + "," + chain.enchantId();
+                event.level = Math.max(event.level, chain.to());
+            }
+        }
+
+        if (chains.isEmpty()) {
+            if (blockedCost > 0) {
+                return new AbsorbResult(false, Component.translatable("enchantmentmastery.absorb.not_enough_xp",
+                        blockedCost, player.experienceLevel));
+            }
+            return new AbsorbResult(false, Component.translatable("enchantmentmastery.absorb.bulk_none"));
+        }
+
+        int charged = totalCost;
+        try {
+            MasteryDataHelper.getData(player).edit(tx -> {
+                tx.op(MasteryJournal.Op.ABSORB);
+                tx.chargeLevels(charged);
+                for (Chain chain : chains) {
+                    tx.setMasteryLevel(chain.enchantId(), chain.to());
+                    DecodingHandler.processLevelsSpent(player, tx, chain.enchantId(), chain.cost());
+                }
+            });
+        } catch (MasteryTransaction.RollbackException e) {
+            return new AbsorbResult(false, e.reason());
+        }
+
+        // Book slot -> enchantments absorbed from it
+        Int2ObjectOpenHashMap<Set<ResourceLocation>> taken = new Int2ObjectOpenHashMap<>();
+        for (Chain chain : chains) {
+            Int2IntOpenHashMap levels = books.get(chain.enchantId());
+            for (int level = chain.from() + 1; level <= chain.to(); level++) {
+                taken.computeIfAbsent(levels.get(level), slot -> new HashSet<>()).add(chain.enchantId());
+            }
+            EnchantmentMastery.LOGGER.debug("Player {} absorbed {} levels {}-{} for {} XP levels",
+                    player.getName().getString(), chain.enchantId(), chain.from() + 1, chain.to(), chain.cost());
+        }
+
+        // Consume the used books, or leave the rest of their enchantments on them.
+        // Split-off books go back in once every slot is handled, so they can't land in a slot still to be handled
+        List<ItemStack> rests = new ArrayList<>();
+        for (Int2ObjectMap.Entry<Set<ResourceLocation>> entry : taken.int2ObjectEntrySet()) {
+            int slot = entry.getIntKey();
+            Set<ResourceLocation> absorbedIds = entry.getValue();
+            if (absorbedIds.size() == storedCounts.get(slot)) {
+                inventory.removeItem(slot, 1);
+                continue;
+            }
+            Predicate<Holder<Enchantment>> absorbed = holder -> EnchantRegistryUtil.getEnchantmentId(holder)
+                    .map(absorbedIds::contains).orElse(false);
+            ItemStack stack = inventory.getItem(slot);
+            if (stack.getCount() > 1) {
+                ItemStack rest = stack.copyWithCount(1);
+                stack.shrink(1);
+                EnchantComponentUtil.removeStoredEnchantments(rest, absorbed);
+                rests.add(rest);
+            } else {
+                EnchantComponentUtil.removeStoredEnchantments(stack, absorbed);
+            }
+        }
+        for (ItemStack rest : rests) {
+            if (!inventory.add(rest)) {
+                player.drop(rest, false);
+            }
+        }
+        MasteryMetrics.ABSORB_SUCCESS.add(taken.size());
+
+        player.level().playSound(null, player.getX(), player.getY(), player.getZ(),
+                SoundEvents.ENCHANTMENT_TABLE_USE, SoundSource.PLAYERS, 1.0f, 1.0f);
+        player.displayClientMessage(Component.translatable("enchantmentmastery.absorb.bulk_success",
+                taken.size(), chains.size(), totalCost), true);
 
         return new AbsorbResult(true, null);
     }
 
+    /**
+     * One enchantment of a book being absorbed.
+     */
+    private record Learned(Holder<Enchantment> enchantment, ResourceLocation enchantId, int level, int cost) {}
+
+    /**
+     * Mastery levels {@code from + 1 .. to} of one enchantment absorbed together.
+     */
+    private record Chain(ResourceLocation enchantId, int from, int to, int cost) {}
+
     public record AbsorbResult(boolean success, Component message) {}
 }
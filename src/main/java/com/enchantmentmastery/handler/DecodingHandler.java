@@ -1,12 +1,14 @@
 package com.enchantmentmastery.handler;
 
 import com.enchantmentmastery.EnchantmentMastery;
-import com.enchantmentmastery.capability.MasteryDataHelper;
-import com.enchantmentmastery.network.ModNetworking;
+import com.enchantmentmastery.capability.MasteryTransaction;
+import com.enchantmentmastery.metrics.MasteryJfrEvents;
+import com.enchantmentmastery.metrics.MasteryMetrics;
 import com.enchantmentmastery.util.DecodingUtil;
 import com.enchantmentmastery.util.ProgressionMath;
 import net.minecraft.core.Holder;
 import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceKey;
@@ -22,10 +24,24 @@ import java.util.UUID;
  */
 public class DecodingHandler {
 
-    public static boolean tryUnlockLetter(ServerPlayer player, ResourceLocation enchantId, int levelsSpent) {
-        int[] currentUnlocked = MasteryDataHelper.getUnlockedLetterIndices(player, enchantId);
+    /**
+     * Unlocks the next letter as part of a mastery transaction.
+     * Player feedback is deferred until the transaction commits.
+     */
+    public static boolean tryUnlockLetter(ServerPlayer player, MasteryTransaction tx, ResourceLocation enchantId,
+                                          int levelsSpent) {
+        return tryUnlockLetter(player.level().registryAccess(), player.getUUID(), tx, enchantId, levelsSpent);
+    }
+
+    /**
+     * Unlocks the next letter for a player who may be offline. Feedback goes to the
+     * transaction's player, if there is one.
+     */
+    public static boolean tryUnlockLetter(RegistryAccess registries, UUID playerId, MasteryTransaction tx,
+                                          ResourceLocation enchantId, int levelsSpent) {
+        int[] currentUnlocked = tx.getUnlockedLetterIndices(enchantId);
 
-        Registry<Enchantment> registry = player.level().registryAccess().registryOrThrow(Registries.ENCHANTMENT);
+        Registry<Enchantment> registry = registries.registryOrThrow(Registries.ENCHANTMENT);
         Optional<Holder.Reference<Enchantment>> holderOpt = registry.getHolder(
                 ResourceKey.create(Registries.ENCHANTMENT, enchantId)
         );
@@ -44,23 +60,38 @@ public class DecodingHandler {
         int unlockCost = ProgressionMath.decodeCostLevels(currentUnlocked.length);
 
         if (levelsSpent >= unlockCost) {
-            long seed = generateSeed(player.getUUID(), enchantId);
+            long seed = generateSeed(playerId, enchantId);
 
             int nextIndex = DecodingUtil.selectNextLetterToUnlock(enchantName, currentUnlocked, seed);
             if (nextIndex >= 0) {
-                MasteryDataHelper.addUnlockedLetterIndex(player, enchantId, nextIndex);
+                MasteryJfrEvents.LetterUnlockEvent event = new MasteryJfrEvents.LetterUnlockEvent();
+                event.begin();
+                tx.addUnlockedLetterIndex(enchantId, nextIndex);
+                event.end();
 
                 char letter = getLetterAtIndex(enchantName, nextIndex);
-                player.displayClientMessage(
-                        Component.translatable("enchantmentmastery.decode.letter_unlocked",
-                                String.valueOf(letter).toUpperCase()),
-                        true
-                );
-
-                ModNetworking.syncMasteryData(player);
-
-                EnchantmentMastery.LOGGER.debug("Player {} unlocked letter '{}' for {}",
-                        player.getName().getString(), letter, enchantId);
+                ServerPlayer player = tx.player();
+                String playerName = player != null ? player.getName().getString() : playerId.toString();
+                tx.afterCommit(() -> {
+                    MasteryMetrics.DECODE_UNLOCKS.increment();
+                    if (event.shouldCommit()) {
+                        event.player = playerName;
+                        event.enchantment = enchantId.toString();
+                        event.letterIndex = nextIndex;
+                        event.commit();
+                    }
+
+                    if (player != null) {
+                        player.displayClientMessage(
+                                Component.translatable("enchantmentmastery.decode.letter_unlocked",
+                                        String.valueOf(letter).toUpperCase()),
+                                true
+                        );
+                    }
+
+                    EnchantmentMastery.LOGGER.debug("Player {} unlocked letter '{}' for {}",
+                            playerName, letter, enchantId);
+                });
 
                 return true;
             }
@@ -69,16 +100,25 @@ public class DecodingHandler {
         return false;
     }
 
-    public static void processLevelsSpent(ServerPlayer player, ResourceLocation enchantId, int levelsSpent) {
+    public static void processLevelsSpent(ServerPlayer player, MasteryTransaction tx, ResourceLocation enchantId,
+                                          int levelsSpent) {
+        processLevelsSpent(player.level().registryAccess(), player.getUUID(), tx, enchantId, levelsSpent);
+    }
+
+    /**
+     * Unlocks letters for levels spent on behalf of a player who may be offline.
+     */
+    public static void processLevelsSpent(RegistryAccess registries, UUID playerId, MasteryTransaction tx,
+                                          ResourceLocation enchantId, int levelsSpent) {
         int remaining = levelsSpent;
         int unlocked = 0;
 
         while (remaining > 0 && unlocked < 3) {
-            int[] currentUnlocked = MasteryDataHelper.getUnlockedLetterIndices(player, enchantId);
+            int[] currentUnlocked = tx.getUnlockedLetterIndices(enchantId);
             int unlockCost = ProgressionMath.decodeCostLevels(currentUnlocked.length);
 
             if (remaining >= unlockCost) {
-                if (tryUnlockLetter(player, enchantId, remaining)) {
+                if (tryUnlockLetter(registries, playerId, tx, enchantId, remaining)) {
                     remaining -= unlockCost;
                     unlocked++;
                 } else {
@@ -1,38 +1,67 @@
 package com.enchantmentmastery.handler;
 
 import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.network.MasteryTransfer;
 import com.enchantmentmastery.network.ModNetworking;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
 /**
  * Handles syncing mastery data when players log in or respawn.
+ *
+ * Clients keep the data from their last session, so on login the sync waits for the client's
+ * hello saying what it has. Dimension changes and respawns only resend data that changed.
  */
 @Mod.EventBusSubscriber(modid = EnchantmentMastery.MOD_ID)
 public class PlayerSyncHandler {
 
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            ModNetworking.flushScheduledSyncs(event.getServer());
+            MasteryTransfer.tick(event.getServer());
+        }
+    }
+
     @SubscribeEvent
     public static void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
         if (event.getEntity() instanceof ServerPlayer serverPlayer) {
-            ModNetworking.syncMasteryData(serverPlayer);
-            EnchantmentMastery.LOGGER.debug("Synced mastery data to {} on login",
+            ModNetworking.awaitHello(serverPlayer);
+            EnchantmentMastery.LOGGER.debug("Waiting for the mastery cache hello from {}",
                     serverPlayer.getName().getString());
         }
     }
 
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        if (event.getEntity() instanceof ServerPlayer serverPlayer) {
+            ModNetworking.forget(serverPlayer);
+        }
+    }
+
+    // After the capability copies the data across
+    @SubscribeEvent(priority = EventPriority.LOW)
+    public static void onPlayerClone(PlayerEvent.Clone event) {
+        if (event.isWasDeath() && event.getEntity() instanceof ServerPlayer serverPlayer) {
+            ModNetworking.transferSyncedState(serverPlayer);
+        }
+    }
+
     @SubscribeEvent
     public static void onPlayerChangedDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
         if (event.getEntity() instanceof ServerPlayer serverPlayer) {
-            ModNetworking.syncMasteryData(serverPlayer);
+            ModNetworking.syncIfChanged(serverPlayer);
         }
     }
 
     @SubscribeEvent
     public static void onPlayerRespawn(PlayerEvent.PlayerRespawnEvent event) {
         if (event.getEntity() instanceof ServerPlayer serverPlayer) {
-            ModNetworking.syncMasteryData(serverPlayer);
+            ModNetworking.syncIfChanged(serverPlayer);
         }
     }
 }
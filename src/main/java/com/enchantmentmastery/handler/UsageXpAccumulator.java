@@ -0,0 +1,87 @@
+package com.enchantmentmastery.handler;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Counts enchanted gear uses per player and enchantment between flushes.
+ *
+ * Players are keyed by UUID rather than by their entity, so a pending count never keeps a
+ * disconnected or respawned player object alive; the caller resolves the live player at flush.
+ * Players are spread over lock stripes by UUID hash, so recording a use only locks one stripe
+ * and never touches mastery data. {@link #drain} swaps each stripe's table out and hands the
+ * counts over outside the lock.
+ */
+final class UsageXpAccumulator {
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    UsageXpAccumulator() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private static final class Stripe {
+        Map<UUID, Object2IntOpenHashMap<ResourceLocation>> pending = new HashMap<>();
+    }
+
+    private Stripe stripe(UUID player) {
+        int h = player.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Records uses of an enchantment by a player.
+     */
+    void add(UUID player, ResourceLocation enchantId, int uses) {
+        Stripe stripe = stripe(player);
+        synchronized (stripe) {
+            stripe.pending.computeIfAbsent(player, p -> new Object2IntOpenHashMap<>()).addTo(enchantId, uses);
+        }
+    }
+
+    /**
+     * Removes and returns the pending uses of one player, or null if there are none.
+     */
+    @Nullable
+    Object2IntMap<ResourceLocation> drain(UUID player) {
+        Stripe stripe = stripe(player);
+        synchronized (stripe) {
+            return stripe.pending.remove(player);
+        }
+    }
+
+    /**
+     * Removes all pending uses, passing each player's counts to the consumer.
+     */
+    void drain(BiConsumer<UUID, Object2IntMap<ResourceLocation>> consumer) {
+        for (Stripe stripe : stripes) {
+            Map<UUID, Object2IntOpenHashMap<ResourceLocation>> drained;
+            synchronized (stripe) {
+                if (stripe.pending.isEmpty()) {
+                    continue;
+                }
+                drained = stripe.pending;
+                stripe.pending = new HashMap<>();
+            }
+            drained.forEach(consumer);
+        }
+    }
+
+    void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.pending.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.enchantmentmastery.handler;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.metrics.MasteryMetrics;
+import com.enchantmentmastery.storage.MasteryJournal;
+import com.enchantmentmastery.util.EnchantComponentUtil;
+import com.enchantmentmastery.util.ProgressionMath;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import net.minecraft.core.HolderSet;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.tags.ItemTags;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.damagesource.DamageSource;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.enchantment.Enchantment;
+import net.minecraft.world.item.enchantment.EnchantmentEffectComponents;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.living.LivingHurtEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Grants mastery XP for using enchanted gear: hits for weapon enchantments, blocks mined for
+ * tool enchantments and damage taken for protection enchantments.
+ *
+ * These events fire constantly, so they only count uses in a {@link UsageXpAccumulator}.
+ * Every {@link #FLUSH_TICKS} ticks the counts are converted to mastery XP with one transaction per
+ * player, which means one journal entry and one sync per player per flush. Only enchantments the
+ * player has already learned gain XP.
+ */
+@Mod.EventBusSubscriber(modid = EnchantmentMastery.MOD_ID)
+public class UsageXpHandler {
+    /** Ticks between flushes. Override with {@code -Denchantmentmastery.usageFlushTicks=<ticks>}. */
+    public static final int FLUSH_TICKS = Math.max(1, Integer.getInteger("enchantmentmastery.usageFlushTicks", 100));
+
+    private static final EquipmentSlot[] ARMOR_SLOTS = {
+            EquipmentSlot.HEAD, EquipmentSlot.CHEST, EquipmentSlot.LEGS, EquipmentSlot.FEET
+    };
+
+    /** Item tags that mark an enchantment as a weapon enchantment, whatever its effects are. */
+    private static final Set<TagKey<Item>> COMBAT_ITEMS = Set.of(
+            ItemTags.WEAPON_ENCHANTABLE, ItemTags.SWORD_ENCHANTABLE, ItemTags.SHARP_WEAPON_ENCHANTABLE,
+            ItemTags.FIRE_ASPECT_ENCHANTABLE, ItemTags.MACE_ENCHANTABLE);
+    /** Item tags that mark an enchantment as a tool enchantment. */
+    private static final Set<TagKey<Item>> MINING_ITEMS = Set.of(
+            ItemTags.MINING_ENCHANTABLE, ItemTags.MINING_LOOT_ENCHANTABLE);
+
+    private static final UsageXpAccumulator ACCUMULATOR = new UsageXpAccumulator();
+    private static int ticksSinceFlush = 0;
+
+    /**
+     * Which enchantments a kind of use trains, judged by their effects and the items they apply to.
+     * Enchantments that are neither weapon nor armor enchantments (Unbreaking, Mending) train on mining.
+     */
+    private enum Use {
+        ATTACK(UsageXpHandler::isCombat),
+        MINE(enchantment -> supportsAny(enchantment, MINING_ITEMS)
+                || !isCombat(enchantment) && !isProtection(enchantment)),
+        PROTECT(UsageXpHandler::isProtection);
+
+        private final Predicate<Enchantment> trains;
+
+        Use(Predicate<Enchantment> trains) {
+            this.trains = trains;
+        }
+    }
+
+    private static boolean isCombat(Enchantment enchantment) {
+        var effects = enchantment.effects();
+        return effects.has(EnchantmentEffectComponents.DAMAGE)
+                || effects.has(EnchantmentEffectComponents.POST_ATTACK)
+                || effects.has(EnchantmentEffectComponents.KNOCKBACK)
+                || effects.has(EnchantmentEffectComponents.ARMOR_EFFECTIVENESS)
+                || effects.has(EnchantmentEffectComponents.EQUIPMENT_DROPS)
+                // Looting and Sweeping Edge only show up through loot tables or attributes
+                || supportsAny(enchantment, COMBAT_ITEMS);
+    }
+
+    private static boolean isProtection(Enchantment enchantment) {
+        return enchantment.effects().has(EnchantmentEffectComponents.DAMAGE_PROTECTION);
+    }
+
+    private static boolean supportsAny(Enchantment enchantment, Set<TagKey<Item>> tags) {
+        HolderSet<Item> items = enchantment.getSupportedItems();
+        return items.unwrapKey().map(tags::contains).orElse(false);
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onLivingHurt(LivingHurtEvent event) {
+        DamageSource source = event.getSource();
+        if (source.getEntity() instanceof ServerPlayer attacker && source.getDirectEntity() == attacker) {
+            record(attacker, attacker.getMainHandItem(), Use.ATTACK, 1);
+        }
+        if (event.getEntity() instanceof ServerPlayer victim && event.getAmount() > 0) {
+            int points = Math.max(1, Math.round(event.getAmount()));
+            for (EquipmentSlot slot : ARMOR_SLOTS) {
+                record(victim, victim.getItemBySlot(slot), Use.PROTECT, points);
+            }
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onBlockBreak(BlockEvent.BreakEvent event) {
+        if (event.getPlayer() instanceof ServerPlayer player) {
+            record(player, player.getMainHandItem(), Use.MINE, 1);
+        }
+    }
+
+    private static void record(ServerPlayer player, ItemStack stack, Use use, int uses) {
+        if (stack.isEmpty() || player.isCreative()) {
+            return;
+        }
+        EnchantComponentUtil.forEachEnchantment(stack, (holder, enchantId, level) -> {
+            if (enchantId != null && use.trains.test(holder.value())) {
+                ACCUMULATOR.add(player.getUUID(), enchantId, uses);
+                MasteryMetrics.USAGE_EVENTS.increment();
+            }
+        });
+    }
+
+    // Before PlayerSyncHandler's tick-end flush, so the batched sync goes out this tick
+    @SubscribeEvent(priority = EventPriority.HIGH)
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || ++ticksSinceFlush < FLUSH_TICKS) {
+            return;
+        }
+        ticksSinceFlush = 0;
+        ACCUMULATOR.drain((playerId, uses) -> {
+            ServerPlayer player = event.getServer().getPlayerList().getPlayer(playerId);
+            if (player != null && !player.hasDisconnected()) {
+                flush(player, uses, true);
+            }
+        });
+    }
+
+    @SubscribeEvent(priority = EventPriority.HIGH)
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            Object2IntMap<ResourceLocation> uses = ACCUMULATOR.drain(player.getUUID());
+            if (uses != null) {
+                flush(player, uses, false);
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        ACCUMULATOR.clear();
+        ticksSinceFlush = 0;
+    }
+
+    private static void flush(ServerPlayer player, Object2IntMap<ResourceLocation> uses, boolean carryRemainder) {
+        MasteryCapability.PlayerMasteryData data = MasteryDataHelper.getDataOrNull(player);
+        if (data == null || data.isUnloaded()) {
+            return;
+        }
+        data.edit(tx -> {
+            tx.op(MasteryJournal.Op.USAGE);
+            for (Object2IntMap.Entry<ResourceLocation> entry : uses.object2IntEntrySet()) {
+                ResourceLocation enchantId = entry.getKey();
+                if (tx.getMasteryLevel(enchantId) <= 0) {
+                    continue;
+                }
+                int actions = entry.getIntValue();
+                int xpGain = ProgressionMath.masteryXpFromUsage(actions);
+                if (xpGain > 0) {
+                    tx.grantMasteryXp(enchantId, xpGain);
+                    MasteryMetrics.USAGE_XP.add(xpGain);
+                }
+                int remainder = ProgressionMath.usageRemainder(actions);
+                if (carryRemainder && remainder > 0) {
+                    ACCUMULATOR.add(player.getUUID(), enchantId, remainder);
+                }
+            }
+        });
+    }
+}
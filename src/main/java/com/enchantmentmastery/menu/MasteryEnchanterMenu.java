@@ -1,8 +1,13 @@
 package com.enchantmentmastery.menu;
 
 import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.capability.MasteryTransaction;
 import com.enchantmentmastery.handler.DecodingHandler;
+import com.enchantmentmastery.metrics.MasteryJfrEvents;
+import com.enchantmentmastery.metrics.MasteryMetrics;
+import com.enchantmentmastery.network.CostQuotePacket;
 import com.enchantmentmastery.network.ModNetworking;
+import com.enchantmentmastery.storage.MasteryJournal;
 import com.enchantmentmastery.registry.ModMenuTypes;
 import com.enchantmentmastery.util.EnchantComponentUtil;
 import com.enchantmentmastery.util.EnchantRegistryUtil;
@@ -26,6 +31,7 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Items;
 import net.minecraft.world.item.enchantment.Enchantment;
 import net.minecraft.world.level.block.Blocks;
+import net.minecraftforge.network.PacketDistributor;
 
 import java.util.*;
 
@@ -43,6 +49,10 @@ public class MasteryEnchanterMenu extends AbstractContainerMenu {
     private ResourceLocation selectedEnchantment = null;
     private int selectedLevel = 0;
 
+    // Apply cost of level i + 1: sent by the server, received by the client
+    private int[] costQuotes = new int[0];
+    private boolean costQuotesDirty = false;
+
     public MasteryEnchanterMenu(int containerId, Inventory playerInventory) {
         this(containerId, playerInventory, ContainerLevelAccess.NULL);
     }
@@ -96,6 +106,9 @@ public class MasteryEnchanterMenu extends AbstractContainerMenu {
      * and the current item in the input slot.
      */
     public void updateAvailableEnchantments() {
+        MasteryJfrEvents.MenuRecomputeEvent event = new MasteryJfrEvents.MenuRecomputeEvent();
+        event.begin();
+        long start = System.nanoTime();
         availableEnchantments.clear();
         selectedEnchantment = null;
         selectedLevel = 0;
@@ -142,12 +155,85 @@ public class MasteryEnchanterMenu extends AbstractContainerMenu {
             }
         }
 
+        if (player instanceof ServerPlayer) {
+            updateCostQuotes(masteryLevels);
+        }
+
         // Sort: applicable first, then alphabetically
         availableEnchantments.sort((a, b) -> {
             if (a.applicable() && !b.applicable()) return -1;
             if (!a.applicable() && b.applicable()) return 1;
             return a.enchantId().compareTo(b.enchantId());
         });
+
+        MasteryMetrics.MENU_RECOMPUTES.increment();
+        MasteryMetrics.MENU_RECOMPUTE_LATENCY.observeSince(start);
+
+        if (event.shouldCommit()) {
+            event.entries = availableEnchantments.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Rebuilds the cost table when the highest mastery level changes; it is sent with the next
+     * broadcast, which is also when the client first has the menu open.
+     */
+    private void updateCostQuotes(Map<ResourceLocation, Integer> masteryLevels) {
+        int maxLevel = 0;
+        for (int level : masteryLevels.values()) {
+            maxLevel = Math.max(maxLevel, level);
+        }
+        if (maxLevel == costQuotes.length) {
+            return;
+        }
+        int[] costs = new int[maxLevel];
+        for (int level = 1; level <= maxLevel; level++) {
+            costs[level - 1] = ProgressionMath.applyCostLevels(level);
+        }
+        costQuotes = costs;
+        costQuotesDirty = true;
+    }
+
+    private void sendCostQuotes() {
+        if (costQuotesDirty && player instanceof ServerPlayer serverPlayer) {
+            costQuotesDirty = false;
+            ModNetworking.CHANNEL.send(new CostQuotePacket(containerId, costQuotes),
+                    PacketDistributor.PLAYER.with(serverPlayer));
+        }
+    }
+
+    @Override
+    public void broadcastChanges() {
+        super.broadcastChanges();
+        sendCostQuotes();
+    }
+
+    @Override
+    public void broadcastFullState() {
+        super.broadcastFullState();
+        sendCostQuotes();
+    }
+
+    /**
+     * Sets the cost table received from the server. Client-side only.
+     */
+    public void setCostQuotes(int[] costs) {
+        this.costQuotes = costs;
+    }
+
+    /**
+     * Gets the cost table, replaced as a whole whenever it changes.
+     */
+    public int[] getCostQuotes() {
+        return costQuotes;
+    }
+
+    /**
+     * Gets the quoted XP level cost of applying a level, or -1 if it hasn't been quoted.
+     */
+    public int getQuotedCost(int level) {
+        return level >= 1 && level <= costQuotes.length ? costQuotes[level - 1] : -1;
     }
 
     /**
@@ -170,6 +256,28 @@ public class MasteryEnchanterMenu extends AbstractContainerMenu {
             return false;
         }
 
+        MasteryJfrEvents.ApplyEvent event = new MasteryJfrEvents.ApplyEvent();
+        event.begin();
+        ResourceLocation enchantId = selectedEnchantment;
+        int level = selectedLevel;
+        long start = System.nanoTime();
+
+        boolean applied = applyEnchantment(serverPlayer);
+
+        MasteryMetrics.APPLY_LATENCY.observeSince(start);
+        (applied ? MasteryMetrics.APPLY_SUCCESS : MasteryMetrics.APPLY_REJECTED).increment();
+
+        if (event.shouldCommit()) {
+            event.player = serverPlayer.getName().getString();
+            event.enchantment = String.valueOf(enchantId);
+            event.level = level;
+            event.success = applied;
+            event.commit();
+        }
+        return applied;
+    }
+
+    private boolean applyEnchantment(ServerPlayer serverPlayer) {
         if (selectedEnchantment == null || selectedLevel <= 0) {
             return false;
         }
@@ -216,32 +324,38 @@ public class MasteryEnchanterMenu extends AbstractContainerMenu {
             return false;
         }
 
-        // All checks passed - apply the enchantment
-
-        // Deduct XP
-        serverPlayer.giveExperienceLevels(-xpCost);
-
-        // Apply enchantment with effective level tracking
-        EnchantComponentUtil.applyEnchantmentWithEffectiveLevel(inputStack, holder, selectedLevel);
-
-        // Track levels spent
-        MasteryDataHelper.addLevelsSpent(serverPlayer, xpCost);
-
-        // Add mastery XP
-        int xpGain = ProgressionMath.masteryXpGainFromApplyCost(xpCost);
-        processXpGainAndLevelUp(serverPlayer, selectedEnchantment, xpGain);
-
-        // Process decoding (unlock letters based on levels spent)
-        DecodingHandler.processLevelsSpent(serverPlayer, selectedEnchantment, xpCost);
+        // All checks passed - apply the enchantment as one transaction; it is journaled and synced on commit
+        ResourceLocation enchantId = selectedEnchantment;
+        int level = selectedLevel;
+        try {
+            MasteryDataHelper.getData(serverPlayer).edit(tx -> {
+                tx.op(MasteryJournal.Op.APPLY);
+
+                // Deduct XP and track levels spent
+                tx.chargeLevels(xpCost);
+
+                // Apply enchantment with effective level tracking
+                ItemStack original = inputStack.copy();
+                EnchantComponentUtil.applyEnchantmentWithEffectiveLevel(inputStack, holder, level);
+                tx.onRollback(() -> inputSlot.setItem(0, original));
+
+                // Add mastery XP
+                int xpGain = ProgressionMath.masteryXpGainFromApplyCost(xpCost);
+                tx.grantMasteryXp(enchantId, xpGain);
+
+                // Process decoding (unlock letters based on levels spent)
+                DecodingHandler.processLevelsSpent(serverPlayer, tx, enchantId, xpCost);
+            });
+        } catch (MasteryTransaction.RollbackException e) {
+            serverPlayer.displayClientMessage(e.reason(), true);
+            return false;
+        }
 
         // Play sound
         serverPlayer.level().playSound(null,
                 serverPlayer.getX(), serverPlayer.getY(), serverPlayer.getZ(),
                 SoundEvents.ENCHANTMENT_TABLE_USE, SoundSource.PLAYERS, 1.0f, 1.0f);
 
-        // Sync data
-        ModNetworking.syncMasteryData(serverPlayer);
-
         // Update available enchantments
         updateAvailableEnchantments();
 
@@ -252,29 +366,6 @@ public class MasteryEnchanterMenu extends AbstractContainerMenu {
         return true;
     }
 
-    /**
-     * Processes XP gain and handles level-ups for mastery.
-     */
-    private void processXpGainAndLevelUp(ServerPlayer player, ResourceLocation enchantId, int xpGain) {
-        var data = MasteryDataHelper.getData(player);
-        int currentLevel = data.getMasteryLevel(enchantId);
-        int currentXp = data.getMasteryXp(enchantId);
-
-        int[] result = new int[2];
-        ProgressionMath.processXpGain(currentLevel, currentXp, xpGain, result);
-
-        int newLevel = result[0];
-        int newXp = result[1];
-
-        if (newLevel > currentLevel) {
-            data.setMasteryLevel(enchantId, newLevel);
-            player.displayClientMessage(
-                    Component.translatable("enchantmentmastery.mastery_level_up",
-                            enchantId.toString(), newLevel), false);
-        }
-        data.setMasteryXp(enchantId, newXp);
-    }
-
     @Override
     public ItemStack quickMoveStack(Player player, int index) {
         ItemStack result = ItemStack.EMPTY;
@@ -0,0 +1,34 @@
+package com.enchantmentmastery.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter. Safe to increment from any thread.
+ */
+public final class Counter {
+    private final String labels;
+    private final LongAdder value = new LongAdder();
+
+    Counter(String labels) {
+        this.labels = labels;
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    /**
+     * Gets the preformatted label set (e.g. {@code result="success"}), empty if unlabelled.
+     */
+    public String labels() {
+        return labels;
+    }
+}
@@ -0,0 +1,80 @@
+package com.enchantmentmastery.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram. Observations are recorded in nanoseconds
+ * and exported in seconds. Recording never allocates.
+ */
+public final class LatencyHistogram {
+    /** Upper bucket bounds in nanoseconds (1us .. 100ms), +Inf is implicit. */
+    static final long[] BOUNDS_NANOS = {
+            1_000L, 5_000L, 10_000L, 50_000L, 100_000L, 500_000L,
+            1_000_000L, 5_000_000L, 10_000_000L, 50_000_000L, 100_000_000L
+    };
+
+    private final String name;
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    LatencyHistogram(String name) {
+        this.name = name;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observeNanos(long nanos) {
+        int i = 0;
+        while (i < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Records the time elapsed since a {@link System#nanoTime()} reading.
+     */
+    public void observeSince(long startNanos) {
+        observeNanos(System.nanoTime() - startNanos);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * Gets the non-cumulative count of the given bucket (last bucket is +Inf).
+     */
+    long bucketCount(int index) {
+        return buckets[index].sum();
+    }
+
+    /**
+     * Estimates a quantile (0-1) from the bucket counts, returning the bucket's upper bound in nanoseconds.
+     */
+    public long quantileUpperBoundNanos(double quantile) {
+        long total = count();
+        if (total == 0) return 0;
+        long target = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= target) {
+                return i < BOUNDS_NANOS.length ? BOUNDS_NANOS[i] : Long.MAX_VALUE;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
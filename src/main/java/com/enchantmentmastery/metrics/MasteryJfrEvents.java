@@ -0,0 +1,126 @@
+package com.enchantmentmastery.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for mastery operations.
+ *
+ * Player-driven operations (absorb, apply, letter unlock, sync) are enabled by default
+ * and carry no stack traces, so they are cheap enough to leave on in production.
+ * Fine-grained events (capability serialization, menu recomputes) are disabled by default
+ * and can be switched on per recording, e.g.
+ * {@code jfr configure +enchantmentmastery.MenuRecompute#enabled=true}.
+ *
+ * Usage follows the JFR pattern: {@code begin()} before the work, then fill fields and
+ * {@code commit()} only if {@code shouldCommit()}.
+ */
+public final class MasteryJfrEvents {
+    private MasteryJfrEvents() {}
+
+    private static final String CATEGORY = "Enchantment Mastery";
+
+    @Name("enchantmentmastery.Absorb")
+    @Label("Mastery Absorb")
+    @Description("A player absorbing an enchanted book into their mastery")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class AbsorbEvent extends Event {
+        @Label("Player")
+        public String player;
+        @Label("Enchantment")
+        public String enchantment;
+        @Label("Book Level")
+        public int level;
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("enchantmentmastery.Apply")
+    @Label("Mastery Apply")
+    @Description("A player applying a learned enchantment at the Mastery Enchanter")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class ApplyEvent extends Event {
+        @Label("Player")
+        public String player;
+        @Label("Enchantment")
+        public String enchantment;
+        @Label("Target Level")
+        public int level;
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("enchantmentmastery.LetterUnlock")
+    @Label("Mastery Letter Unlock")
+    @Description("A Galactic letter decoded in an enchantment name")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class LetterUnlockEvent extends Event {
+        @Label("Player")
+        public String player;
+        @Label("Enchantment")
+        public String enchantment;
+        @Label("Letter Index")
+        public int letterIndex;
+    }
+
+    @Name("enchantmentmastery.Sync")
+    @Label("Mastery Sync")
+    @Description("Encoding of a mastery sync payload: a full sync, a delta answering a client's cache, or one frame of a streamed full sync")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class SyncEvent extends Event {
+        @Label("Full Snapshot")
+        public boolean full;
+        @Label("Streamed Frame")
+        @Description("Frame index within a streamed full sync, or -1")
+        public int frame = -1;
+        @Label("Entries")
+        public int entries;
+        @Label("Payload Size")
+        @DataAmount
+        public int bytes;
+    }
+
+    @Name("enchantmentmastery.CapabilitySerialize")
+    @Label("Mastery Capability Serialize")
+    @Description("Conversion of player mastery data to NBT")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    public static class CapabilitySerializeEvent extends Event {
+        @Label("Entries")
+        public int entries;
+    }
+
+    @Name("enchantmentmastery.CapabilityDeserialize")
+    @Label("Mastery Capability Deserialize")
+    @Description("Load of saved player mastery data; entries are decoded later, on first access")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    public static class CapabilityDeserializeEvent extends Event {
+        @Label("Packed Bytes")
+        @DataAmount
+        public int bytes;
+    }
+
+    @Name("enchantmentmastery.MenuRecompute")
+    @Label("Mastery Menu Recompute")
+    @Description("Rebuild of the Mastery Enchanter entry list")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    public static class MenuRecomputeEvent extends Event {
+        @Label("Entries")
+        public int entries;
+    }
+}
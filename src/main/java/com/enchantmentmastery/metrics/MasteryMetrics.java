@@ -0,0 +1,237 @@
+package com.enchantmentmastery.metrics;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import net.minecraftforge.fml.loading.FMLEnvironment;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Internal metrics registry for the mastery system.
+ * Holds counters and latency histograms and renders them as OpenMetrics text.
+ */
+public final class MasteryMetrics {
+    private MasteryMetrics() {}
+
+    private static final String PREFIX = EnchantmentMastery.MOD_ID + "_";
+
+    private static final Map<String, Family> FAMILIES = new LinkedHashMap<>();
+    private static final List<CacheStats> CACHES = new ArrayList<>();
+
+    // --- Absorb ---
+    public static final Counter ABSORB_SUCCESS = counter("absorb", "Book absorb attempts", "result", "success");
+    public static final Counter ABSORB_REJECTED = counter("absorb", "Book absorb attempts", "result", "rejected");
+    public static final LatencyHistogram ABSORB_LATENCY = histogram("absorb_duration", "Time spent in a book absorb");
+    public static final Counter LECTERN_BOOKS = counter("lectern_books", "Books absorbed by Mastery Lecterns");
+
+    // --- Apply ---
+    public static final Counter APPLY_SUCCESS = counter("apply", "Enchantment apply attempts", "result", "success");
+    public static final Counter APPLY_REJECTED = counter("apply", "Enchantment apply attempts", "result", "rejected");
+    public static final LatencyHistogram APPLY_LATENCY = histogram("apply_duration", "Time spent in an enchantment apply");
+
+    // --- Usage XP ---
+    public static final Counter USAGE_EVENTS = counter("usage_events", "Enchanted gear uses recorded for mastery XP");
+    public static final Counter USAGE_XP = counter("usage_xp", "Mastery XP granted from gear use");
+
+    // --- Decoding ---
+    public static final Counter DECODE_UNLOCKS = counter("decode_unlocks", "Letters unlocked by decoding");
+
+    // --- Sync ---
+    public static final Counter SYNC_PACKETS = counter("sync_packets", "Mastery sync packets sent");
+    public static final Counter SYNC_BYTES = counter("sync_bytes", "Mastery sync payload bytes encoded");
+
+    // --- Menu ---
+    public static final Counter MENU_RECOMPUTES = counter("menu_recomputes", "Enchanter entry list recomputes");
+    public static final LatencyHistogram MENU_RECOMPUTE_LATENCY =
+            histogram("menu_recompute_duration", "Time spent recomputing the enchanter entry list");
+
+    // --- Tooltips (client only; always 0 on a dedicated server) ---
+    public static final Counter TOOLTIP_BUILDS =
+            counter("tooltip_builds", "Enchantment tooltips rebuilt (client only)", "side", "client");
+    public static final LatencyHistogram TOOLTIP_LATENCY =
+            histogram("tooltip_build_duration", "Time spent building enchantment tooltips (client only)");
+
+    // --- Caches ---
+    /** Mastery data read from the player field rather than through the capability. */
+    public static final CacheStats PLAYER_DATA_CACHE = cache("player_data");
+    /** Effective level components that turned out to be shared with an existing instance. */
+    public static final CacheStats LEVELS_INTERNER = cache("effective_levels_interner");
+
+    // --- Effective levels ---
+    /**
+     * Holder lookups that had to resolve the holder's key. Only the slow path is counted;
+     * the remembered-holder path runs on every hit and block break and stays uninstrumented.
+     */
+    public static final Counter LEVELS_HOLDER_RESOLVES =
+            counter("effective_levels_holder_resolves", "Effective level lookups that resolved a holder's key");
+
+    /**
+     * Registers (or returns) a counter. Labels are given as alternating name/value pairs.
+     */
+    public static synchronized Counter counter(String name, String help, String... labels) {
+        String formattedLabels = formatLabels(labels);
+        Family family = family(name, "counter", help);
+        for (Object member : family.members) {
+            if (member instanceof Counter counter && counter.labels().equals(formattedLabels)) {
+                return counter;
+            }
+        }
+        Counter counter = new Counter(formattedLabels);
+        family.members.add(counter);
+        return counter;
+    }
+
+    /**
+     * Registers (or returns) a latency histogram.
+     */
+    public static synchronized LatencyHistogram histogram(String name, String help) {
+        Family family = family(name, "histogram", help);
+        if (!family.members.isEmpty()) {
+            return (LatencyHistogram) family.members.get(0);
+        }
+        LatencyHistogram histogram = new LatencyHistogram(PREFIX + name + "_seconds");
+        family.members.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * Registers hit/miss counters for a named cache.
+     */
+    public static synchronized CacheStats cache(String cacheName) {
+        for (CacheStats stats : CACHES) {
+            if (stats.name().equals(cacheName)) {
+                return stats;
+            }
+        }
+        CacheStats stats = new CacheStats(cacheName,
+                counter("cache_requests", "Cache lookups by cache and result", "cache", cacheName, "result", "hit"),
+                counter("cache_requests", "Cache lookups by cache and result", "cache", cacheName, "result", "miss")
+        );
+        CACHES.add(stats);
+        return stats;
+    }
+
+    private static Family family(String name, String type, String help) {
+        Family family = FAMILIES.computeIfAbsent(name, n -> new Family(
+                "histogram".equals(type) ? PREFIX + n + "_seconds" : PREFIX + n, type, help));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " already registered as " + family.type);
+        }
+        return family;
+    }
+
+    private static String formatLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(labels[i]).append("=\"").append(labels[i + 1].replace("\"", "\\\"")).append('"');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Renders all registered metrics in the OpenMetrics text exposition format.
+     */
+    public static synchronized String exportOpenMetrics() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Family family : FAMILIES.values()) {
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            for (Object member : family.members) {
+                if (member instanceof Counter counter) {
+                    sb.append(family.name).append("_total");
+                    if (!counter.labels().isEmpty()) {
+                        sb.append('{').append(counter.labels()).append('}');
+                    }
+                    sb.append(' ').append(counter.get()).append('\n');
+                } else if (member instanceof LatencyHistogram histogram) {
+                    appendHistogram(sb, family.name, histogram);
+                }
+            }
+        }
+        sb.append("# EOF\n");
+        return sb.toString();
+    }
+
+    private static void appendHistogram(StringBuilder sb, String name, LatencyHistogram histogram) {
+        long cumulative = 0;
+        for (int i = 0; i < LatencyHistogram.BOUNDS_NANOS.length; i++) {
+            cumulative += histogram.bucketCount(i);
+            sb.append(name).append("_bucket{le=\"").append(seconds(LatencyHistogram.BOUNDS_NANOS[i]))
+                    .append("\"} ").append(cumulative).append('\n');
+        }
+        cumulative += histogram.bucketCount(LatencyHistogram.BOUNDS_NANOS.length);
+        sb.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+        sb.append(name).append("_count ").append(histogram.count()).append('\n');
+        sb.append(name).append("_sum ").append(seconds(histogram.sumNanos())).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / 1_000_000_000.0);
+    }
+
+    /**
+     * Builds a short human-readable summary for the {@code /mastery metrics} command.
+     */
+    public static List<String> summaryLines() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "Absorb: %d ok / %d rejected, p99 <= %s",
+                ABSORB_SUCCESS.get(), ABSORB_REJECTED.get(), formatBound(ABSORB_LATENCY)));
+        lines.add("Lectern books absorbed: " + LECTERN_BOOKS.get());
+        lines.add(String.format(Locale.ROOT, "Apply: %d ok / %d rejected, p99 <= %s",
+                APPLY_SUCCESS.get(), APPLY_REJECTED.get(), formatBound(APPLY_LATENCY)));
+        lines.add(String.format(Locale.ROOT, "Usage: %d uses, %d mastery XP",
+                USAGE_EVENTS.get(), USAGE_XP.get()));
+        lines.add("Letters decoded: " + DECODE_UNLOCKS.get());
+        lines.add(String.format(Locale.ROOT, "Sync: %d packets, %d bytes",
+                SYNC_PACKETS.get(), SYNC_BYTES.get()));
+        lines.add(String.format(Locale.ROOT, "Menu recomputes: %d, p99 <= %s",
+                MENU_RECOMPUTES.get(), formatBound(MENU_RECOMPUTE_LATENCY)));
+        if (FMLEnvironment.dist.isClient()) {
+            lines.add(String.format(Locale.ROOT, "Tooltip builds (client): %d, p99 <= %s",
+                    TOOLTIP_BUILDS.get(), formatBound(TOOLTIP_LATENCY)));
+        }
+        lines.add("Effective level holder resolves: " + LEVELS_HOLDER_RESOLVES.get());
+        synchronized (MasteryMetrics.class) {
+            for (CacheStats cache : CACHES) {
+                long hits = cache.hits().get();
+                long total = hits + cache.misses().get();
+                lines.add(String.format(Locale.ROOT, "Cache %s: %.1f%% hits (%d lookups)",
+                        cache.name(), total == 0 ? 0.0 : 100.0 * hits / total, total));
+            }
+        }
+        return lines;
+    }
+
+    private static String formatBound(LatencyHistogram histogram) {
+        long bound = histogram.quantileUpperBoundNanos(0.99);
+        if (bound == 0) return "-";
+        if (bound == Long.MAX_VALUE) return ">100ms";
+        return bound >= 1_000_000 ? (bound / 1_000_000) + "ms" : (bound / 1_000) + "us";
+    }
+
+    private record Family(String name, String type, String help, List<Object> members) {
+        Family(String name, String type, String help) {
+            this(name, type, help, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Hit/miss counters for a named cache.
+     */
+    public record CacheStats(String name, Counter hits, Counter misses) {
+        public void hit() {
+            hits.increment();
+        }
+
+        public void miss() {
+            misses.increment();
+        }
+    }
+}
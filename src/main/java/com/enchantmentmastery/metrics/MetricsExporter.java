@@ -0,0 +1,94 @@
+package com.enchantmentmastery.metrics;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.storage.LevelResource;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStartedEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes the metrics registry as an OpenMetrics text file under the world save
+ * ({@code <world>/enchantmentmastery/metrics.prom}) so a local scraper can pick it up.
+ * The text is rendered on the server thread and written on a background thread.
+ */
+@Mod.EventBusSubscriber(modid = EnchantmentMastery.MOD_ID)
+public class MetricsExporter {
+    /** Export interval in ticks (30 seconds). */
+    private static final int EXPORT_INTERVAL_TICKS = 600;
+    private static final String FILE_NAME = "metrics.prom";
+
+    private static ExecutorService writer;
+    private static Path exportFile;
+    private static int ticksUntilExport = EXPORT_INTERVAL_TICKS;
+
+    @SubscribeEvent
+    public static void onServerStarted(ServerStartedEvent event) {
+        MinecraftServer server = event.getServer();
+        exportFile = server.getWorldPath(LevelResource.ROOT)
+                .resolve(EnchantmentMastery.MOD_ID)
+                .resolve(FILE_NAME);
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EnchantmentMastery Metrics Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticksUntilExport = EXPORT_INTERVAL_TICKS;
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || writer == null) {
+            return;
+        }
+        if (--ticksUntilExport > 0) {
+            return;
+        }
+        ticksUntilExport = EXPORT_INTERVAL_TICKS;
+        export();
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        if (writer == null) {
+            return;
+        }
+        export();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+        exportFile = null;
+    }
+
+    private static void export() {
+        String text = MasteryMetrics.exportOpenMetrics();
+        Path target = exportFile;
+        writer.execute(() -> write(target, text));
+    }
+
+    private static void write(Path target, String text) {
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = target.resolveSibling(FILE_NAME + ".tmp");
+            Files.writeString(temp, text, StandardCharsets.UTF_8);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            EnchantmentMastery.LOGGER.warn("Failed to write mastery metrics to {}", target, e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.enchantmentmastery.mixin;
+
+import com.enchantmentmastery.util.EnchantComponentUtil;
+import net.minecraft.core.Holder;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.enchantment.EnchantedItemInUse;
+import net.minecraft.world.item.enchantment.Enchantment;
+import net.minecraft.world.item.enchantment.EnchantmentHelper;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Makes enchantment effects use effective levels, so an item with Sharpness XV deals Sharpness XV damage
+ * even though its vanilla component is capped at V.
+ *
+ * Effect evaluation (damage, protection, knockback, durability, equipment ticks, ...) goes through the two
+ * runIterationOnItem overloads; the level handed to each visitor is swapped for the effective one.
+ * Direct level queries (looting, fortune and similar) go through getItemEnchantmentLevel.
+ * Attribute effects added by forEachModifier still use the vanilla level.
+ */
+@Mixin(EnchantmentHelper.class)
+public abstract class EnchantmentHelperMixin {
+
+    @Redirect(
+            method = "runIterationOnItem(Lnet/minecraft/world/item/ItemStack;Lnet/minecraft/world/item/enchantment/EnchantmentHelper$EnchantmentVisitor;)V",
+            at = @At(value = "INVOKE",
+                    target = "Lnet/minecraft/world/item/enchantment/EnchantmentHelper$EnchantmentVisitor;accept(Lnet/minecraft/core/Holder;I)V"),
+            remap = false)
+    private static void enchantmentmastery$visitEffectiveLevel(
+            EnchantmentHelper.EnchantmentVisitor visitor,
+            Holder<Enchantment> enchantment,
+            int level,
+            ItemStack stack,
+            EnchantmentHelper.EnchantmentVisitor originalVisitor) {
+        visitor.accept(enchantment, EnchantComponentUtil.resolveEffectiveLevel(stack, enchantment, level));
+    }
+
+    @Redirect(
+            method = "runIterationOnItem(Lnet/minecraft/world/item/ItemStack;Lnet/minecraft/world/entity/EquipmentSlot;Lnet/minecraft/world/entity/LivingEntity;Lnet/minecraft/world/item/enchantment/EnchantmentHelper$EnchantmentInSlotVisitor;)V",
+            at = @At(value = "INVOKE",
+                    target = "Lnet/minecraft/world/item/enchantment/EnchantmentHelper$EnchantmentInSlotVisitor;accept(Lnet/minecraft/core/Holder;ILnet/minecraft/world/item/enchantment/EnchantedItemInUse;)V"),
+            remap = false)
+    private static void enchantmentmastery$visitEffectiveLevelInSlot(
+            EnchantmentHelper.EnchantmentInSlotVisitor visitor,
+            Holder<Enchantment> enchantment,
+            int level,
+            EnchantedItemInUse item,
+            ItemStack stack,
+            EquipmentSlot slot,
+            LivingEntity entity,
+            EnchantmentHelper.EnchantmentInSlotVisitor originalVisitor) {
+        visitor.accept(enchantment, EnchantComponentUtil.resolveEffectiveLevel(stack, enchantment, level), item);
+    }
+
+    @Inject(method = "getItemEnchantmentLevel", at = @At("RETURN"), cancellable = true, remap = false)
+    private static void enchantmentmastery$effectiveItemLevel(
+            Holder<Enchantment> enchantment,
+            ItemStack stack,
+            CallbackInfoReturnable<Integer> cir) {
+        int level = cir.getReturnValueI();
+        if (level > 0) {
+            int effective = EnchantComponentUtil.resolveEffectiveLevel(stack, enchantment, level);
+            if (effective != level) {
+                cir.setReturnValue(effective);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.enchantmentmastery.mixin;
+
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHolder;
+import net.minecraft.world.entity.player.Player;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+/**
+ * Adds a cached mastery data reference to players.
+ * Filled on first access by MasteryDataHelper and cleared on clone, death and logout.
+ */
+@Mixin(Player.class)
+public abstract class PlayerMixin implements MasteryDataHolder {
+
+    @Unique
+    private MasteryCapability.PlayerMasteryData enchantmentmastery$masteryData;
+
+    @Override
+    public MasteryCapability.PlayerMasteryData enchantmentmastery$getMasteryData() {
+        return enchantmentmastery$masteryData;
+    }
+
+    @Override
+    public void enchantmentmastery$setMasteryData(MasteryCapability.PlayerMasteryData data) {
+        this.enchantmentmastery$masteryData = data;
+    }
+}
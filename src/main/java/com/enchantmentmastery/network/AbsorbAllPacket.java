@@ -0,0 +1,41 @@
+package com.enchantmentmastery.network;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.handler.AbsorbHandler;
+import com.enchantmentmastery.menu.MasteryEnchanterMenu;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.event.network.CustomPayloadEvent;
+
+/**
+ * Packet sent from client to server to absorb every eligible enchanted book in the inventory.
+ */
+public class AbsorbAllPacket {
+
+    public static void encode(AbsorbAllPacket packet, FriendlyByteBuf buf) {
+    }
+
+    public static AbsorbAllPacket decode(FriendlyByteBuf buf) {
+        return new AbsorbAllPacket();
+    }
+
+    public static void handle(AbsorbAllPacket packet, CustomPayloadEvent.Context ctx) {
+        ServerPlayer player = ctx.getSender();
+        if (player != null) {
+            if (player.containerMenu instanceof MasteryEnchanterMenu menu) {
+                AbsorbHandler.AbsorbResult result = AbsorbHandler.tryAbsorbAll(player);
+                if (result.success()) {
+                    menu.updateAvailableEnchantments();
+                } else if (result.message() != null) {
+                    player.displayClientMessage(result.message(), true);
+                }
+            } else {
+                EnchantmentMastery.LOGGER.warn(
+                        "Player {} sent AbsorbAllPacket without MasteryEnchanterMenu open",
+                        player.getName().getString()
+                );
+            }
+        }
+        ctx.setPacketHandled(true);
+    }
+}
@@ -2,46 +2,57 @@ package com.enchantmentmastery.network;
 
 import com.enchantmentmastery.EnchantmentMastery;
 import com.enchantmentmastery.menu.MasteryEnchanterMenu;
+import com.enchantmentmastery.util.EnchantIdPool;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraftforge.event.network.CustomPayloadEvent;
+import net.minecraftforge.network.PacketDistributor;
 
 /**
  * Packet sent from client to server to request applying an enchantment.
+ * The client has usually shown the result already; the server answers with an
+ * {@link ApplyResultPacket} carrying the same sequence number.
  */
 public class ApplyEnchantmentPacket {
     private final ResourceLocation enchantmentId;
     private final int targetLevel;
+    private final int sequence;
 
-    public ApplyEnchantmentPacket(ResourceLocation enchantmentId, int targetLevel) {
+    public ApplyEnchantmentPacket(ResourceLocation enchantmentId, int targetLevel, int sequence) {
         this.enchantmentId = enchantmentId;
         this.targetLevel = targetLevel;
+        this.sequence = sequence;
     }
 
     public static void encode(ApplyEnchantmentPacket packet, FriendlyByteBuf buf) {
         buf.writeResourceLocation(packet.enchantmentId);
         buf.writeVarInt(packet.targetLevel);
+        buf.writeVarInt(packet.sequence);
     }
 
     public static ApplyEnchantmentPacket decode(FriendlyByteBuf buf) {
-        ResourceLocation id = buf.readResourceLocation();
+        ResourceLocation id = EnchantIdPool.read(buf);
         int level = buf.readVarInt();
-        return new ApplyEnchantmentPacket(id, level);
+        int sequence = buf.readVarInt();
+        return new ApplyEnchantmentPacket(id, level, sequence);
     }
 
     public static void handle(ApplyEnchantmentPacket packet, CustomPayloadEvent.Context ctx) {
         ServerPlayer player = ctx.getSender();
         if (player != null) {
+            boolean applied = false;
             if (player.containerMenu instanceof MasteryEnchanterMenu menu) {
                 menu.selectEnchantment(packet.enchantmentId, packet.targetLevel);
-                menu.tryApplyEnchantment();
+                applied = menu.tryApplyEnchantment();
             } else {
                 EnchantmentMastery.LOGGER.warn(
                         "Player {} sent ApplyEnchantmentPacket without MasteryEnchanterMenu open",
                         player.getName().getString()
                 );
             }
+            ModNetworking.CHANNEL.send(new ApplyResultPacket(packet.sequence, applied),
+                    PacketDistributor.PLAYER.with(player));
         }
         ctx.setPacketHandled(true);
     }
@@ -53,4 +64,8 @@ public class ApplyEnchantmentPacket {
     public int getTargetLevel() {
         return targetLevel;
     }
+
+    public int getSequence() {
+        return sequence;
+    }
 }
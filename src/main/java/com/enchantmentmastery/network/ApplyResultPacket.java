@@ -0,0 +1,33 @@
+package com.enchantmentmastery.network;
+
+import com.enchantmentmastery.client.ApplyPrediction;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.event.network.CustomPayloadEvent;
+
+/**
+ * Packet sent from server to client to confirm or reject an {@link ApplyEnchantmentPacket}.
+ * A rejected apply is rolled back on the client if it was predicted.
+ */
+public class ApplyResultPacket {
+    private final int sequence;
+    private final boolean accepted;
+
+    public ApplyResultPacket(int sequence, boolean accepted) {
+        this.sequence = sequence;
+        this.accepted = accepted;
+    }
+
+    public static void encode(ApplyResultPacket packet, FriendlyByteBuf buf) {
+        buf.writeVarInt(packet.sequence);
+        buf.writeBoolean(packet.accepted);
+    }
+
+    public static ApplyResultPacket decode(FriendlyByteBuf buf) {
+        return new ApplyResultPacket(buf.readVarInt(), buf.readBoolean());
+    }
+
+    public static void handle(ApplyResultPacket packet, CustomPayloadEvent.Context ctx) {
+        ApplyPrediction.resolve(packet.sequence, packet.accepted);
+        ctx.setPacketHandled(true);
+    }
+}
@@ -0,0 +1,41 @@
+package com.enchantmentmastery.network;
+
+import com.enchantmentmastery.menu.MasteryEnchanterMenu;
+import net.minecraft.client.Minecraft;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.entity.player.Player;
+import net.minecraftforge.event.network.CustomPayloadEvent;
+
+/**
+ * Packet sent from server to client with the apply costs for an open Mastery Enchanter, so the
+ * screen shows the server's cost curve instead of computing its own.
+ * Apply costs depend only on the target level, so one table covers every entry: index
+ * {@code i} holds the cost of level {@code i + 1}, up to the highest mastery in the menu.
+ */
+public class CostQuotePacket {
+    private final int containerId;
+    private final int[] costs;
+
+    public CostQuotePacket(int containerId, int[] costs) {
+        this.containerId = containerId;
+        this.costs = costs;
+    }
+
+    public static void encode(CostQuotePacket packet, FriendlyByteBuf buf) {
+        buf.writeVarInt(packet.containerId);
+        buf.writeVarIntArray(packet.costs);
+    }
+
+    public static CostQuotePacket decode(FriendlyByteBuf buf) {
+        return new CostQuotePacket(buf.readVarInt(), buf.readVarIntArray());
+    }
+
+    public static void handle(CostQuotePacket packet, CustomPayloadEvent.Context ctx) {
+        Player player = Minecraft.getInstance().player;
+        if (player != null && player.containerMenu instanceof MasteryEnchanterMenu menu
+                && menu.containerId == packet.containerId) {
+            menu.setCostQuotes(packet.costs);
+        }
+        ctx.setPacketHandled(true);
+    }
+}
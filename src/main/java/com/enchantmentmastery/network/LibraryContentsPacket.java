@@ -0,0 +1,53 @@
+package com.enchantmentmastery.network;
+
+import com.enchantmentmastery.client.screen.BookLibraryScreen;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.event.network.CustomPayloadEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packet sent from server to client with the contents of a book library, opening or refreshing
+ * the library screen. Enchantments are sent as registry ids, which match on both sides.
+ */
+public class LibraryContentsPacket {
+    private final BlockPos pos;
+    private final List<Entry> entries;
+
+    /**
+     * Number of books of one enchantment level.
+     */
+    public record Entry(int enchantment, int level, int count) {}
+
+    public LibraryContentsPacket(BlockPos pos, List<Entry> entries) {
+        this.pos = pos;
+        this.entries = entries;
+    }
+
+    public static void encode(LibraryContentsPacket packet, FriendlyByteBuf buf) {
+        buf.writeBlockPos(packet.pos);
+        buf.writeVarInt(packet.entries.size());
+        for (Entry entry : packet.entries) {
+            buf.writeVarInt(entry.enchantment());
+            buf.writeVarInt(entry.level());
+            buf.writeVarInt(entry.count());
+        }
+    }
+
+    public static LibraryContentsPacket decode(FriendlyByteBuf buf) {
+        BlockPos pos = buf.readBlockPos();
+        int size = buf.readVarInt();
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(buf.readVarInt(), buf.readVarInt(), buf.readVarInt()));
+        }
+        return new LibraryContentsPacket(pos, entries);
+    }
+
+    public static void handle(LibraryContentsPacket packet, CustomPayloadEvent.Context ctx) {
+        BookLibraryScreen.open(packet.pos, packet.entries);
+        ctx.setPacketHandled(true);
+    }
+}
@@ -0,0 +1,51 @@
+package com.enchantmentmastery.network;
+
+import com.enchantmentmastery.block.BookLibraryBlockEntity;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.item.ItemStack;
+import net.minecraftforge.event.network.CustomPayloadEvent;
+
+/**
+ * Packet sent from client to server to take one book out of a book library.
+ */
+public class LibraryWithdrawPacket {
+    // Same reach check vanilla uses for container menus
+    private static final double MAX_DISTANCE_SQR = 64.0;
+
+    private final BlockPos pos;
+    private final int enchantment;
+    private final int level;
+
+    public LibraryWithdrawPacket(BlockPos pos, int enchantment, int level) {
+        this.pos = pos;
+        this.enchantment = enchantment;
+        this.level = level;
+    }
+
+    public static void encode(LibraryWithdrawPacket packet, FriendlyByteBuf buf) {
+        buf.writeBlockPos(packet.pos);
+        buf.writeVarInt(packet.enchantment);
+        buf.writeVarInt(packet.level);
+    }
+
+    public static LibraryWithdrawPacket decode(FriendlyByteBuf buf) {
+        return new LibraryWithdrawPacket(buf.readBlockPos(), buf.readVarInt(), buf.readVarInt());
+    }
+
+    public static void handle(LibraryWithdrawPacket packet, CustomPayloadEvent.Context ctx) {
+        ServerPlayer player = ctx.getSender();
+        if (player != null
+                && player.distanceToSqr(packet.pos.getCenter()) <= MAX_DISTANCE_SQR
+                && player.level().isLoaded(packet.pos)
+                && player.level().getBlockEntity(packet.pos) instanceof BookLibraryBlockEntity library) {
+            ItemStack book = library.withdraw(packet.enchantment, packet.level);
+            if (!book.isEmpty() && !player.getInventory().add(book)) {
+                player.drop(book, false);
+            }
+            library.sendContents(player);
+        }
+        ctx.setPacketHandled(true);
+    }
+}
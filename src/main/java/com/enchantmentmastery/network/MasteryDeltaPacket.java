@@ -0,0 +1,128 @@
+package com.enchantmentmastery.network;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.capability.MasteryDigest;
+import com.enchantmentmastery.capability.MasterySnapshot;
+import com.enchantmentmastery.metrics.MasteryJfrEvents;
+import com.enchantmentmastery.util.EnchantIdPool;
+import net.minecraft.client.Minecraft;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.player.Player;
+import net.minecraftforge.event.network.CustomPayloadEvent;
+import net.minecraftforge.network.PacketDistributor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packet sent from server to client in answer to a {@link MasteryHelloPacket}.
+ * Every bucket set in the mask is replaced with the entries sent; an empty mask means the
+ * client's cached data is already current. The hash of the server's data is included so the
+ * client can check the result, and asks for everything again if it doesn't match.
+ */
+public class MasteryDeltaPacket {
+    private final long bucketMask;
+    private final long hash;
+    private final List<Entry> entries;
+
+    /**
+     * One enchantment's state in a replaced bucket.
+     */
+    public record Entry(ResourceLocation enchantId, int level, int xp, int[] letters) {}
+
+    public MasteryDeltaPacket(long bucketMask, long hash, List<Entry> entries) {
+        this.bucketMask = bucketMask;
+        this.hash = hash;
+        this.entries = entries;
+    }
+
+    /**
+     * Builds the delta that replaces the given buckets with the snapshot's entries.
+     */
+    public static MasteryDeltaPacket of(MasterySnapshot snapshot, long bucketMask, long hash) {
+        List<Entry> entries = new ArrayList<>();
+        if (bucketMask != 0) {
+            for (ResourceLocation id : MasteryDigest.ids(snapshot)) {
+                if ((bucketMask & (1L << MasteryDigest.bucket(id))) != 0) {
+                    int[] letters = snapshot.letters().get(id);
+                    entries.add(new Entry(id, snapshot.levels().getOrDefault(id, 0),
+                            snapshot.xp().getOrDefault(id, 0), letters != null ? letters : new int[0]));
+                }
+            }
+        }
+        return new MasteryDeltaPacket(bucketMask, hash, entries);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public static void encode(MasteryDeltaPacket packet, FriendlyByteBuf buf) {
+        MasteryJfrEvents.SyncEvent event = new MasteryJfrEvents.SyncEvent();
+        event.begin();
+        int start = buf.writerIndex();
+        buf.writeLong(packet.bucketMask);
+        buf.writeLong(packet.hash);
+        buf.writeVarInt(packet.entries.size());
+        for (Entry entry : packet.entries) {
+            buf.writeResourceLocation(entry.enchantId());
+            buf.writeVarInt(entry.level());
+            buf.writeVarInt(entry.xp());
+            buf.writeVarIntArray(entry.letters());
+        }
+        int bytes = buf.writerIndex() - start;
+        ModNetworking.recordSyncBytes(bytes);
+
+        if (event.shouldCommit()) {
+            event.full = false;
+            event.entries = packet.entries.size();
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    public static MasteryDeltaPacket decode(FriendlyByteBuf buf) {
+        long bucketMask = buf.readLong();
+        long hash = buf.readLong();
+        int size = buf.readVarInt();
+        List<Entry> entries = new ArrayList<>(Math.min(size, 1024));
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(EnchantIdPool.read(buf), buf.readVarInt(), buf.readVarInt(), buf.readVarIntArray()));
+        }
+        return new MasteryDeltaPacket(bucketMask, hash, entries);
+    }
+
+    public static void handle(MasteryDeltaPacket packet, CustomPayloadEvent.Context ctx) {
+        Player player = Minecraft.getInstance().player;
+        MasteryCapability.PlayerMasteryData data = player != null ? MasteryDataHelper.getDataOrNull(player) : null;
+        if (data != null) {
+            if (packet.bucketMask != 0) {
+                // Clear the replaced buckets, then fill them from the packet
+                for (ResourceLocation id : MasteryDigest.ids(data.snapshot())) {
+                    if ((packet.bucketMask & (1L << MasteryDigest.bucket(id))) != 0) {
+                        data.setMasteryLevel(id, 0);
+                        data.setMasteryXp(id, 0);
+                        data.setUnlockedLetterIndices(id, null);
+                    }
+                }
+                for (Entry entry : packet.entries) {
+                    data.setMasteryLevel(entry.enchantId(), entry.level());
+                    data.setMasteryXp(entry.enchantId(), entry.xp());
+                    data.setUnlockedLetterIndices(entry.enchantId(), entry.letters());
+                }
+            }
+
+            if (MasteryDigest.hash(MasteryDigest.bucketHashes(data.snapshot())) != packet.hash) {
+                EnchantmentMastery.LOGGER.debug("Mastery cache didn't match the server after a delta, requesting a full sync");
+                ModNetworking.CHANNEL.send(MasteryHelloPacket.empty(), PacketDistributor.SERVER.noArg());
+            } else {
+                EnchantmentMastery.LOGGER.debug("Synced mastery data from cache: {} enchants updated",
+                        packet.entries.size());
+            }
+        }
+        ctx.setPacketHandled(true);
+    }
+}
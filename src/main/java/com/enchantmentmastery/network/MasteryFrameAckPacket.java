@@ -0,0 +1,44 @@
+package com.enchantmentmastery.network;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.event.network.CustomPayloadEvent;
+
+/**
+ * Packet sent from client to server with the number of frames of a streamed full sync it has
+ * assembled, opening the server's send window for more.
+ */
+public class MasteryFrameAckPacket {
+    private final int transferId;
+    private final int received;
+
+    public MasteryFrameAckPacket(int transferId, int received) {
+        this.transferId = transferId;
+        this.received = received;
+    }
+
+    public int transferId() {
+        return transferId;
+    }
+
+    public int received() {
+        return received;
+    }
+
+    public static void encode(MasteryFrameAckPacket packet, FriendlyByteBuf buf) {
+        buf.writeVarInt(packet.transferId);
+        buf.writeVarInt(packet.received);
+    }
+
+    public static MasteryFrameAckPacket decode(FriendlyByteBuf buf) {
+        return new MasteryFrameAckPacket(buf.readVarInt(), buf.readVarInt());
+    }
+
+    public static void handle(MasteryFrameAckPacket packet, CustomPayloadEvent.Context ctx) {
+        ServerPlayer player = ctx.getSender();
+        if (player != null) {
+            MasteryTransfer.ack(player, packet.transferId, packet.received);
+        }
+        ctx.setPacketHandled(true);
+    }
+}
@@ -0,0 +1,69 @@
+package com.enchantmentmastery.network;
+
+import com.enchantmentmastery.client.MasteryTransferReceiver;
+import com.enchantmentmastery.metrics.MasteryJfrEvents;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.event.network.CustomPayloadEvent;
+
+/**
+ * Packet sent from server to client with one frame of a streamed full sync
+ * (see {@link MasteryTransfer}). Frame 0 announces the total size of the encoded data.
+ */
+public class MasteryFramePacket {
+    private final int transferId;
+    private final int index;
+    private final int totalBytes;
+    private final byte[] data;
+
+    public MasteryFramePacket(int transferId, int index, int totalBytes, byte[] data) {
+        this.transferId = transferId;
+        this.index = index;
+        this.totalBytes = totalBytes;
+        this.data = data;
+    }
+
+    public int transferId() {
+        return transferId;
+    }
+
+    public int index() {
+        return index;
+    }
+
+    public int totalBytes() {
+        return totalBytes;
+    }
+
+    public byte[] data() {
+        return data;
+    }
+
+    public static void encode(MasteryFramePacket packet, FriendlyByteBuf buf) {
+        MasteryJfrEvents.SyncEvent event = new MasteryJfrEvents.SyncEvent();
+        event.begin();
+        int start = buf.writerIndex();
+        buf.writeVarInt(packet.transferId);
+        buf.writeVarInt(packet.index);
+        buf.writeVarInt(packet.totalBytes);
+        buf.writeByteArray(packet.data);
+        int bytes = buf.writerIndex() - start;
+        ModNetworking.recordSyncBytes(bytes);
+
+        if (event.shouldCommit()) {
+            event.full = true;
+            event.frame = packet.index;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    public static MasteryFramePacket decode(FriendlyByteBuf buf) {
+        return new MasteryFramePacket(buf.readVarInt(), buf.readVarInt(), buf.readVarInt(),
+                buf.readByteArray(MasteryTransfer.FRAME_BYTES));
+    }
+
+    public static void handle(MasteryFramePacket packet, CustomPayloadEvent.Context ctx) {
+        MasteryTransferReceiver.accept(packet);
+        ctx.setPacketHandled(true);
+    }
+}
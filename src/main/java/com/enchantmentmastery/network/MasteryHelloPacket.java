@@ -0,0 +1,45 @@
+package com.enchantmentmastery.network;
+
+import com.enchantmentmastery.capability.MasteryDigest;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.event.network.CustomPayloadEvent;
+
+/**
+ * Packet sent from client to server after login with the bucket hashes of the mastery data the
+ * client cached last session. The server answers with a {@link MasteryDeltaPacket} or a full
+ * {@link SyncMasteryDataPacket}. A client without a cache sends all-zero hashes. The client
+ * sends it again with its current data when that may have drifted from the server's, such as
+ * after a predicted apply it couldn't roll back cleanly. The server answers at most one hello per
+ * second per player; later ones wait their turn.
+ */
+public class MasteryHelloPacket {
+    private final long[] buckets;
+
+    public MasteryHelloPacket(long[] buckets) {
+        this.buckets = buckets;
+    }
+
+    /**
+     * A hello that matches nothing but empty data, so the server sends everything.
+     */
+    public static MasteryHelloPacket empty() {
+        return new MasteryHelloPacket(new long[MasteryDigest.BUCKETS]);
+    }
+
+    public static void encode(MasteryHelloPacket packet, FriendlyByteBuf buf) {
+        buf.writeLongArray(packet.buckets);
+    }
+
+    public static MasteryHelloPacket decode(FriendlyByteBuf buf) {
+        return new MasteryHelloPacket(buf.readLongArray(new long[MasteryDigest.BUCKETS]));
+    }
+
+    public static void handle(MasteryHelloPacket packet, CustomPayloadEvent.Context ctx) {
+        ServerPlayer player = ctx.getSender();
+        if (player != null) {
+            ModNetworking.onHello(player, packet.buckets);
+        }
+        ctx.setPacketHandled(true);
+    }
+}
@@ -0,0 +1,351 @@
+package com.enchantmentmastery.network;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.network.PacketDistributor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Streams full syncs that are too large for one packet as a series of
+ * {@link MasteryFramePacket}s, a few per tick.
+ *
+ * The client acknowledges every frame it assembles, and at most {@link #WINDOW_FRAMES} frames
+ * are unacknowledged at a time, so a slow client holds the transfer back instead of piling up
+ * buffers on the server. The client only replaces its data once the last frame arrives.
+ *
+ * A transfer that goes {@link #ACK_TIMEOUT_TICKS} without an acknowledgement is restarted under
+ * a new id, which the client takes as superseding the old one. After {@link #MAX_RESTARTS}
+ * restarts the player is disconnected with a reason: a client that can't take the data in frames
+ * can't take it in one oversized packet either, and that packet has no flow control at all.
+ */
+public final class MasteryTransfer {
+    private MasteryTransfer() {}
+
+    /** Largest payload of one frame. */
+    public static final int FRAME_BYTES = 16 * 1024;
+
+    /** Data with more entries than this is encoded to check whether it needs streaming. */
+    public static final int STREAM_ENTRIES = FRAME_BYTES / 64;
+
+    /** Frames sent but not yet acknowledged. */
+    public static final int WINDOW_FRAMES = 4;
+
+    /** Frames sent per player per tick. */
+    static final int FRAMES_PER_TICK = 2;
+
+    /** Ticks a transfer may go without an acknowledgement before it is restarted. */
+    static final int ACK_TIMEOUT_TICKS = 200;
+
+    /** Restarts before giving up and disconnecting the player. */
+    static final int MAX_RESTARTS = 2;
+
+    // Transfers in progress, by player; the player entity changes on respawn
+    private static final Map<UUID, Outgoing> ACTIVE = new LinkedHashMap<>();
+    private static int nextTransferId = 1;
+
+    /**
+     * Whether encoded data is too large to send in one packet.
+     */
+    public static boolean needsStreaming(byte[] packed) {
+        return packed.length > FRAME_BYTES;
+    }
+
+    /**
+     * Starts streaming encoded data to a player. Frames go out from the next tick.
+     */
+    static void start(ServerPlayer player, byte[] packed) {
+        start(player, packed, 0);
+    }
+
+    private static void start(ServerPlayer player, byte[] packed, int restarts) {
+        Outgoing transfer = new Outgoing(nextTransferId++, packed, restarts);
+        transfer.extendDeadline(player.server.getTickCount());
+        ACTIVE.put(player.getUUID(), transfer);
+        EnchantmentMastery.LOGGER.debug("Streaming {} bytes of mastery data to {}", packed.length,
+                player.getName().getString());
+    }
+
+    public static boolean isActive(ServerPlayer player) {
+        return ACTIVE.containsKey(player.getUUID());
+    }
+
+    /**
+     * Handles a client's acknowledgement of the frames it has assembled.
+     */
+    public static void ack(ServerPlayer player, int transferId, int received) {
+        Outgoing transfer = ACTIVE.get(player.getUUID());
+        if (transfer != null && transfer.transferId() == transferId && transfer.ack(received)) {
+            transfer.extendDeadline(player.server.getTickCount());
+        }
+    }
+
+    static void cancel(ServerPlayer player) {
+        ACTIVE.remove(player.getUUID());
+    }
+
+    /**
+     * Sends the frames each transfer's window allows. Called at server tick end.
+     */
+    public static void tick(MinecraftServer server) {
+        tick(server, (player, frame) -> ModNetworking.CHANNEL.send(frame, PacketDistributor.PLAYER.with(player)));
+    }
+
+    /**
+     * Sends the frames each transfer's window allows through {@code send}.
+     */
+    public static void tick(MinecraftServer server, BiConsumer<ServerPlayer, MasteryFramePacket> send) {
+        if (ACTIVE.isEmpty()) {
+            return;
+        }
+        List<ServerPlayer> finished = new ArrayList<>();
+        Map<ServerPlayer, Outgoing> stalled = new LinkedHashMap<>();
+        Iterator<Map.Entry<UUID, Outgoing>> it = ACTIVE.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, Outgoing> entry = it.next();
+            ServerPlayer player = server.getPlayerList().getPlayer(entry.getKey());
+            if (player == null) {
+                it.remove();
+                continue;
+            }
+            Outgoing transfer = entry.getValue();
+            if (transfer.done()) {
+                it.remove();
+                finished.add(player);
+                continue;
+            }
+            if (server.getTickCount() >= transfer.deadline()) {
+                it.remove();
+                stalled.put(player, transfer);
+                continue;
+            }
+            for (MasteryFramePacket frame : transfer.poll()) {
+                send.accept(player, frame);
+            }
+        }
+        stalled.forEach(MasteryTransfer::restart);
+        // Anything changed while streaming goes out now
+        for (ServerPlayer player : finished) {
+            ModNetworking.syncIfChanged(player);
+        }
+    }
+
+    private static void restart(ServerPlayer player, Outgoing stalled) {
+        if (stalled.restarts() < MAX_RESTARTS) {
+            EnchantmentMastery.LOGGER.debug("Mastery data transfer to {} stalled at frame {} of {}, restarting",
+                    player.getName().getString(), stalled.acked, stalled.frameCount());
+            start(player, stalled.packed, stalled.restarts() + 1);
+            return;
+        }
+        EnchantmentMastery.LOGGER.warn("Mastery data transfer to {} stalled {} times, disconnecting them",
+                player.getName().getString(), stalled.restarts() + 1);
+        player.connection.disconnect(Component.translatable("enchantmentmastery.sync.stalled"));
+    }
+
+    /**
+     * The sending side of one transfer.
+     */
+    public static final class Outgoing {
+        private final int transferId;
+        private final byte[] packed;
+        private final int frameCount;
+        private final int restarts;
+        private int sent;
+        private int acked;
+        private int deadline;
+
+        public Outgoing(int transferId, byte[] packed) {
+            this(transferId, packed, 0);
+        }
+
+        Outgoing(int transferId, byte[] packed, int restarts) {
+            this.transferId = transferId;
+            this.packed = packed;
+            this.frameCount = Math.max(1, (packed.length + FRAME_BYTES - 1) / FRAME_BYTES);
+            this.restarts = restarts;
+        }
+
+        public int transferId() {
+            return transferId;
+        }
+
+        public int frameCount() {
+            return frameCount;
+        }
+
+        int restarts() {
+            return restarts;
+        }
+
+        /**
+         * Server tick at which the transfer counts as stalled.
+         */
+        int deadline() {
+            return deadline;
+        }
+
+        void extendDeadline(int tick) {
+            deadline = tick + ACK_TIMEOUT_TICKS;
+        }
+
+        /**
+         * Gets the frames that may be sent now, marking them sent.
+         */
+        public List<MasteryFramePacket> poll() {
+            List<MasteryFramePacket> frames = new ArrayList<>(FRAMES_PER_TICK);
+            while (sent < frameCount && sent - acked < WINDOW_FRAMES && frames.size() < FRAMES_PER_TICK) {
+                int from = sent * FRAME_BYTES;
+                byte[] chunk = Arrays.copyOfRange(packed, from, Math.min(packed.length, from + FRAME_BYTES));
+                frames.add(new MasteryFramePacket(transferId, sent, packed.length, chunk));
+                sent++;
+            }
+            return frames;
+        }
+
+        /**
+         * Records that the client has assembled the first {@code received} frames.
+         *
+         * @return Whether the acknowledgement covered new frames
+         */
+        public boolean ack(int received) {
+            int before = acked;
+            acked = Math.max(acked, Math.min(received, sent));
+            return acked > before;
+        }
+
+        public boolean done() {
+            return acked == frameCount;
+        }
+    }
+
+    /**
+     * The receiving side: assembles the current transfer, acknowledges each frame and replaces
+     * the target data, in one step, once the whole transfer has arrived and decoded.
+     */
+    public static final class Receiver {
+        private @Nullable Assembly assembly;
+
+        /**
+         * Takes one frame.
+         *
+         * @param target Data to replace once the transfer completes; may supply null
+         * @param acks   Receives the acknowledgement to send back
+         * @return Whether this frame completed the transfer and the target was replaced
+         */
+        public boolean accept(MasteryFramePacket frame, Supplier<MasteryCapability.PlayerMasteryData> target,
+                              Consumer<MasteryFrameAckPacket> acks) {
+            // A new transfer supersedes any unfinished one
+            if (frame.index() == 0 && (assembly == null || assembly.transferId() != frame.transferId())) {
+                assembly = new Assembly(frame.transferId(), frame.totalBytes());
+            }
+            Assembly current = assembly;
+            if (current == null || current.transferId() != frame.transferId()) {
+                return false;
+            }
+
+            boolean complete = current.accept(frame);
+            acks.accept(new MasteryFrameAckPacket(current.transferId(), current.received()));
+            if (!complete) {
+                return false;
+            }
+            assembly = null;
+
+            MasteryCapability.PlayerMasteryData data = target.get();
+            if (data == null) {
+                return false;
+            }
+            try {
+                data.copyFrom(current.stage());
+            } catch (RuntimeException e) {
+                EnchantmentMastery.LOGGER.warn("Discarding malformed streamed mastery data", e);
+                return false;
+            }
+            EnchantmentMastery.LOGGER.debug("Synced mastery data from server: {} bytes in {} frames",
+                    current.bytes().length, current.received());
+            return true;
+        }
+
+        /**
+         * Drops any unfinished transfer.
+         */
+        public void reset() {
+            assembly = null;
+        }
+    }
+
+    /**
+     * The receiving side of one transfer: frames are accepted in order into a buffer of the
+     * announced size.
+     */
+    public static final class Assembly {
+        private final int transferId;
+        private final byte[] bytes;
+        private int filled;
+        private int received;
+
+        public Assembly(int transferId, int totalBytes) {
+            this.transferId = transferId;
+            this.bytes = new byte[totalBytes];
+        }
+
+        public int transferId() {
+            return transferId;
+        }
+
+        /**
+         * Frames assembled so far.
+         */
+        public int received() {
+            return received;
+        }
+
+        /**
+         * Adds the next frame. Frames out of order or past the announced size are ignored.
+         *
+         * @return Whether the transfer is complete
+         */
+        public boolean accept(MasteryFramePacket frame) {
+            if (frame.transferId() == transferId && frame.index() == received
+                    && filled + frame.data().length <= bytes.length) {
+                System.arraycopy(frame.data(), 0, bytes, filled, frame.data().length);
+                filled += frame.data().length;
+                received++;
+            }
+            return complete();
+        }
+
+        public boolean complete() {
+            return filled == bytes.length && received > 0;
+        }
+
+        public byte[] bytes() {
+            return bytes;
+        }
+
+        /**
+         * Decodes the assembled data into a staged copy, so bad data fails before anything is replaced.
+         */
+        public MasteryCapability.PlayerMasteryData stage() {
+            MasteryCapability.PlayerMasteryData staged = new MasteryCapability.PlayerMasteryData();
+            staged.loadPacked(bytes);
+            staged.snapshot();
+            if (staged.isUnloaded()) {
+                throw new IllegalArgumentException("Streamed mastery data doesn't decode");
+            }
+            return staged;
+        }
+    }
+}
@@ -2,26 +2,68 @@ package com.enchantmentmastery.network;
 
 import com.enchantmentmastery.EnchantmentMastery;
 import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.capability.MasteryDigest;
+import com.enchantmentmastery.capability.MasterySnapshot;
+import com.enchantmentmastery.metrics.MasteryMetrics;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.network.Channel;
 import net.minecraftforge.network.ChannelBuilder;
 import net.minecraftforge.network.NetworkDirection;
 import net.minecraftforge.network.PacketDistributor;
 import net.minecraftforge.network.SimpleChannel;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
 /**
  * Network packet registration and utility methods for Forge.
  */
 public class ModNetworking {
-    private static final int PROTOCOL_VERSION = 1;
+    private static final int PROTOCOL_VERSION = 9;
+
+    // Players with committed changes waiting for the tick-end sync
+    private static final Set<ServerPlayer> PENDING_SYNCS = new LinkedHashSet<>();
+
+    // Ticks to wait for a client's hello before sending everything anyway
+    private static final int HELLO_TIMEOUT_TICKS = 100;
+
+    // Players logged in whose client hasn't said what it cached yet -> server tick to give up at
+    private static final Map<ServerPlayer, Integer> AWAITING_HELLO = new LinkedHashMap<>();
+
+    // Ticks between answered hellos, so a client can't force a full digest and sync with every packet
+    private static final int HELLO_INTERVAL_TICKS = 20;
+
+    // Server tick each player's last hello was answered at
+    private static final Map<UUID, Integer> LAST_HELLO = new HashMap<>();
+
+    // Hellos that came in too soon after the last one; only the latest per player is answered
+    private static final Map<UUID, long[]> DEFERRED_HELLOS = new LinkedHashMap<>();
+
+    // What each client was last sent: the data object and its version at the time
+    private static final Map<UUID, SyncedState> SYNCED_STATES = new HashMap<>();
+
+    private record SyncedState(MasteryCapability.PlayerMasteryData data, long version) {}
 
     public static final SimpleChannel CHANNEL = ChannelBuilder
             .named(ResourceLocation.fromNamespaceAndPath(EnchantmentMastery.MOD_ID, "main"))
             .networkProtocolVersion(PROTOCOL_VERSION)
-            .clientAcceptedVersions((status, version) -> true)
-            .serverAcceptedVersions((status, version) -> true)
+            // The mod is optional on either side, but both sides must agree on the packet layout when present
+            .clientAcceptedVersions(ModNetworking::acceptsVersion)
+            .serverAcceptedVersions(ModNetworking::acceptsVersion)
             .simpleChannel();
 
+    private static boolean acceptsVersion(Channel.VersionTest.Status status, int version) {
+        return status != Channel.VersionTest.Status.PRESENT || version == PROTOCOL_VERSION;
+    }
+
     public static void register() {
         CHANNEL.messageBuilder(ApplyEnchantmentPacket.class, 1, NetworkDirection.PLAY_TO_SERVER)
                 .decoder(ApplyEnchantmentPacket::decode)
@@ -35,16 +77,276 @@ public class ModNetworking {
                 .consumerMainThread(SyncMasteryDataPacket::handle)
                 .add();
 
+        CHANNEL.messageBuilder(AbsorbAllPacket.class, 3, NetworkDirection.PLAY_TO_SERVER)
+                .decoder(AbsorbAllPacket::decode)
+                .encoder(AbsorbAllPacket::encode)
+                .consumerMainThread(AbsorbAllPacket::handle)
+                .add();
+
+        CHANNEL.messageBuilder(LibraryContentsPacket.class, 4, NetworkDirection.PLAY_TO_CLIENT)
+                .decoder(LibraryContentsPacket::decode)
+                .encoder(LibraryContentsPacket::encode)
+                .consumerMainThread(LibraryContentsPacket::handle)
+                .add();
+
+        CHANNEL.messageBuilder(LibraryWithdrawPacket.class, 5, NetworkDirection.PLAY_TO_SERVER)
+                .decoder(LibraryWithdrawPacket::decode)
+                .encoder(LibraryWithdrawPacket::encode)
+                .consumerMainThread(LibraryWithdrawPacket::handle)
+                .add();
+
+        CHANNEL.messageBuilder(CostQuotePacket.class, 6, NetworkDirection.PLAY_TO_CLIENT)
+                .decoder(CostQuotePacket::decode)
+                .encoder(CostQuotePacket::encode)
+                .consumerMainThread(CostQuotePacket::handle)
+                .add();
+
+        CHANNEL.messageBuilder(ApplyResultPacket.class, 7, NetworkDirection.PLAY_TO_CLIENT)
+                .decoder(ApplyResultPacket::decode)
+                .encoder(ApplyResultPacket::encode)
+                .consumerMainThread(ApplyResultPacket::handle)
+                .add();
+
+        CHANNEL.messageBuilder(MasteryHelloPacket.class, 8, NetworkDirection.PLAY_TO_SERVER)
+                .decoder(MasteryHelloPacket::decode)
+                .encoder(MasteryHelloPacket::encode)
+                .consumerMainThread(MasteryHelloPacket::handle)
+                .add();
+
+        CHANNEL.messageBuilder(MasteryDeltaPacket.class, 9, NetworkDirection.PLAY_TO_CLIENT)
+                .decoder(MasteryDeltaPacket::decode)
+                .encoder(MasteryDeltaPacket::encode)
+                .consumerMainThread(MasteryDeltaPacket::handle)
+                .add();
+
+        CHANNEL.messageBuilder(MasteryFramePacket.class, 10, NetworkDirection.PLAY_TO_CLIENT)
+                .decoder(MasteryFramePacket::decode)
+                .encoder(MasteryFramePacket::encode)
+                .consumerMainThread(MasteryFramePacket::handle)
+                .add();
+
+        CHANNEL.messageBuilder(MasteryFrameAckPacket.class, 11, NetworkDirection.PLAY_TO_SERVER)
+                .decoder(MasteryFrameAckPacket::decode)
+                .encoder(MasteryFrameAckPacket::encode)
+                .consumerMainThread(MasteryFrameAckPacket::handle)
+                .add();
+
         EnchantmentMastery.LOGGER.info("Network packets registered");
     }
 
     /**
      * Syncs a player's mastery data to their client.
+     * Data too large for one packet is streamed over the next ticks (see {@link MasteryTransfer}).
      */
     public static void syncMasteryData(ServerPlayer player) {
-        player.getCapability(MasteryCapability.PLAYER_MASTERY).ifPresent(data -> {
-            SyncMasteryDataPacket packet = new SyncMasteryDataPacket(data);
-            CHANNEL.send(packet, PacketDistributor.PLAYER.with(player));
-        });
+        MasteryCapability.PlayerMasteryData data = MasteryDataHelper.getDataOrNull(player);
+        // While a transfer is streaming, later changes are sent once it finishes
+        if (data != null && !data.isUnloaded() && !MasteryTransfer.isActive(player)) {
+            if (data.isUndecoded() || data.snapshot().entryCount() > MasteryTransfer.STREAM_ENTRIES) {
+                byte[] packed = data.encodedBytes();
+                if (MasteryTransfer.needsStreaming(packed)) {
+                    MasteryTransfer.start(player, packed);
+                    MasteryMetrics.SYNC_PACKETS.increment();
+                    markSynced(player, data);
+                    return;
+                }
+            }
+            sendSyncPacket(player, data);
+        }
+    }
+
+    private static void sendSyncPacket(ServerPlayer player, MasteryCapability.PlayerMasteryData data) {
+        CHANNEL.send(SyncMasteryDataPacket.of(data), PacketDistributor.PLAYER.with(player));
+        MasteryMetrics.SYNC_PACKETS.increment();
+        markSynced(player, data);
+    }
+
+    /**
+     * Syncs a player's mastery data only if it changed since it was last sent,
+     * e.g. on dimension changes and respawns.
+     */
+    public static void syncIfChanged(ServerPlayer player) {
+        if (AWAITING_HELLO.containsKey(player)) {
+            return;
+        }
+        MasteryCapability.PlayerMasteryData data = MasteryDataHelper.getDataOrNull(player);
+        SyncedState synced = SYNCED_STATES.get(player.getUUID());
+        if (data != null && (synced == null || synced.data() != data || synced.version() != data.getVersion())) {
+            syncMasteryData(player);
+        }
+    }
+
+    private static void markSynced(ServerPlayer player, MasteryCapability.PlayerMasteryData data) {
+        SYNCED_STATES.put(player.getUUID(), new SyncedState(data, data.getVersion()));
+    }
+
+    /**
+     * Carries the synced state over to a respawned player whose data was copied from the old one,
+     * so an unchanged copy isn't sent again.
+     */
+    public static void transferSyncedState(ServerPlayer player) {
+        SyncedState synced = SYNCED_STATES.get(player.getUUID());
+        MasteryCapability.PlayerMasteryData data = MasteryDataHelper.getDataOrNull(player);
+        if (synced != null && data != null && synced.version() == synced.data().getVersion()) {
+            markSynced(player, data);
+        }
+    }
+
+    /**
+     * Holds back a newly logged in player's sync until their client says what it has cached.
+     */
+    public static void awaitHello(ServerPlayer player) {
+        AWAITING_HELLO.put(player, player.server.getTickCount() + HELLO_TIMEOUT_TICKS);
+    }
+
+    /**
+     * Takes a client's hello. One that comes in within {@link #HELLO_INTERVAL_TICKS} of the last
+     * answered one waits until the interval is up.
+     */
+    static void onHello(ServerPlayer player, long[] clientBuckets) {
+        Integer last = LAST_HELLO.get(player.getUUID());
+        if (last != null && player.server.getTickCount() - last < HELLO_INTERVAL_TICKS) {
+            DEFERRED_HELLOS.put(player.getUUID(), clientBuckets);
+            return;
+        }
+        answerHello(player, clientBuckets);
+    }
+
+    /**
+     * Answers a client's hello: nothing if its cache matches, the differing buckets if only a few
+     * entries changed, otherwise a full sync. Deltas too large for one packet also become a
+     * full sync, which is streamed.
+     *
+     * While a full sync is streaming, the hello is answered by that transfer: it replaces the
+     * client's whole copy when it completes, and changes made since go out right after. A delta
+     * sent now would be overwritten by the older streamed data.
+     */
+    static void answerHello(ServerPlayer player, long[] clientBuckets) {
+        AWAITING_HELLO.remove(player);
+        DEFERRED_HELLOS.remove(player.getUUID());
+        LAST_HELLO.put(player.getUUID(), player.server.getTickCount());
+        // A client resyncing after a failed rollback may have its XP wrong too; resend it next tick
+        player.resetSentInfo();
+        MasteryCapability.PlayerMasteryData data = MasteryDataHelper.getDataOrNull(player);
+        // Data that failed to load would only replace the client's copy with nothing
+        if (data == null || data.isUnloaded()) {
+            return;
+        }
+        if (MasteryTransfer.isActive(player)) {
+            EnchantmentMastery.LOGGER.debug("Mastery cache hello from {} left to the transfer in progress",
+                    player.getName().getString());
+            return;
+        }
+        if (clientBuckets.length != MasteryDigest.BUCKETS) {
+            syncMasteryData(player);
+            return;
+        }
+
+        MasterySnapshot snapshot = data.snapshot();
+        long[] buckets = MasteryDigest.bucketHashes(snapshot);
+        long mask = MasteryDigest.differingBuckets(buckets, clientBuckets);
+        MasteryDeltaPacket delta = MasteryDeltaPacket.of(snapshot, mask, MasteryDigest.hash(buckets));
+        if (mask != 0 && (delta.size() * 2 >= MasteryDigest.ids(snapshot).size()
+                || delta.size() > MasteryTransfer.STREAM_ENTRIES)) {
+            syncMasteryData(player);
+            return;
+        }
+        CHANNEL.send(delta, PacketDistributor.PLAYER.with(player));
+        MasteryMetrics.SYNC_PACKETS.increment();
+        markSynced(player, data);
+        EnchantmentMastery.LOGGER.debug("Sent {} cached mastery entries to {}", delta.size(),
+                player.getName().getString());
+    }
+
+    /**
+     * Forgets a player's sync state. Called on logout.
+     */
+    public static void forget(ServerPlayer player) {
+        AWAITING_HELLO.remove(player);
+        LAST_HELLO.remove(player.getUUID());
+        DEFERRED_HELLOS.remove(player.getUUID());
+        SYNCED_STATES.remove(player.getUUID());
+        PENDING_SYNCS.remove(player);
+        MasteryTransfer.cancel(player);
+    }
+
+    /**
+     * Schedules a sync at the end of the current tick, so several edits in one tick send one packet.
+     */
+    public static void scheduleSync(ServerPlayer player) {
+        PENDING_SYNCS.add(player);
+    }
+
+    /**
+     * Sends the syncs scheduled this tick. Called at server tick end.
+     */
+    public static void flushScheduledSyncs(MinecraftServer server) {
+        if (!AWAITING_HELLO.isEmpty()) {
+            expireHellos();
+        }
+        if (!DEFERRED_HELLOS.isEmpty()) {
+            answerDeferredHellos(server);
+        }
+        if (PENDING_SYNCS.isEmpty()) {
+            return;
+        }
+        for (ServerPlayer player : PENDING_SYNCS) {
+            // Players still awaiting a hello get these changes in its answer
+            if (!player.hasDisconnected() && !AWAITING_HELLO.containsKey(player)) {
+                syncMasteryData(player);
+            }
+        }
+        PENDING_SYNCS.clear();
+    }
+
+    private static void answerDeferredHellos(MinecraftServer server) {
+        Iterator<Map.Entry<UUID, long[]>> it = DEFERRED_HELLOS.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, long[]> entry = it.next();
+            ServerPlayer player = server.getPlayerList().getPlayer(entry.getKey());
+            if (player == null) {
+                it.remove();
+            } else if (server.getTickCount() - LAST_HELLO.getOrDefault(entry.getKey(), 0) >= HELLO_INTERVAL_TICKS) {
+                it.remove();
+                answerHello(player, entry.getValue());
+            }
+        }
+    }
+
+    private static void expireHellos() {
+        Iterator<Map.Entry<ServerPlayer, Integer>> it = AWAITING_HELLO.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<ServerPlayer, Integer> entry = it.next();
+            ServerPlayer player = entry.getKey();
+            if (player.hasDisconnected()) {
+                it.remove();
+            } else if (player.server.getTickCount() >= entry.getValue()) {
+                it.remove();
+                syncMasteryData(player);
+                EnchantmentMastery.LOGGER.debug("No mastery cache hello from {}, sent a full sync",
+                        player.getName().getString());
+            }
+        }
+    }
+
+    /**
+     * Records the encoded size of a sync packet. Called from the encoder.
+     */
+    static void recordSyncBytes(int bytes) {
+        MasteryMetrics.SYNC_BYTES.add(bytes);
+    }
+
+    /**
+     * Gets the number of sync packets sent since startup.
+     */
+    public static long getSyncPacketsSent() {
+        return MasteryMetrics.SYNC_PACKETS.get();
+    }
+
+    /**
+     * Gets the number of sync payload bytes encoded since startup.
+     */
+    public static long getSyncBytesSent() {
+        return MasteryMetrics.SYNC_BYTES.get();
     }
 }
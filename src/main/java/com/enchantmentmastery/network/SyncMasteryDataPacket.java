@@ -2,6 +2,10 @@ package com.enchantmentmastery.network;
 
 import com.enchantmentmastery.EnchantmentMastery;
 import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.capability.MasterySnapshot;
+import com.enchantmentmastery.metrics.MasteryJfrEvents;
+import com.enchantmentmastery.util.EnchantIdPool;
 import net.minecraft.client.Minecraft;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceLocation;
@@ -13,12 +17,15 @@ import java.util.Map;
 
 /**
  * Packet sent from server to client to sync player mastery data.
+ * Data that hasn't been decoded on the server since login is sent as its saved bytes,
+ * leaving the decoding to the client. The client's copy is replaced, not merged.
  */
 public class SyncMasteryDataPacket {
     private final Map<ResourceLocation, Integer> masteryLevels;
     private final Map<ResourceLocation, Integer> masteryXp;
     private final Map<ResourceLocation, int[]> unlockedLetters;
     private final int totalLevelsSpent;
+    private final byte[] packed;
 
     public SyncMasteryDataPacket(Map<ResourceLocation, Integer> levels, Map<ResourceLocation, Integer> xp,
                                  Map<ResourceLocation, int[]> letters, int totalSpent) {
@@ -26,6 +33,15 @@ public class SyncMasteryDataPacket {
         this.masteryXp = xp;
         this.unlockedLetters = letters;
         this.totalLevelsSpent = totalSpent;
+        this.packed = null;
+    }
+
+    private SyncMasteryDataPacket(byte[] packed) {
+        this.masteryLevels = Map.of();
+        this.masteryXp = Map.of();
+        this.unlockedLetters = Map.of();
+        this.totalLevelsSpent = 0;
+        this.packed = packed;
     }
 
     public SyncMasteryDataPacket(MasteryCapability.IPlayerMasteryData data) {
@@ -37,7 +53,34 @@ public class SyncMasteryDataPacket {
         );
     }
 
+    /**
+     * Creates a full sync packet, reusing the saved bytes if the data hasn't been decoded yet.
+     */
+    public static SyncMasteryDataPacket of(MasteryCapability.IPlayerMasteryData data) {
+        if (data instanceof MasteryCapability.PlayerMasteryData masteryData && masteryData.isUndecoded()) {
+            return new SyncMasteryDataPacket(masteryData.encodedBytes());
+        }
+        return new SyncMasteryDataPacket(data);
+    }
+
     public static void encode(SyncMasteryDataPacket packet, FriendlyByteBuf buf) {
+        MasteryJfrEvents.SyncEvent event = new MasteryJfrEvents.SyncEvent();
+        event.begin();
+        int start = buf.writerIndex();
+
+        buf.writeBoolean(packet.packed != null);
+        if (packet.packed != null) {
+            buf.writeByteArray(packet.packed);
+            int bytes = buf.writerIndex() - start;
+            ModNetworking.recordSyncBytes(bytes);
+            if (event.shouldCommit()) {
+                event.full = true;
+                event.bytes = bytes;
+                event.commit();
+            }
+            return;
+        }
+
         // Write mastery levels
         buf.writeVarInt(packet.masteryLevels.size());
         for (var entry : packet.masteryLevels.entrySet()) {
@@ -65,14 +108,30 @@ public class SyncMasteryDataPacket {
 
         // Write total levels spent
         buf.writeVarInt(packet.totalLevelsSpent);
+
+        int bytes = buf.writerIndex() - start;
+        ModNetworking.recordSyncBytes(bytes);
+
+        if (event.shouldCommit()) {
+            event.full = true;
+            event.entries = packet.masteryLevels.size() + packet.masteryXp.size() + packet.unlockedLetters.size();
+            event.bytes = bytes;
+            event.commit();
+        }
     }
 
     public static SyncMasteryDataPacket decode(FriendlyByteBuf buf) {
+        if (buf.readBoolean()) {
+            MasterySnapshot snapshot = MasterySnapshot.fromBytes(buf.readByteArray());
+            return new SyncMasteryDataPacket(snapshot.levels(), snapshot.xp(), snapshot.letters(),
+                    snapshot.totalLevelsSpent());
+        }
+
         // Read mastery levels
         int levelsSize = buf.readVarInt();
         Map<ResourceLocation, Integer> levels = new HashMap<>();
         for (int i = 0; i < levelsSize; i++) {
-            ResourceLocation id = buf.readResourceLocation();
+            ResourceLocation id = EnchantIdPool.read(buf);
             int level = buf.readVarInt();
             levels.put(id, level);
         }
@@ -81,7 +140,7 @@ public class SyncMasteryDataPacket {
         int xpSize = buf.readVarInt();
         Map<ResourceLocation, Integer> xp = new HashMap<>();
         for (int i = 0; i < xpSize; i++) {
-            ResourceLocation id = buf.readResourceLocation();
+            ResourceLocation id = EnchantIdPool.read(buf);
             int xpVal = buf.readVarInt();
             xp.put(id, xpVal);
         }
@@ -90,7 +149,7 @@ public class SyncMasteryDataPacket {
         int lettersSize = buf.readVarInt();
         Map<ResourceLocation, int[]> letters = new HashMap<>();
         for (int i = 0; i < lettersSize; i++) {
-            ResourceLocation id = buf.readResourceLocation();
+            ResourceLocation id = EnchantIdPool.read(buf);
             int arrLen = buf.readVarInt();
             int[] arr = new int[arrLen];
             for (int j = 0; j < arrLen; j++) {
@@ -108,7 +167,25 @@ public class SyncMasteryDataPacket {
     public static void handle(SyncMasteryDataPacket packet, CustomPayloadEvent.Context ctx) {
         Player player = Minecraft.getInstance().player;
         if (player != null) {
-            player.getCapability(MasteryCapability.PLAYER_MASTERY).ifPresent(data -> {
+            MasteryCapability.IPlayerMasteryData data = MasteryDataHelper.getDataOrNull(player);
+            if (data != null) {
+                // A full sync replaces everything, including whatever was loaded from the client's cache
+                for (ResourceLocation id : data.getAllMasteryLevels().keySet()) {
+                    if (!packet.masteryLevels.containsKey(id)) {
+                        data.setMasteryLevel(id, 0);
+                    }
+                }
+                for (ResourceLocation id : data.getAllMasteryXp().keySet()) {
+                    if (!packet.masteryXp.containsKey(id)) {
+                        data.setMasteryXp(id, 0);
+                    }
+                }
+                for (ResourceLocation id : data.getAllUnlockedLetters().keySet()) {
+                    if (!packet.unlockedLetters.containsKey(id)) {
+                        data.setUnlockedLetterIndices(id, null);
+                    }
+                }
+
                 // Copy received data
                 for (var entry : packet.masteryLevels.entrySet()) {
                     data.setMasteryLevel(entry.getKey(), entry.getValue());
@@ -122,7 +199,7 @@ public class SyncMasteryDataPacket {
 
                 EnchantmentMastery.LOGGER.debug("Synced mastery data from server: {} enchants learned",
                         packet.masteryLevels.size());
-            });
+            }
         }
         ctx.setPacketHandled(true);
     }
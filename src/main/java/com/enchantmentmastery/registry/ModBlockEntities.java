@@ -0,0 +1,29 @@
+package com.enchantmentmastery.registry;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.block.BookLibraryBlockEntity;
+import com.enchantmentmastery.block.MasteryLecternBlockEntity;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.world.level.block.entity.BlockEntityType;
+import net.minecraftforge.registries.DeferredRegister;
+import net.minecraftforge.registries.RegistryObject;
+
+/**
+ * Registry for custom block entity types.
+ */
+public class ModBlockEntities {
+    public static final DeferredRegister<BlockEntityType<?>> REGISTRY =
+            DeferredRegister.create(Registries.BLOCK_ENTITY_TYPE, EnchantmentMastery.MOD_ID);
+
+    public static final RegistryObject<BlockEntityType<MasteryLecternBlockEntity>> MASTERY_LECTERN =
+            REGISTRY.register("mastery_lectern", () ->
+                    BlockEntityType.Builder.of(MasteryLecternBlockEntity::new, ModBlocks.MASTERY_LECTERN.get())
+                            .build(null)
+            );
+
+    public static final RegistryObject<BlockEntityType<BookLibraryBlockEntity>> BOOK_LIBRARY =
+            REGISTRY.register("book_library", () ->
+                    BlockEntityType.Builder.of(BookLibraryBlockEntity::new, ModBlocks.BOOK_LIBRARY.get())
+                            .build(null)
+            );
+}
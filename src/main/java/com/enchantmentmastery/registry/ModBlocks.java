@@ -0,0 +1,29 @@
+package com.enchantmentmastery.registry;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.block.BookLibraryBlock;
+import com.enchantmentmastery.block.MasteryLecternBlock;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockBehaviour;
+import net.minecraftforge.registries.DeferredRegister;
+import net.minecraftforge.registries.RegistryObject;
+
+/**
+ * Registry for custom blocks.
+ */
+public class ModBlocks {
+    public static final DeferredRegister<Block> REGISTRY =
+            DeferredRegister.create(Registries.BLOCK, EnchantmentMastery.MOD_ID);
+
+    public static final RegistryObject<MasteryLecternBlock> MASTERY_LECTERN =
+            REGISTRY.register("mastery_lectern", () ->
+                    new MasteryLecternBlock(BlockBehaviour.Properties.ofFullCopy(Blocks.LECTERN))
+            );
+
+    public static final RegistryObject<BookLibraryBlock> BOOK_LIBRARY =
+            REGISTRY.register("book_library", () ->
+                    new BookLibraryBlock(BlockBehaviour.Properties.ofFullCopy(Blocks.BOOKSHELF))
+            );
+}
@@ -0,0 +1,26 @@
+package com.enchantmentmastery.registry;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.world.item.BlockItem;
+import net.minecraft.world.item.Item;
+import net.minecraftforge.registries.DeferredRegister;
+import net.minecraftforge.registries.RegistryObject;
+
+/**
+ * Registry for custom items.
+ */
+public class ModItems {
+    public static final DeferredRegister<Item> REGISTRY =
+            DeferredRegister.create(Registries.ITEM, EnchantmentMastery.MOD_ID);
+
+    public static final RegistryObject<BlockItem> MASTERY_LECTERN =
+            REGISTRY.register("mastery_lectern", () ->
+                    new BlockItem(ModBlocks.MASTERY_LECTERN.get(), new Item.Properties())
+            );
+
+    public static final RegistryObject<BlockItem> BOOK_LIBRARY =
+            REGISTRY.register("book_library", () ->
+                    new BlockItem(ModBlocks.BOOK_LIBRARY.get(), new Item.Properties().stacksTo(1))
+            );
+}
@@ -0,0 +1,444 @@
+package com.enchantmentmastery.storage;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.util.EnchantIdPool;
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Per-world write-ahead journal of mastery mutations.
+ *
+ * Each entry is one committed mastery transaction: the resulting state of every enchantment it
+ * touched, plus the XP levels the player paid for it, so replaying an entry is idempotent. Entries are appended by a writer
+ * thread that drains everything queued since its last pass and fsyncs once per batch (group
+ * commit), so a burst of mutations costs one fsync rather than one per mutation.
+ *
+ * Paid entries (see {@link Op#isPaid()}) are never replayed; they only mark the enchantments they
+ * touched, so later entries carrying the unsaved levels aren't replayed either. A batch of nothing
+ * but paid entries is therefore not fsynced: the next synced batch syncs it too, and a torn or lost
+ * marker ends the journal at that point on load, taking every later entry with it.
+ *
+ * The capability saves the sequence number of the last entry it includes. On login, entries
+ * newer than that are replayed, except those paid for with items or XP saved elsewhere
+ * (see {@link Op#isPaid()}); once a player's data is saved, their older entries are dropped
+ * by rewriting the journal.
+ */
+public final class MasteryJournal implements AutoCloseable {
+    private static final int HEADER_MAGIC = 0x454D4A48; // "EMJH"
+    private static final int ENTRY_MAGIC = 0x454D4A45; // "EMJE"
+    // Header: magic, first sequence number, so numbering survives a rewrite that drops every entry
+    private static final int HEADER_BYTES = 12;
+    private static final long MAX_BATCH_WAIT_NANOS = 2_000_000;
+
+    /**
+     * Mutation kinds, stored by ordinal: new kinds go at the end.
+     */
+    public enum Op {
+        ABSORB,
+        APPLY,
+        SET,
+        RESET,
+        USAGE,
+        /** A Mastery Lectern absorbing books; the books and XP are the lectern's, not the player's. */
+        LECTERN_ABSORB;
+
+        /**
+         * Whether the mutation was paid for with items or XP saved apart from the mastery data: in
+         * player.dat, or with a Mastery Lectern's chunk. If the mutation wasn't saved, that payment
+         * wasn't either, so replaying the mutation would grant it free.
+         */
+        public boolean isPaid() {
+            return this == ABSORB || this == APPLY || this == LECTERN_ABSORB;
+        }
+    }
+
+    /**
+     * One journaled mutation. A {@link Op#RESET} clears all data before applying the changes.
+     *
+     * @param seq              Journal sequence number
+     * @param player           Player the mutation belongs to
+     * @param op               Mutation kind
+     * @param changes          State of each touched enchantment after the mutation
+     * @param totalLevelsSpent Total levels spent after the mutation
+     * @param levelCost        XP levels the player paid for the mutation
+     */
+    public record Entry(long seq, UUID player, Op op, List<Change> changes, int totalLevelsSpent, int levelCost) {
+    }
+
+    /**
+     * State of one enchantment after a mutation.
+     */
+    public record Change(ResourceLocation enchantId, int level, int xp, int[] letters) {
+    }
+
+    private final Path file;
+    private final Object lock = new Object();
+    private final Thread writer;
+
+    // Guarded by lock
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private final Map<UUID, List<Entry>> unsaved = new HashMap<>();
+    private final Map<UUID, Long> savedSeq = new HashMap<>();
+    private boolean compactionRequested = false;
+    private boolean closed = false;
+    private long nextSeq = 1;
+
+    // Writer thread only
+    private FileChannel channel;
+
+    private MasteryJournal(Path file) {
+        this.file = file;
+        this.writer = new Thread(this::run, "EnchantmentMastery Journal");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Opens the journal, loading every intact entry for replay.
+     */
+    public static MasteryJournal open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        MasteryJournal journal = new MasteryJournal(file);
+        journal.load();
+        journal.writer.start();
+        return journal;
+    }
+
+    private void load() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer fileHeader = ByteBuffer.allocate(HEADER_BYTES);
+        if (channel.read(fileHeader, 0) == HEADER_BYTES && fileHeader.getInt(0) == HEADER_MAGIC) {
+            nextSeq = fileHeader.getLong(4);
+        } else {
+            if (channel.size() > 0) {
+                EnchantmentMastery.LOGGER.warn("Mastery journal {} has no valid header, starting a new one", file);
+            }
+            channel.truncate(0);
+            channel.write(header(nextSeq), 0);
+            channel.force(false);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(8);
+        long position = HEADER_BYTES;
+        int loaded = 0;
+        while (true) {
+            header.clear();
+            if (channel.read(header, position) < 8) break;
+            header.flip();
+            int length = header.getInt(4);
+            if (header.getInt(0) != ENTRY_MAGIC || length <= 0 || position + 12 + length > channel.size()) break;
+
+            ByteBuffer body = ByteBuffer.allocate(length + 4);
+            channel.read(body, position + 8);
+            body.flip();
+            byte[] bytes = new byte[length];
+            body.get(bytes);
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            if ((int) crc.getValue() != body.getInt()) break;
+
+            Entry entry = decode(bytes);
+            unsaved.computeIfAbsent(entry.player(), uuid -> new ArrayList<>()).add(entry);
+            nextSeq = Math.max(nextSeq, entry.seq() + 1);
+            position += 12 + length;
+            loaded++;
+        }
+
+        if (position < channel.size()) {
+            // Torn tail from a crash mid-append
+            EnchantmentMastery.LOGGER.warn("Truncating mastery journal {} at byte {} of {}", file, position, channel.size());
+            channel.truncate(position);
+        }
+        channel.position(position);
+        if (loaded > 0) {
+            EnchantmentMastery.LOGGER.info("Mastery journal has {} unsaved entries for {} players",
+                    loaded, unsaved.size());
+        }
+    }
+
+    /**
+     * Queues an entry for the next group commit.
+     *
+     * @return The entry's sequence number
+     */
+    public long append(UUID player, Op op, List<Change> changes, int totalLevelsSpent, int levelCost) {
+        synchronized (lock) {
+            if (closed) return 0;
+            Entry entry = new Entry(nextSeq++, player, op, changes, totalLevelsSpent, levelCost);
+            queue.add(entry);
+            unsaved.computeIfAbsent(player, uuid -> new ArrayList<>()).add(entry);
+            lock.notifyAll();
+            return entry.seq();
+        }
+    }
+
+    /**
+     * Gets the entries for a player that are newer than their saved state, oldest first.
+     */
+    public List<Entry> entriesAfter(UUID player, long seq) {
+        synchronized (lock) {
+            List<Entry> entries = unsaved.get(player);
+            if (entries == null) return List.of();
+            List<Entry> result = new ArrayList<>();
+            for (Entry entry : entries) {
+                if (entry.seq() > seq) result.add(entry);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Records that a player's data up to {@code seq} has been saved.
+     * The journal is rewritten without those entries on the next {@link #compact()}.
+     */
+    public void markSaved(UUID player, long seq) {
+        synchronized (lock) {
+            savedSeq.merge(player, seq, Math::max);
+        }
+    }
+
+    /**
+     * Requests a rewrite of the journal without saved entries, on the writer thread.
+     */
+    public void compact() {
+        synchronized (lock) {
+            if (savedSeq.isEmpty()) return;
+            compactionRequested = true;
+            lock.notifyAll();
+        }
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                if (!runPass(batch)) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // Keep journaling; the entries of the failed pass stay in unsaved and go out with the next rewrite
+                EnchantmentMastery.LOGGER.error("Mastery journal writer failed", e);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes one batch and any requested rewrite, then waits briefly for the next batch.
+     *
+     * @return Whether the writer should keep running
+     */
+    private boolean runPass(List<Entry> batch) {
+        boolean rewrite;
+        synchronized (lock) {
+            while (queue.isEmpty() && !compactionRequested && !closed) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }
+            if (queue.isEmpty() && !compactionRequested) {
+                return false; // closed and drained
+            }
+            batch.addAll(queue);
+            queue.clear();
+            rewrite = compactionRequested;
+            compactionRequested = false;
+        }
+
+        try {
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+            if (rewrite) {
+                rewrite();
+            }
+        } catch (IOException e) {
+            EnchantmentMastery.LOGGER.error("Failed to write mastery journal", e);
+            batch.clear();
+        }
+
+        // Let a burst build up a bigger batch before the next fsync
+        long deadline = System.nanoTime() + MAX_BATCH_WAIT_NANOS;
+        synchronized (lock) {
+            long remaining;
+            while (queue.size() < 64 && !closed && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    lock.wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void writeBatch(List<Entry> batch) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(batch.size() * 64);
+        boolean replayable = false;
+        for (Entry entry : batch) {
+            writeFramed(out, entry);
+            replayable |= !entry.op().isPaid();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (replayable) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Rewrites the journal keeping only entries newer than each player's saved state.
+     */
+    private void rewrite() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int kept = 0;
+        synchronized (lock) {
+            out.writeBytes(header(nextSeq).array());
+            for (var saved : savedSeq.entrySet()) {
+                List<Entry> entries = unsaved.get(saved.getKey());
+                if (entries == null) continue;
+                entries.removeIf(entry -> entry.seq() <= saved.getValue());
+                if (entries.isEmpty()) unsaved.remove(saved.getKey());
+            }
+            savedSeq.clear();
+            // Queued entries are still in unsaved; skip them here, the next batch appends them.
+            // The queue is in sequence order and everything before it has been written.
+            long firstQueued = queue.isEmpty() ? Long.MAX_VALUE : queue.peek().seq();
+            for (List<Entry> entries : unsaved.values()) {
+                for (Entry entry : entries) {
+                    if (entry.seq() < firstQueued) {
+                        writeFramed(out, entry);
+                        kept++;
+                    }
+                }
+            }
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel tempChannel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                tempChannel.write(buffer);
+            }
+            tempChannel.force(true);
+        }
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        EnchantmentMastery.LOGGER.debug("Compacted mastery journal to {} entries", kept);
+    }
+
+    private static ByteBuffer header(long firstSeq) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(HEADER_MAGIC).putLong(firstSeq).flip();
+        return header;
+    }
+
+    private static void writeFramed(ByteArrayOutputStream out, Entry entry) {
+        byte[] body = encode(entry);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer frame = ByteBuffer.allocate(12 + body.length);
+        frame.putInt(ENTRY_MAGIC).putInt(body.length).put(body).putInt((int) crc.getValue());
+        out.writeBytes(frame.array());
+    }
+
+    private static byte[] encode(Entry entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(entry.seq());
+            out.writeLong(entry.player().getMostSignificantBits());
+            out.writeLong(entry.player().getLeastSignificantBits());
+            out.writeByte(entry.op().ordinal());
+            out.writeShort(entry.changes().size());
+            for (Change change : entry.changes()) {
+                out.writeUTF(change.enchantId().toString());
+                out.writeInt(change.level());
+                out.writeInt(change.xp());
+                out.writeShort(change.letters().length);
+                for (int index : change.letters()) {
+                    out.writeShort(index);
+                }
+            }
+            out.writeInt(entry.totalLevelsSpent());
+            out.writeInt(entry.levelCost());
+        } catch (IOException e) {
+            throw new IllegalStateException("In-memory write failed", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            long seq = in.readLong();
+            UUID player = new UUID(in.readLong(), in.readLong());
+            Op op = Op.values()[in.readByte()];
+            int count = in.readShort();
+            List<Change> changes = new ArrayList<>(count);
+            for (int c = 0; c < count; c++) {
+                ResourceLocation id = EnchantIdPool.parse(in.readUTF());
+                int level = in.readInt();
+                int xp = in.readInt();
+                int[] letters = new int[in.readShort()];
+                for (int i = 0; i < letters.length; i++) {
+                    letters[i] = in.readShort();
+                }
+                if (id != null) {
+                    changes.add(new Change(id, level, xp, letters));
+                }
+            }
+            return new Entry(seq, player, op, changes, in.readInt(), in.readInt());
+        }
+    }
+
+    /**
+     * Flushes queued entries, runs any pending compaction and closes the file.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join(30_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            // The writer still owns the channel; leave it to finish rather than write under it
+            EnchantmentMastery.LOGGER.warn("Timed out waiting for mastery journal writes");
+            return;
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            EnchantmentMastery.LOGGER.error("Failed to close mastery journal", e);
+        }
+    }
+}
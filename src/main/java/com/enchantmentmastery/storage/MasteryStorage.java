@@ -0,0 +1,291 @@
+package com.enchantmentmastery.storage;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasteryCapability;
+import com.enchantmentmastery.capability.MasteryDataHelper;
+import com.enchantmentmastery.capability.MasterySnapshot;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.storage.LevelResource;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.server.ServerAboutToStartEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Owns the per-world {@link MasteryStore} and {@link MasteryJournal} and keeps them in step
+ * with player saves.
+ *
+ * By default the store is written alongside the capability NBT in player.dat. Starting the
+ * server with {@code -Denchantmentmastery.storage=store} keeps mastery data only in the store;
+ * player.dat then carries a marker and the capability is filled from the store on load.
+ * Either way the capability acts as the in-memory cache for online players.
+ *
+ * Mastery mutations are journaled as they happen and replayed on the next login if the
+ * server stopped before the player's data was saved.
+ */
+@Mod.EventBusSubscriber(modid = EnchantmentMastery.MOD_ID)
+public final class MasteryStorage {
+    private MasteryStorage() {}
+
+    public enum Mode {
+        CAPABILITY_AND_STORE,
+        STORE_ONLY
+    }
+
+    private static final Mode MODE = "store".equalsIgnoreCase(System.getProperty("enchantmentmastery.storage"))
+            ? Mode.STORE_ONLY
+            : Mode.CAPABILITY_AND_STORE;
+
+    private static volatile MasteryStore store;
+    private static volatile MasteryJournal journal;
+    private static boolean savedSinceCompaction = false;
+    // Stored data of offline players, including players with no record; dropped when they log in or save
+    private static final Map<UUID, Optional<MasterySnapshot>> OFFLINE = new HashMap<>();
+
+    /**
+     * Gets the open store for the running server, if any.
+     */
+    public static Optional<MasteryStore> store() {
+        return Optional.ofNullable(store);
+    }
+
+    /**
+     * Whether player.dat should omit mastery data in favour of the store.
+     */
+    public static boolean storeOnly() {
+        return MODE == Mode.STORE_ONLY && store != null;
+    }
+
+    /**
+     * Gets mastery data for any player: online players from their capability,
+     * offline players from the store without loading player.dat.
+     */
+    public static Optional<MasterySnapshot> lookup(MinecraftServer server, UUID uuid) {
+        ServerPlayer online = server.getPlayerList().getPlayer(uuid);
+        if (online != null) {
+            MasteryCapability.PlayerMasteryData data = MasteryDataHelper.getDataOrNull(online);
+            return data != null ? Optional.of(data.snapshot()) : Optional.empty();
+        }
+        return offlineSnapshot(uuid);
+    }
+
+    /**
+     * Journals a committed mastery transaction. Called by the capability after the commit.
+     *
+     * @param player     UUID of the player the data belongs to
+     * @param enchantIds The enchantments the transaction touched
+     * @param levelCost  XP levels the player paid for it
+     */
+    public static void journal(UUID player, MasteryCapability.PlayerMasteryData data, MasteryJournal.Op op,
+                               Collection<ResourceLocation> enchantIds, int levelCost) {
+        MasteryJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        List<MasteryJournal.Change> changes = new ArrayList<>(enchantIds.size());
+        for (ResourceLocation id : enchantIds) {
+            changes.add(new MasteryJournal.Change(id, data.getMasteryLevel(id), data.getMasteryXp(id),
+                    data.getUnlockedLetterIndices(id)));
+        }
+        data.setJournalSeq(current.append(player, op, changes, data.getTotalLevelsSpent(), levelCost));
+    }
+
+    /**
+     * Gets an offline player's stored data, for blocks that act on their behalf.
+     *
+     * The result, including finding no record, is cached until the player logs in or their data is
+     * saved, so callers may ask every few ticks without reading the store each time.
+     * Server thread only.
+     */
+    public static Optional<MasterySnapshot> offlineSnapshot(UUID uuid) {
+        return OFFLINE.computeIfAbsent(uuid, id -> store().flatMap(s -> s.read(id)));
+    }
+
+    @SubscribeEvent
+    public static void onServerAboutToStart(ServerAboutToStartEvent event) {
+        Path root = event.getServer().getWorldPath(LevelResource.ROOT).resolve(EnchantmentMastery.MOD_ID);
+        try {
+            journal = MasteryJournal.open(root.resolve("journal.dat"));
+        } catch (IOException e) {
+            EnchantmentMastery.LOGGER.error("Failed to open mastery journal, mutations will not be journaled", e);
+            journal = null;
+        }
+
+        Path directory = root.resolve("store");
+        try {
+            store = MasteryStore.open(directory);
+            EnchantmentMastery.LOGGER.info("Opened mastery store at {} (mode {})", directory, MODE);
+        } catch (IOException e) {
+            EnchantmentMastery.LOGGER.error("Failed to open mastery store at {}, mastery data stays in player.dat only",
+                    directory, e);
+            store = null;
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onServerStopped(ServerStoppedEvent event) {
+        OFFLINE.clear();
+        MasteryStore current = store;
+        store = null;
+        if (current != null) {
+            current.close();
+        }
+
+        // Players were saved during shutdown; drop their entries before closing
+        MasteryJournal currentJournal = journal;
+        journal = null;
+        savedSinceCompaction = false;
+        if (currentJournal != null) {
+            currentJournal.compact();
+            currentJournal.close();
+        }
+    }
+
+    /**
+     * Replays journaled mutations the saved data is missing, before the login sync goes out.
+     */
+    @SubscribeEvent(priority = EventPriority.HIGHEST)
+    public static void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        OFFLINE.remove(event.getEntity().getUUID());
+        MasteryJournal current = journal;
+        if (current == null || !(event.getEntity() instanceof ServerPlayer player)) {
+            return;
+        }
+        MasteryCapability.PlayerMasteryData data = MasteryDataHelper.getDataOrNull(player);
+        if (data == null || data.isUnloaded()) {
+            return;
+        }
+        List<MasteryJournal.Entry> entries = current.entriesAfter(player.getUUID(), data.getJournalSeq());
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        int replayed = replay(data, entries);
+        data.setJournalSeq(entries.get(entries.size() - 1).seq());
+        EnchantmentMastery.LOGGER.info("Recovered {} of {} mastery changes for {} from the journal",
+                replayed, entries.size(), player.getName().getString());
+    }
+
+    /**
+     * Replays entries in order over saved data.
+     *
+     * Paid entries are skipped: what paid for them was saved no later than the mastery data (the
+     * player's books and levels in player.dat, a lectern's books and experience in its chunk), so
+     * it is back where it came from.
+     * Later entries hold the full state of what they touched, so their changes to an enchantment
+     * a skipped entry touched are skipped too, until a set or reset replaces it outright.
+     *
+     * @return Number of entries replayed
+     */
+    private static int replay(MasteryCapability.PlayerMasteryData data, List<MasteryJournal.Entry> entries) {
+        Set<ResourceLocation> skipped = new HashSet<>();
+        int previousTotal = data.getTotalLevelsSpent();
+        int skippedSpent = 0;
+        int replayed = 0;
+        for (MasteryJournal.Entry entry : entries) {
+            int spent = entry.totalLevelsSpent() - previousTotal;
+            previousTotal = entry.totalLevelsSpent();
+            if (entry.op().isPaid()) {
+                for (MasteryJournal.Change change : entry.changes()) {
+                    skipped.add(change.enchantId());
+                }
+                skippedSpent += spent;
+                continue;
+            }
+            switch (entry.op()) {
+                case RESET -> skipped.clear();
+                case SET -> entry.changes().forEach(change -> skipped.remove(change.enchantId()));
+                default -> {}
+            }
+            replay(data, entry, skipped);
+            data.addLevelsSpent(entry.totalLevelsSpent() - skippedSpent - data.getTotalLevelsSpent());
+            replayed++;
+        }
+        return replayed;
+    }
+
+    private static void replay(MasteryCapability.PlayerMasteryData data, MasteryJournal.Entry entry,
+                               Set<ResourceLocation> skipped) {
+        // Applied directly rather than through edit(), so replay isn't journaled again
+        if (entry.op() == MasteryJournal.Op.RESET) {
+            Set<ResourceLocation> ids = new HashSet<>(data.getAllMasteryLevels().keySet());
+            ids.addAll(data.getAllMasteryXp().keySet());
+            ids.addAll(data.getAllUnlockedLetters().keySet());
+            for (ResourceLocation id : ids) {
+                data.setMasteryLevel(id, 0);
+                data.setMasteryXp(id, 0);
+                data.setUnlockedLetterIndices(id, null);
+            }
+        }
+        for (MasteryJournal.Change change : entry.changes()) {
+            if (skipped.contains(change.enchantId())) {
+                continue;
+            }
+            data.setMasteryLevel(change.enchantId(), change.level());
+            data.setMasteryXp(change.enchantId(), change.xp());
+            data.setUnlockedLetterIndices(change.enchantId(), change.letters());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerSave(PlayerEvent.SaveToFile event) {
+        if (!(event.getEntity() instanceof ServerPlayer player)) {
+            return;
+        }
+        MasteryStore current = store;
+        MasteryJournal currentJournal = journal;
+        MasteryCapability.PlayerMasteryData data = MasteryDataHelper.getDataOrNull(player);
+        // Data that failed to load is never written over the real copy, and its journal entries stay
+        if (data == null || data.isUnloaded()) {
+            return;
+        }
+        UUID uuid = player.getUUID();
+        OFFLINE.remove(uuid);
+        long journalSeq = data.getJournalSeq();
+        CompletableFuture<Void> write = CompletableFuture.completedFuture(null);
+        if (current != null && data.needsStoreWrite()) {
+            write = current.writeAsync(uuid, data.encodedBytes());
+            data.markStoreWritten();
+        }
+
+        if (currentJournal != null) {
+            if (storeOnly()) {
+                // player.dat only holds a marker, so the entries are needed until the store has the data
+                write.thenRun(() -> currentJournal.markSaved(uuid, journalSeq));
+            } else {
+                currentJournal.markSaved(uuid, journalSeq);
+            }
+            savedSinceCompaction = true;
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        // An autosave saves every player in one tick; compact once for all of them
+        if (event.phase == TickEvent.Phase.END && savedSinceCompaction) {
+            savedSinceCompaction = false;
+            MasteryJournal current = journal;
+            if (current != null) {
+                current.compact();
+            }
+        }
+    }
+}
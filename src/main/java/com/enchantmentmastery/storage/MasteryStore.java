@@ -0,0 +1,685 @@
+package com.enchantmentmastery.storage;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.capability.MasterySnapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Per-world mastery data store kept outside player.dat.
+ *
+ * Layout under {@code <world>/enchantmentmastery/store/}:
+ * <ul>
+ *   <li>{@code index.dat} - memory-mapped open-addressing hash table, UUID -> (segment, offset, length)</li>
+ *   <li>{@code segment-NNNNN.dat} - append-only records of encoded mastery data</li>
+ * </ul>
+ * Each record is {@code magic, uuid, payload length, payload, crc32}; the payload is the
+ * same encoded form the capability attaches to player NBT. Newer records for a UUID
+ * supersede older ones; a background compaction rewrites live records once more than
+ * half of the segment bytes are dead. If the index is missing or damaged it is rebuilt
+ * by scanning the segments.
+ *
+ * Writes and compaction run on the store's own thread; reads may come from any thread.
+ * Writes are fsynced once per batch of queued writes, and a write's future completes only once
+ * its record is on disk.
+ */
+public final class MasteryStore implements AutoCloseable {
+    private static final int INDEX_MAGIC = 0x454D4958;  // "EMIX"
+    private static final int RECORD_MAGIC = 0x454D5352; // "EMSR"
+    private static final int FORMAT = 1;
+
+    // Index header: magic, format, capacity, count, active segment, live bytes, total bytes
+    private static final int HEADER_BYTES = 64;
+    // Slot: uuid msb, uuid lsb, offset, segment, record length
+    private static final int SLOT_BYTES = 32;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double MAX_LOAD = 0.7;
+
+    private static final int RECORD_HEADER_BYTES = 4 + 16 + 4;
+    private static final int RECORD_OVERHEAD = RECORD_HEADER_BYTES + 4;
+    private static final long SEGMENT_LIMIT = 16L * 1024 * 1024;
+    private static final long COMPACT_MIN_BYTES = 1024 * 1024;
+
+    private final Path directory;
+    private final Object lock = new Object();
+    private final ThreadPoolExecutor writer;
+    private final TreeMap<Integer, FileChannel> segments = new TreeMap<>();
+    // Payloads queued on the store thread, so reads never see older data than was written
+    private final Map<UUID, byte[]> pending = new ConcurrentHashMap<>();
+    // Store thread only: segments written since the last fsync, and the writes waiting on it
+    private final Set<FileChannel> unsyncedSegments = new LinkedHashSet<>();
+    private final List<CompletableFuture<Void>> unsyncedWrites = new ArrayList<>();
+
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int count;
+    private int activeSegment;
+    private long liveBytes;
+    private long totalBytes;
+    private boolean compactionScheduled = false;
+
+    private MasteryStore(Path directory) {
+        this.directory = directory;
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "EnchantmentMastery Store");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens (or creates) the store in the given directory.
+     */
+    public static MasteryStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        MasteryStore store = new MasteryStore(directory);
+        store.load();
+        return store;
+    }
+
+    private void load() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith("segment-") && name.endsWith(".dat")) {
+                    int id = Integer.parseInt(name.substring(8, name.length() - 4));
+                    segments.put(id, openSegment(id));
+                }
+            }
+        }
+
+        Path indexFile = directory.resolve("index.dat");
+        boolean existing = Files.exists(indexFile);
+        indexChannel = FileChannel.open(indexFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (existing && indexChannel.size() >= HEADER_BYTES) {
+            MappedByteBuffer header = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            int cap = header.getInt(8);
+            if (header.getInt(0) == INDEX_MAGIC && header.getInt(4) == FORMAT && cap > 0
+                    && Integer.bitCount(cap) == 1 && indexChannel.size() >= indexSize(cap)) {
+                capacity = cap;
+                index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize(capacity));
+                count = index.getInt(12);
+                activeSegment = index.getInt(16);
+                liveBytes = index.getLong(24);
+                totalBytes = index.getLong(32);
+                if (totalBytes == segmentBytes()) {
+                    ensureActiveSegment();
+                    return;
+                }
+            }
+            EnchantmentMastery.LOGGER.warn("Mastery store index in {} is damaged, rebuilding from segments", directory);
+        }
+
+        rebuildIndex();
+    }
+
+    private long segmentBytes() throws IOException {
+        long total = 0;
+        for (FileChannel channel : segments.values()) {
+            total += channel.size();
+        }
+        return total;
+    }
+
+    private static long indexSize(int capacity) {
+        return HEADER_BYTES + (long) capacity * SLOT_BYTES;
+    }
+
+    private FileChannel openSegment(int id) throws IOException {
+        return FileChannel.open(directory.resolve(String.format("segment-%05d.dat", id)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void ensureActiveSegment() throws IOException {
+        if (activeSegment == 0 || !segments.containsKey(activeSegment)) {
+            activeSegment = segments.isEmpty() ? 1 : segments.lastKey();
+            segments.computeIfAbsent(activeSegment, id -> {
+                try {
+                    return openSegment(id);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        writeHeader();
+    }
+
+    // --- Index ---
+
+    private void mapIndex(int newCapacity) throws IOException {
+        capacity = newCapacity;
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize(capacity));
+        for (long pos = HEADER_BYTES; pos < indexSize(capacity); pos += 8) {
+            index.putLong((int) pos, 0L);
+        }
+        count = 0;
+    }
+
+    private void writeHeader() {
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, FORMAT);
+        index.putInt(8, capacity);
+        index.putInt(12, count);
+        index.putInt(16, activeSegment);
+        index.putLong(24, liveBytes);
+        index.putLong(32, totalBytes);
+    }
+
+    private static int mix(long msb, long lsb) {
+        long h = msb ^ (lsb * 0x9E3779B97F4A7C15L);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Finds the slot for a UUID: either its existing slot or the empty slot it would occupy.
+     */
+    private int findSlot(long msb, long lsb) {
+        int mask = capacity - 1;
+        int slot = mix(msb, lsb) & mask;
+        while (true) {
+            int pos = HEADER_BYTES + slot * SLOT_BYTES;
+            long slotMsb = index.getLong(pos);
+            long slotLsb = index.getLong(pos + 8);
+            if ((slotMsb == 0 && slotLsb == 0) || (slotMsb == msb && slotLsb == lsb)) {
+                return pos;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static boolean isEmpty(MappedByteBuffer buffer, int pos) {
+        return buffer.getLong(pos) == 0 && buffer.getLong(pos + 8) == 0;
+    }
+
+    /**
+     * Points a UUID at a record, returning the previous record length (0 if new).
+     */
+    private int putSlot(long msb, long lsb, int segment, long offset, int length) throws IOException {
+        if (count + 1 > capacity * MAX_LOAD) {
+            grow();
+        }
+        int pos = findSlot(msb, lsb);
+        int previous = 0;
+        if (isEmpty(index, pos)) {
+            count++;
+        } else {
+            previous = index.getInt(pos + 28);
+        }
+        index.putLong(pos, msb);
+        index.putLong(pos + 8, lsb);
+        index.putLong(pos + 16, offset);
+        index.putInt(pos + 24, segment);
+        index.putInt(pos + 28, length);
+        return previous;
+    }
+
+    /**
+     * Empties a slot, shifting later slots of its probe run back so lookups still find them.
+     * The slot at {@code pos} may hold a different entry afterwards.
+     */
+    private void removeSlot(int pos) {
+        int mask = capacity - 1;
+        int hole = (pos - HEADER_BYTES) / SLOT_BYTES;
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int from = HEADER_BYTES + slot * SLOT_BYTES;
+            if (isEmpty(index, from)) break;
+            int home = mix(index.getLong(from), index.getLong(from + 8)) & mask;
+            // Only entries whose home is not between the hole and their slot may move into it
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                int to = HEADER_BYTES + hole * SLOT_BYTES;
+                for (int i = 0; i < SLOT_BYTES; i += 8) {
+                    index.putLong(to + i, index.getLong(from + i));
+                }
+                hole = slot;
+            }
+        }
+        int to = HEADER_BYTES + hole * SLOT_BYTES;
+        for (int i = 0; i < SLOT_BYTES; i += 8) {
+            index.putLong(to + i, 0L);
+        }
+        count--;
+    }
+
+    private void grow() throws IOException {
+        List<long[]> entries = new ArrayList<>(count);
+        forEachSlot((pos, slot) -> entries.add(slot));
+        // Invalidate the header first, so a crash while the slots are rewritten leads to a rebuild
+        index.putInt(0, 0);
+        index.force();
+        mapIndex(capacity * 2);
+        for (long[] slot : entries) {
+            int pos = findSlot(slot[0], slot[1]);
+            index.putLong(pos, slot[0]);
+            index.putLong(pos + 8, slot[1]);
+            index.putLong(pos + 16, slot[2]);
+            index.putInt(pos + 24, (int) slot[3]);
+            index.putInt(pos + 28, (int) slot[4]);
+            count++;
+        }
+        writeHeader();
+        index.force();
+    }
+
+    private void forEachSlot(BiConsumer<Integer, long[]> consumer) {
+        for (int slot = 0; slot < capacity; slot++) {
+            int pos = HEADER_BYTES + slot * SLOT_BYTES;
+            if (!isEmpty(index, pos)) {
+                consumer.accept(pos, new long[]{
+                        index.getLong(pos), index.getLong(pos + 8), index.getLong(pos + 16),
+                        index.getInt(pos + 24), index.getInt(pos + 28)
+                });
+            }
+        }
+    }
+
+    private void rebuildIndex() throws IOException {
+        mapIndex(INITIAL_CAPACITY);
+        liveBytes = 0;
+        totalBytes = 0;
+
+        for (var entry : segments.entrySet()) {
+            int segment = entry.getKey();
+            FileChannel channel = entry.getValue();
+            long offset = 0;
+            long end = 0;
+            long size = channel.size();
+            while (offset + RECORD_OVERHEAD <= size) {
+                int length = recordLength(channel, offset, size);
+                if (length < 0) {
+                    // Damaged record: resume at the next record header, if any
+                    offset = nextRecordMagic(channel, offset + 1, size);
+                    continue;
+                }
+                if (offset > end) {
+                    EnchantmentMastery.LOGGER.warn("Skipped {} damaged bytes in mastery store segment {} at {}",
+                            offset - end, segment, end);
+                }
+                ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+                channel.read(header, offset);
+                int previous = putSlot(header.getLong(4), header.getLong(12), segment, offset, length);
+                liveBytes += length - previous;
+                // Skipped bytes stay in the segment as dead bytes until compaction
+                totalBytes += offset + length - end;
+                end = offset + length;
+                offset = end;
+            }
+            if (end < size) {
+                // Torn tail from an interrupted write
+                EnchantmentMastery.LOGGER.warn("Truncating mastery store segment {} at {} (was {})", segment, end, size);
+                channel.truncate(end);
+            }
+        }
+
+        activeSegment = 0;
+        ensureActiveSegment();
+        EnchantmentMastery.LOGGER.info("Rebuilt mastery store index: {} players", count);
+    }
+
+    /**
+     * Gets the length of the intact record at an offset, or -1 if there is none.
+     */
+    private static int recordLength(FileChannel channel, long offset, long size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        channel.read(header, offset);
+        header.flip();
+        if (header.remaining() < RECORD_HEADER_BYTES || header.getInt(0) != RECORD_MAGIC) {
+            return -1;
+        }
+        int payloadLength = header.getInt(20);
+        if (payloadLength < 0 || offset + RECORD_OVERHEAD + payloadLength > size) {
+            return -1;
+        }
+        int length = RECORD_OVERHEAD + payloadLength;
+        return readPayload(channel, offset, length) != null ? length : -1;
+    }
+
+    /**
+     * Finds the next offset holding the record magic, or {@code size} if there is none.
+     */
+    private static long nextRecordMagic(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        // Chunks overlap by three bytes so a magic split across two reads is still found
+        for (long pos = from; pos + 4 <= size; pos += buffer.capacity() - 3) {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer, pos + buffer.position());
+            } while (read > 0 && buffer.hasRemaining());
+            buffer.flip();
+            for (int i = 0; i + 4 <= buffer.limit(); i++) {
+                if (buffer.getInt(i) == RECORD_MAGIC) {
+                    return pos + i;
+                }
+            }
+        }
+        return size;
+    }
+
+    // --- Records ---
+
+    /**
+     * Reads and verifies a record, returning its payload or null if it is damaged.
+     */
+    private static byte[] readPayload(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                return null;
+            }
+        }
+        buffer.flip();
+        if (buffer.getInt() != RECORD_MAGIC) return null;
+        buffer.position(RECORD_HEADER_BYTES);
+        int payloadLength = length - RECORD_OVERHEAD;
+        byte[] payload = new byte[payloadLength];
+        buffer.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return buffer.getInt() == (int) crc.getValue() ? payload : null;
+    }
+
+    private long append(long msb, long lsb, byte[] payload) throws IOException {
+        FileChannel channel = segments.get(activeSegment);
+        if (channel.size() >= SEGMENT_LIMIT) {
+            activeSegment = segments.lastKey() + 1;
+            channel = openSegment(activeSegment);
+            segments.put(activeSegment, channel);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + payload.length);
+        record.putInt(RECORD_MAGIC).putLong(msb).putLong(lsb).putInt(payload.length)
+                .put(payload).putInt((int) crc.getValue());
+        record.flip();
+
+        long offset = channel.size();
+        while (record.hasRemaining()) {
+            channel.write(record, offset + record.position());
+        }
+        unsyncedSegments.add(channel);
+        return offset;
+    }
+
+    // --- Public API ---
+
+    /**
+     * Reads the stored encoded data for a player without touching player.dat.
+     */
+    public Optional<byte[]> readBytes(UUID uuid) {
+        byte[] queued = pending.get(uuid);
+        if (queued != null) {
+            return Optional.of(queued);
+        }
+        synchronized (lock) {
+            if (index == null) return Optional.empty();
+            int pos = findSlot(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            if (isEmpty(index, pos)) {
+                return Optional.empty();
+            }
+            try {
+                FileChannel channel = segments.get(index.getInt(pos + 24));
+                byte[] payload = channel == null ? null
+                        : readPayload(channel, index.getLong(pos + 16), index.getInt(pos + 28));
+                if (payload == null) {
+                    EnchantmentMastery.LOGGER.warn("Damaged mastery store record for {}", uuid);
+                }
+                return Optional.ofNullable(payload);
+            } catch (IOException e) {
+                EnchantmentMastery.LOGGER.warn("Failed to read mastery store record for {}", uuid, e);
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Reads a player's stored mastery data.
+     */
+    public Optional<MasterySnapshot> read(UUID uuid) {
+        return readBytes(uuid).flatMap(payload -> {
+            try {
+                return Optional.of(MasterySnapshot.fromBytes(payload));
+            } catch (RuntimeException e) {
+                EnchantmentMastery.LOGGER.warn("Undecodable mastery store record for {}", uuid, e);
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Lists every player with stored data.
+     */
+    public List<UUID> players() {
+        List<UUID> result = new ArrayList<>();
+        synchronized (lock) {
+            if (index == null) return result;
+            forEachSlot((pos, slot) -> result.add(new UUID(slot[0], slot[1])));
+        }
+        return result;
+    }
+
+    /**
+     * Appends a player's encoded data on the store thread.
+     *
+     * @return Completes once the record is fsynced, or exceptionally if it couldn't be written
+     */
+    public CompletableFuture<Void> writeAsync(UUID uuid, byte[] payload) {
+        pending.put(uuid, payload);
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        writer.execute(() -> {
+            try {
+                write(uuid, payload);
+                unsyncedWrites.add(durable);
+            } catch (IOException e) {
+                EnchantmentMastery.LOGGER.error("Failed to write mastery store record for {}", uuid, e);
+                durable.completeExceptionally(e);
+            } finally {
+                pending.remove(uuid, payload);
+            }
+            // Writes queued behind this one share its fsync
+            if (writer.getQueue().isEmpty()) {
+                syncWrites();
+            }
+        });
+        return durable;
+    }
+
+    /**
+     * Fsyncs the segments written since the last sync and the index, then completes the writes
+     * waiting on it. Store thread only.
+     */
+    private void syncWrites() {
+        if (unsyncedWrites.isEmpty() && unsyncedSegments.isEmpty()) {
+            return;
+        }
+        IOException failure = null;
+        synchronized (lock) {
+            try {
+                for (FileChannel channel : unsyncedSegments) {
+                    channel.force(false);
+                }
+                index.force();
+            } catch (IOException e) {
+                EnchantmentMastery.LOGGER.error("Failed to sync mastery store", e);
+                failure = e;
+            }
+            unsyncedSegments.clear();
+        }
+        for (CompletableFuture<Void> write : unsyncedWrites) {
+            if (failure == null) {
+                write.complete(null);
+            } else {
+                write.completeExceptionally(failure);
+            }
+        }
+        unsyncedWrites.clear();
+    }
+
+    private void write(UUID uuid, byte[] payload) throws IOException {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        synchronized (lock) {
+            long offset = append(msb, lsb, payload);
+            int length = RECORD_OVERHEAD + payload.length;
+            int previous = putSlot(msb, lsb, activeSegment, offset, length);
+            liveBytes += length - previous;
+            totalBytes += length;
+            writeHeader();
+
+            if (!compactionScheduled && !writer.isShutdown()
+                    && totalBytes > COMPACT_MIN_BYTES && liveBytes * 2 < totalBytes) {
+                compactionScheduled = true;
+                writer.execute(this::compact);
+            }
+        }
+    }
+
+    /**
+     * Rewrites live records into fresh segments and deletes the old ones.
+     * Runs on the store thread, so no writes interleave; reads only wait per record.
+     */
+    private void compact() {
+        List<Integer> oldSegments;
+        synchronized (lock) {
+            compactionScheduled = false;
+            oldSegments = new ArrayList<>(segments.keySet());
+            try {
+                activeSegment = segments.lastKey() + 1;
+                segments.put(activeSegment, openSegment(activeSegment));
+            } catch (IOException e) {
+                EnchantmentMastery.LOGGER.error("Failed to start mastery store compaction", e);
+                return;
+            }
+        }
+
+        long start = System.nanoTime();
+        int moved = 0;
+        int dropped = 0;
+        for (int slot = 0; ; slot++) {
+            synchronized (lock) {
+                if (slot >= capacity) break;
+                int pos = HEADER_BYTES + slot * SLOT_BYTES;
+                if (isEmpty(index, pos) || !oldSegments.contains(index.getInt(pos + 24))) {
+                    continue;
+                }
+                try {
+                    int length = index.getInt(pos + 28);
+                    long msb = index.getLong(pos);
+                    long lsb = index.getLong(pos + 8);
+                    byte[] payload = readPayload(segments.get(index.getInt(pos + 24)), index.getLong(pos + 16), length);
+                    if (payload == null) {
+                        // The old segment is about to go, so the slot can't keep pointing at it
+                        EnchantmentMastery.LOGGER.warn("Dropping damaged mastery store record for {}", new UUID(msb, lsb));
+                        removeSlot(pos);
+                        liveBytes -= length;
+                        dropped++;
+                        // A later slot may have shifted into this one
+                        slot--;
+                        continue;
+                    }
+                    long offset = append(msb, lsb, payload);
+                    index.putLong(pos + 16, offset);
+                    index.putInt(pos + 24, activeSegment);
+                    moved++;
+                } catch (IOException e) {
+                    EnchantmentMastery.LOGGER.error("Mastery store compaction failed, keeping old segments", e);
+                    return;
+                }
+            }
+        }
+
+        synchronized (lock) {
+            // The moved records and the index pointing at them must be on disk before the old copies go
+            try {
+                segments.get(activeSegment).force(true);
+                writeHeader();
+                index.force();
+            } catch (IOException e) {
+                EnchantmentMastery.LOGGER.error("Failed to sync compacted mastery store, keeping old segments", e);
+                return;
+            }
+            for (int segment : oldSegments) {
+                FileChannel channel = segments.remove(segment);
+                unsyncedSegments.remove(channel);
+                try {
+                    channel.close();
+                    Files.deleteIfExists(directory.resolve(String.format("segment-%05d.dat", segment)));
+                } catch (IOException e) {
+                    EnchantmentMastery.LOGGER.warn("Failed to delete compacted mastery segment {}", segment, e);
+                }
+            }
+            try {
+                totalBytes = segmentBytes();
+            } catch (IOException e) {
+                totalBytes = liveBytes;
+            }
+            writeHeader();
+            index.force();
+        }
+
+        EnchantmentMastery.LOGGER.debug("Compacted mastery store: {} records moved, {} damaged dropped in {}ms",
+                moved, dropped, (System.nanoTime() - start) / 1_000_000);
+        if (writer.getQueue().isEmpty()) {
+            syncWrites();
+        }
+    }
+
+    /**
+     * Waits for queued writes, then flushes and closes all files.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                EnchantmentMastery.LOGGER.warn("Timed out waiting for mastery store writes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (lock) {
+            try {
+                for (FileChannel channel : segments.values()) {
+                    channel.force(false);
+                    channel.close();
+                }
+                segments.clear();
+                writeHeader();
+                index.force();
+                indexChannel.close();
+            } catch (IOException e) {
+                EnchantmentMastery.LOGGER.error("Failed to close mastery store", e);
+            }
+            index = null;
+        }
+    }
+}
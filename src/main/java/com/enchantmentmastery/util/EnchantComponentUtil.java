@@ -3,18 +3,22 @@ package com.enchantmentmastery.util;
 import com.enchantmentmastery.EnchantmentMastery;
 import com.enchantmentmastery.data.EffectiveLevelsComponent;
 import com.enchantmentmastery.data.ModDataComponents;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import net.minecraft.core.Holder;
 import net.minecraft.core.component.DataComponents;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.enchantment.Enchantment;
 import net.minecraft.world.item.enchantment.EnchantmentHelper;
 import net.minecraft.world.item.enchantment.ItemEnchantments;
 import org.apache.commons.lang3.tuple.Pair;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 /**
  * Utility for reading and writing enchantment data components on items.
@@ -24,7 +28,88 @@ public final class EnchantComponentUtil {
     private EnchantComponentUtil() {}
 
     /**
-     * Gets the stored enchantments from an enchanted book.
+     * Receives enchantments walked by the {@code forEach*} methods.
+     */
+    @FunctionalInterface
+    public interface EnchantmentVisitor {
+        /**
+         * @param enchantment The enchantment holder
+         * @param id          The enchantment id, or null if the holder has no key
+         * @param level       The level
+         */
+        void visit(Holder<Enchantment> enchantment, @Nullable ResourceLocation id, int level);
+    }
+
+    /**
+     * Walks the stored enchantments of a book without copying them.
+     */
+    public static void forEachStoredEnchantment(ItemStack stack, EnchantmentVisitor visitor) {
+        visit(stack.get(DataComponents.STORED_ENCHANTMENTS), null, visitor);
+    }
+
+    /**
+     * Walks the vanilla enchantments of an item without copying them.
+     */
+    public static void forEachEnchantment(ItemStack stack, EnchantmentVisitor visitor) {
+        visit(stack.get(DataComponents.ENCHANTMENTS), null, visitor);
+    }
+
+    /**
+     * Walks the enchantments of an item with their effective levels, i.e. the level from
+     * the effective levels component where it has one and the vanilla level otherwise.
+     */
+    public static void forEachEffectiveEnchantment(ItemStack stack, EnchantmentVisitor visitor) {
+        visit(stack.get(DataComponents.ENCHANTMENTS), stack.get(ModDataComponents.EFFECTIVE_LEVELS.get()), visitor);
+    }
+
+    private static void visit(@Nullable ItemEnchantments enchants, @Nullable EffectiveLevelsComponent effective,
+                              EnchantmentVisitor visitor) {
+        if (enchants == null || enchants.isEmpty()) {
+            return;
+        }
+        for (Object2IntMap.Entry<Holder<Enchantment>> entry : enchants.entrySet()) {
+            Holder<Enchantment> holder = entry.getKey();
+            ResourceLocation id = holder instanceof Holder.Reference<Enchantment> reference
+                    ? reference.key().location()
+                    : holder.unwrapKey().map(ResourceKey::location).orElse(null);
+            int level = entry.getIntValue();
+            if (effective != null && id != null) {
+                int effectiveLevel = effective.getLevel(id);
+                if (effectiveLevel > 0) {
+                    level = effectiveLevel;
+                }
+            }
+            visitor.visit(holder, id, level);
+        }
+    }
+
+    /**
+     * Checks whether any vanilla enchantment on an item matches, stopping at the first match.
+     */
+    public static boolean anyEnchantment(ItemStack stack, Predicate<Holder<Enchantment>> predicate) {
+        ItemEnchantments enchants = stack.get(DataComponents.ENCHANTMENTS);
+        if (enchants == null) {
+            return false;
+        }
+        for (Holder<Enchantment> holder : enchants.keySet()) {
+            if (predicate.test(holder)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of stored enchantments on a book.
+     */
+    public static int getStoredEnchantmentCount(ItemStack stack) {
+        ItemEnchantments stored = stack.get(DataComponents.STORED_ENCHANTMENTS);
+        return stored == null ? 0 : stored.size();
+    }
+
+    /**
+     * Gets the stored enchantments from an enchanted book as a new map.
+     * Prefer {@link #forEachStoredEnchantment} when the map is only iterated.
      *
      * @param stack The item stack (should be an enchanted book)
      * @return Map of enchantment holder to level, empty if none
@@ -47,16 +132,30 @@ public final class EnchantComponentUtil {
      * @return Optional containing the enchantment holder and level, or empty
      */
     public static Optional<Pair<Holder<Enchantment>, Integer>> getSingleStoredEnchantment(ItemStack stack) {
-        Map<Holder<Enchantment>, Integer> stored = getStoredEnchantments(stack);
-        if (stored.size() != 1) {
+        ItemEnchantments stored = stack.get(DataComponents.STORED_ENCHANTMENTS);
+        if (stored == null || stored.size() != 1) {
             return Optional.empty();
         }
         var entry = stored.entrySet().iterator().next();
-        return Optional.of(Pair.of(entry.getKey(), entry.getValue()));
+        return Optional.of(Pair.of(entry.getKey(), entry.getIntValue()));
     }
 
     /**
-     * Gets the enchantments on a regular item (not stored enchantments).
+     * Removes matching stored enchantments from a book, keeping the rest.
+     */
+    public static void removeStoredEnchantments(ItemStack stack, Predicate<Holder<Enchantment>> predicate) {
+        ItemEnchantments stored = stack.get(DataComponents.STORED_ENCHANTMENTS);
+        if (stored == null || stored.isEmpty()) {
+            return;
+        }
+        ItemEnchantments.Mutable mutable = new ItemEnchantments.Mutable(stored);
+        mutable.removeIf(predicate);
+        stack.set(DataComponents.STORED_ENCHANTMENTS, mutable.toImmutable());
+    }
+
+    /**
+     * Gets the enchantments on a regular item (not stored enchantments) as a new map.
+     * Prefer {@link #forEachEnchantment} or {@link #anyEnchantment} when the map is only iterated.
      *
      * @param stack The item stack
      * @return Map of enchantment holder to level
@@ -147,6 +246,22 @@ public final class EnchantComponentUtil {
         return getVanillaLevel(stack, enchantHolder);
     }
 
+    /**
+     * Substitutes the effective level for a vanilla level while enchantment effects are evaluated.
+     * Called from the EnchantmentHelper hooks, so it avoids the id lookup of {@link #getEffectiveLevel}.
+     *
+     * @param vanillaLevel The (capped) level from the vanilla component
+     * @return The effective level if the item stores one, otherwise the vanilla level
+     */
+    public static int resolveEffectiveLevel(ItemStack stack, Holder<Enchantment> enchantHolder, int vanillaLevel) {
+        EffectiveLevelsComponent component = stack.get(ModDataComponents.EFFECTIVE_LEVELS.get());
+        if (component == null) {
+            return vanillaLevel;
+        }
+        int effectiveLevel = component.getLevel(enchantHolder);
+        return effectiveLevel > 0 ? effectiveLevel : vanillaLevel;
+    }
+
     /**
      * Gets the vanilla enchantment level on an item.
      */
@@ -180,25 +295,19 @@ public final class EnchantComponentUtil {
     public static Map<ResourceLocation, Integer> getAllEffectiveLevels(ItemStack stack) {
         Map<ResourceLocation, Integer> result = new HashMap<>();
 
-        // Start with vanilla enchantments
-        ItemEnchantments enchants = stack.get(DataComponents.ENCHANTMENTS);
-        if (enchants != null) {
-            enchants.entrySet().forEach(entry -> {
-                ResourceLocation id = entry.getKey().unwrapKey()
-                        .map(key -> key.location())
-                        .orElse(null);
-                if (id != null) {
-                    result.put(id, entry.getIntValue());
-                }
-            });
-        }
+        // Vanilla enchantments with their effective level
+        forEachEffectiveEnchantment(stack, (holder, id, level) -> {
+            if (id != null) {
+                result.put(id, level);
+            }
+        });
 
-        // Override with effective levels from our component
+        // Effective levels for enchantments not (or no longer) in the vanilla component
         EffectiveLevelsComponent component = stack.get(ModDataComponents.EFFECTIVE_LEVELS.get());
         if (component != null) {
-            component.levels().forEach((id, level) -> {
+            component.forEach((id, level) -> {
                 if (level > 0) {
-                    result.put(id, level);
+                    result.putIfAbsent(id, level);
                 }
             });
         }
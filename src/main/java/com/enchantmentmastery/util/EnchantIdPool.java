@@ -0,0 +1,118 @@
+package com.enchantmentmastery.util;
+
+import com.enchantmentmastery.EnchantmentMastery;
+import com.enchantmentmastery.data.EffectiveLevelsComponent;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.event.TagsUpdatedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical ResourceLocation instances for enchantment ids.
+ *
+ * Mastery data is keyed by enchantment id, and every load, journal replay and sync packet
+ * used to parse fresh ResourceLocations for the same few hundred ids. Ids are resolved
+ * here instead, so all maps share the registry's own key instances and equal ids are
+ * usually the same object.
+ *
+ * The pool is seeded from the enchantment registry whenever registries are (re)loaded on
+ * either side. Ids that aren't registered (e.g. from a removed mod) are pooled too, up to
+ * {@link #MAX_UNREGISTERED}, so a stream of junk ids can't grow it without bound.
+ * A reseed builds the new tables first and swaps them in as a whole, so lookups on other
+ * threads never see a half-empty pool.
+ */
+@Mod.EventBusSubscriber(modid = EnchantmentMastery.MOD_ID)
+public final class EnchantIdPool {
+    private EnchantIdPool() {}
+
+    static final int MAX_UNREGISTERED = 1024;
+
+    private static volatile Pool pool = new Pool(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), 0);
+
+    private record Pool(ConcurrentHashMap<ResourceLocation, ResourceLocation> byId,
+                        ConcurrentHashMap<String, ResourceLocation> byString,
+                        int registered) {}
+
+    @SubscribeEvent
+    public static void onTagsUpdated(TagsUpdatedEvent event) {
+        seed(event.getRegistryAccess());
+        EffectiveLevelsComponent.onRegistriesReloaded();
+    }
+
+    /**
+     * Replaces the pool with the keys of the enchantment registry.
+     */
+    public static void seed(RegistryAccess registryAccess) {
+        ConcurrentHashMap<ResourceLocation, ResourceLocation> byId = new ConcurrentHashMap<>();
+        ConcurrentHashMap<String, ResourceLocation> byString = new ConcurrentHashMap<>();
+        for (ResourceLocation id : EnchantRegistryUtil.getRegistry(registryAccess).keySet()) {
+            byId.put(id, id);
+            byString.put(id.toString(), id);
+        }
+        pool = new Pool(byId, byString, byId.size());
+        EnchantmentMastery.LOGGER.debug("Seeded enchantment id pool with {} ids", byId.size());
+    }
+
+    /**
+     * Gets the canonical instance equal to the given id.
+     */
+    public static ResourceLocation canonical(ResourceLocation id) {
+        return canonical(pool, id);
+    }
+
+    private static ResourceLocation canonical(Pool current, ResourceLocation id) {
+        ResourceLocation pooled = current.byId.get(id);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (current.byId.size() - current.registered >= MAX_UNREGISTERED) {
+            return id;
+        }
+        pooled = current.byId.putIfAbsent(id, id);
+        return pooled != null ? pooled : id;
+    }
+
+    /**
+     * Parses an id, returning the canonical instance, or null if the string isn't a valid id.
+     * Known ids skip parsing entirely.
+     */
+    @Nullable
+    public static ResourceLocation parse(String id) {
+        Pool current = pool;
+        ResourceLocation pooled = current.byString.get(id);
+        if (pooled != null) {
+            return pooled;
+        }
+        ResourceLocation parsed = ResourceLocation.tryParse(id);
+        if (parsed == null) {
+            return null;
+        }
+        pooled = canonical(current, parsed);
+        if (current.byId.get(pooled) == pooled && current.byString.size() < current.byId.size() + MAX_UNREGISTERED) {
+            current.byString.putIfAbsent(id, pooled);
+        }
+        return pooled;
+    }
+
+    /**
+     * Reads an id written with {@link FriendlyByteBuf#writeResourceLocation}.
+     */
+    public static ResourceLocation read(FriendlyByteBuf buf) {
+        Pool current = pool;
+        String id = buf.readUtf(Short.MAX_VALUE);
+        ResourceLocation pooled = current.byString.get(id);
+        return pooled != null ? pooled : canonical(current, ResourceLocation.parse(id));
+    }
+
+    /**
+     * Gets the number of pooled ids.
+     */
+    public static int size() {
+        return pool.byId.size();
+    }
+}
@@ -0,0 +1,248 @@
+package com.enchantmentmastery.util;
+
+import com.enchantmentmastery.capability.MasteryCapability;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.minecraft.core.Holder;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.enchantment.Enchantment;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * Plans the cheapest sequence of Mastery Enchanter applications that brings an item to a set of
+ * target enchantment levels.
+ *
+ * Every application costs {@link ProgressionMath#applyCostLevels} regardless of what was applied
+ * before, so for targets within the player's mastery the order only has to respect conflicts.
+ * Targets above the current mastery are reached by first applying lower levels of the same
+ * enchantment for their mastery XP ("training" steps); finding the cheapest run of those is a
+ * memoized search over (mastery level, mastery XP) states.
+ */
+public final class EnchantPlanner {
+    private EnchantPlanner() {}
+
+    /** Conflicts are kept as bitmasks, one bit per target. */
+    public static final int MAX_TARGETS = 64;
+
+    /** States the training search may expand before settling for the greedy run. */
+    private static final int MAX_SEARCH_STATES = 4096;
+
+    // Cost tables for the levels the planner usually sees; higher levels fall back to ProgressionMath
+    private static final int TABLE_SIZE = 256;
+    private static final int[] APPLY_COST = new int[TABLE_SIZE];
+    private static final int[] APPLY_XP_GAIN = new int[TABLE_SIZE];
+
+    static {
+        for (int level = 0; level < TABLE_SIZE; level++) {
+            APPLY_COST[level] = ProgressionMath.applyCostLevels(level);
+            APPLY_XP_GAIN[level] = ProgressionMath.masteryXpGainFromApplyCost(APPLY_COST[level]);
+        }
+    }
+
+    private static int applyCost(int level) {
+        return level < TABLE_SIZE ? APPLY_COST[level] : ProgressionMath.applyCostLevels(level);
+    }
+
+    private static int applyXpGain(int level) {
+        return level < TABLE_SIZE ? APPLY_XP_GAIN[level]
+                : ProgressionMath.masteryXpGainFromApplyCost(ProgressionMath.applyCostLevels(level));
+    }
+
+    /**
+     * An enchantment level the item should end up with.
+     */
+    public record Target(ResourceLocation enchantId, int level) {}
+
+    /**
+     * One application, in order.
+     *
+     * @param training Applied for its mastery XP; a later step overwrites it
+     */
+    public record Step(ResourceLocation enchantId, int level, int cost, boolean training) {}
+
+    /**
+     * A planned sequence. If the targets can't be reached, {@code failure} says why; the steps
+     * are still filled in when only the XP budget is short.
+     */
+    public record Plan(List<Step> steps, int totalCost, @Nullable Component failure) {
+        public static Plan infeasible(Component failure) {
+            return new Plan(List.of(), 0, failure);
+        }
+
+        public boolean feasible() {
+            return failure == null;
+        }
+    }
+
+    /**
+     * Plans the application of the targets to an item.
+     *
+     * @param mastery The player's mastery data (the synced copy works on the client)
+     * @param budget The XP levels available for the whole sequence
+     */
+    public static Plan plan(RegistryAccess registryAccess, ItemStack stack, List<Target> targets,
+                            MasteryCapability.IPlayerMasteryData mastery, int budget) {
+        if (stack.isEmpty()) {
+            return Plan.infeasible(Component.translatable("enchantmentmastery.plan.no_item"));
+        }
+        int count = targets.size();
+        if (count > MAX_TARGETS) {
+            return Plan.infeasible(Component.translatable("enchantmentmastery.plan.too_many", MAX_TARGETS));
+        }
+
+        // Resolve and check each target against the item
+        List<Holder<Enchantment>> holders = new ArrayList<>(count);
+        for (Target target : targets) {
+            Optional<Holder.Reference<Enchantment>> holder =
+                    EnchantRegistryUtil.getEnchantment(registryAccess, target.enchantId());
+            if (holder.isEmpty()) {
+                return Plan.infeasible(Component.translatable("enchantmentmastery.plan.unknown",
+                        target.enchantId().toString()));
+            }
+            var validation = EnchantRegistryUtil.validateEnchantment(stack, holder.get());
+            if (!validation.isValid()) {
+                return Plan.infeasible(Component.translatable("enchantmentmastery.plan.invalid",
+                        target.enchantId().toString(), Component.translatable(validation.getErrorKey())));
+            }
+            holders.add(holder.get());
+        }
+
+        // Pairwise conflicts between the targets
+        long[] conflicts = new long[count];
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                if (holders.get(i).equals(holders.get(j))) {
+                    return Plan.infeasible(Component.translatable("enchantmentmastery.plan.duplicate",
+                            targets.get(i).enchantId().toString()));
+                }
+                if (EnchantRegistryUtil.areIncompatible(holders.get(i), holders.get(j))) {
+                    conflicts[i] |= 1L << j;
+                    conflicts[j] |= 1L << i;
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (conflicts[i] != 0) {
+                int other = Long.numberOfTrailingZeros(conflicts[i]);
+                return Plan.infeasible(Component.translatable("enchantmentmastery.plan.conflict",
+                        targets.get(i).enchantId().toString(), targets.get(other).enchantId().toString()));
+            }
+        }
+
+        // The targets are compatible with the item and each other, so any order is valid;
+        // each enchantment's training steps just have to come before its final application
+        List<Step> steps = new ArrayList<>();
+        int totalCost = 0;
+        for (int i = 0; i < count; i++) {
+            Target target = targets.get(i);
+            if (EnchantComponentUtil.getEffectiveLevel(stack, holders.get(i)) >= target.level()) {
+                continue;
+            }
+            int masteryLevel = mastery.getMasteryLevel(target.enchantId());
+            if (masteryLevel <= 0) {
+                return Plan.infeasible(Component.translatable("enchantmentmastery.plan.not_learned",
+                        target.enchantId().toString()));
+            }
+            if (masteryLevel < target.level()) {
+                for (int level : planTraining(masteryLevel, mastery.getMasteryXp(target.enchantId()), target.level())) {
+                    steps.add(new Step(target.enchantId(), level, applyCost(level), true));
+                    totalCost += applyCost(level);
+                }
+            }
+            steps.add(new Step(target.enchantId(), target.level(), applyCost(target.level()), false));
+            totalCost += applyCost(target.level());
+        }
+
+        Component failure = totalCost > budget
+                ? Component.translatable("enchantmentmastery.plan.not_enough_xp", totalCost, budget)
+                : null;
+        return new Plan(steps, totalCost, failure);
+    }
+
+    private static long state(int masteryLevel, int masteryXp) {
+        return ((long) masteryLevel << 32) | (masteryXp & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Finds the cheapest run of applications that raises mastery from (level, xp) to the goal.
+     * Each application may use any level up to the mastery at that point.
+     *
+     * @return The levels to apply, in order
+     */
+    public static List<Integer> planTraining(int masteryLevel, int masteryXp, int goal) {
+        // The greedy run (always the highest level available) is a valid answer and bounds the search
+        List<Integer> greedy = new ArrayList<>();
+        int greedyCost = 0;
+        int[] next = new int[2];
+        int level = masteryLevel;
+        int xp = masteryXp;
+        while (level < goal) {
+            greedy.add(level);
+            greedyCost += applyCost(level);
+            ProgressionMath.processXpGain(level, xp, applyXpGain(level), next);
+            level = next[0];
+            xp = next[1];
+        }
+
+        // Uniform-cost search; best[] memoizes the cheapest known cost of each state
+        long start = state(masteryLevel, masteryXp);
+        Long2IntOpenHashMap best = new Long2IntOpenHashMap();
+        best.defaultReturnValue(Integer.MAX_VALUE);
+        Long2LongOpenHashMap parent = new Long2LongOpenHashMap();
+        Long2IntOpenHashMap via = new Long2IntOpenHashMap();
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        best.put(start, 0);
+        queue.add(new long[]{0, start});
+
+        int expanded = 0;
+        while (!queue.isEmpty() && expanded < MAX_SEARCH_STATES) {
+            long[] entry = queue.poll();
+            int cost = (int) entry[0];
+            long current = entry[1];
+            if (cost > best.get(current)) {
+                continue;
+            }
+            int currentLevel = (int) (current >>> 32);
+            if (currentLevel >= goal) {
+                return cost < greedyCost ? unwind(start, current, parent, via) : greedy;
+            }
+            expanded++;
+            int currentXp = (int) current;
+            for (int apply = currentLevel; apply >= 1; apply--) {
+                int nextCost = cost + applyCost(apply);
+                if (nextCost >= greedyCost) {
+                    continue;
+                }
+                ProgressionMath.processXpGain(currentLevel, currentXp, applyXpGain(apply), next);
+                // Past the goal only the cost matters, so those states all merge into one
+                long reached = next[0] >= goal ? state(goal, 0) : state(next[0], next[1]);
+                if (nextCost < best.get(reached)) {
+                    best.put(reached, nextCost);
+                    parent.put(reached, current);
+                    via.put(reached, apply);
+                    queue.add(new long[]{nextCost, reached});
+                }
+            }
+        }
+        // Nothing cheaper than the greedy run, or the search ran out of room
+        return greedy;
+    }
+
+    private static List<Integer> unwind(long start, long end, Long2LongOpenHashMap parent, Long2IntOpenHashMap via) {
+        List<Integer> levels = new ArrayList<>();
+        for (long current = end; current != start; current = parent.get(current)) {
+            levels.add(via.get(current));
+        }
+        Collections.reverse(levels);
+        return levels;
+    }
+}
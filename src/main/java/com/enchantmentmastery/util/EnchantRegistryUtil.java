@@ -9,7 +9,6 @@ import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.enchantment.Enchantment;
 
-import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -61,15 +60,8 @@ public final class EnchantRegistryUtil {
      * @return true if there's a conflict, false if compatible
      */
     public static boolean hasConflict(ItemStack stack, Holder<Enchantment> newEnchantHolder) {
-        Map<Holder<Enchantment>, Integer> existing = EnchantComponentUtil.getEnchantments(stack);
-
-        for (Holder<Enchantment> existingHolder : existing.keySet()) {
-            if (areIncompatible(existingHolder, newEnchantHolder)) {
-                return true;
-            }
-        }
-
-        return false;
+        return EnchantComponentUtil.anyEnchantment(stack,
+                existingHolder -> areIncompatible(existingHolder, newEnchantHolder));
     }
 
     /**
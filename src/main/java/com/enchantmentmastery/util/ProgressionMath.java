@@ -27,6 +27,9 @@ public final class ProgressionMath {
     /** Percentage of apply cost converted to mastery XP (as integer) */
     private static final double XP_GAIN_MULTIPLIER = 5.0;
 
+    /** Tracked uses (hits, blocks mined, damage points absorbed) per mastery XP point */
+    private static final int USAGE_ACTIONS_PER_XP = 4;
+
     /** Base cost for unlocking letters */
     private static final double DECODE_BASE_COST = 1.0;
     /** Cost multiplier per letter already unlocked */
@@ -95,6 +98,25 @@ public final class ProgressionMath {
         return Math.max(1, (int) Math.ceil(applyCostLevels * XP_GAIN_MULTIPLIER));
     }
 
+    /**
+     * Calculate mastery XP gained from using enchanted gear.
+     *
+     * @param actions Tracked uses of the enchantment
+     * @return The mastery XP points gained; uses that don't make up a whole point are left over
+     */
+    public static int masteryXpFromUsage(int actions) {
+        if (actions <= 0) return 0;
+        return actions / USAGE_ACTIONS_PER_XP;
+    }
+
+    /**
+     * Gets the uses left over after {@link #masteryXpFromUsage(int)}, carried into the next batch.
+     */
+    public static int usageRemainder(int actions) {
+        if (actions <= 0) return 0;
+        return actions % USAGE_ACTIONS_PER_XP;
+    }
+
     // --- Decoding Cost ---
 
     /**
@@ -110,6 +132,28 @@ public final class ProgressionMath {
         return Math.max(1, (int) Math.ceil(cost));
     }
 
+    // --- Experience Points ---
+
+    /**
+     * Calculate the experience points a player collects going from level 0 to the given level,
+     * using the vanilla level curve. Blocks that hold experience as points use this to price
+     * costs that are given in XP levels.
+     *
+     * @param levels The XP level reached
+     * @return The experience points needed
+     */
+    public static long experiencePointsForLevels(int levels) {
+        if (levels <= 0) return 0;
+        long l = levels;
+        if (l <= 16) {
+            return l * l + 6 * l;
+        }
+        if (l <= 31) {
+            return (long) Math.floor(2.5 * l * l - 40.5 * l + 360);
+        }
+        return (long) Math.floor(4.5 * l * l - 162.5 * l + 2220);
+    }
+
     // --- Level Processing ---
 
     /**